@@ -0,0 +1,73 @@
+package com.kafka.course.lab1.jmh;
+
+import com.kafka.course.lab1.CheckpointStore;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoint Store Benchmark
+ * 
+ * Cost per record of {@link CheckpointStore#append}: one checksummed entry with the next
+ * offset and a small result written to the memory-mapped file, for different fsync
+ * batch sizes. syncEveryRecords=1 forces every record to disk and shows the raw fsync
+ * cost; larger batches spread it over many records. Includes compactions when the file
+ * fills up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckpointStoreBenchmark {
+    
+    private static final int PARTITIONS = 8;
+    private static final int CAPACITY = 16 * 1024 * 1024;
+    
+    @Param({"1", "100", "1000", "10000"})
+    private int syncEveryRecords;
+    
+    private final TopicPartition[] partitions = new TopicPartition[PARTITIONS];
+    private final byte[] result = "1234567,89012345".getBytes(StandardCharsets.UTF_8);
+    private Path file;
+    private CheckpointStore store;
+    private long offset;
+    
+    @Setup
+    public void setup() throws IOException {
+        for (int p = 0; p < PARTITIONS; p++) {
+            partitions[p] = new TopicPartition("java-basics-topic", p);
+        }
+        file = Files.createTempFile("checkpoint-benchmark", ".checkpoint");
+        store = new CheckpointStore(file, CAPACITY, syncEveryRecords, Long.MAX_VALUE);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public void append() {
+        offset++;
+        store.append(partitions[(int) (offset % PARTITIONS)], offset, result);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.kafka.course.lab1.jmh;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer Loop Benchmark
+ * 
+ * Per-record overhead of the poll loop (poll, iterate, read key and value) against a
+ * MockConsumer. Every invocation consumes RECORDS records in polls of maxPollRecords
+ * records, so the result shows how the per-poll cost is amortized as
+ * max.poll.records grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConsumerLoopBenchmark {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final int RECORDS = 500;
+    
+    @Param({"1", "10", "100", "500"})
+    public int maxPollRecords;
+    
+    private MockConsumer<String, String> consumer;
+    private long nextOffset;
+    
+    @Setup
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Collections.singletonList(PARTITION));
+        consumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+        nextOffset = 0;
+    }
+    
+    @TearDown
+    public void tearDown() {
+        consumer.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void pollLoop(Blackhole blackhole) {
+        for (int polled = 0; polled < RECORDS; polled += maxPollRecords) {
+            // MockConsumer ignores max.poll.records, so hand it exactly one poll worth of records
+            for (int i = 0; i < maxPollRecords; i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, 0, nextOffset++, "key", "value"));
+            }
+            ConsumerRecords<String, String> records = consumer.poll(Duration.ZERO);
+            for (ConsumerRecord<String, String> record : records) {
+                blackhole.consume(record.key());
+                blackhole.consume(record.value());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.kafka.course.lab1.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.course.lab1.JsonDeserializer;
+import com.kafka.course.lab1.JsonSerializer;
+import com.kafka.course.lab1.UserEvent;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON Serde Benchmark
+ * 
+ * Typed JSON records compared with the String path they replace:
+ * - stringNewMapper: String serde plus a new ObjectMapper per record (the old application code)
+ * - stringSharedMapper: String serde plus one shared ObjectMapper
+ * - typed: {@link JsonSerializer} / {@link JsonDeserializer}, straight between bytes and objects
+ * 
+ * Run with -prof gc to compare bytes allocated per record (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerdeBenchmark {
+    
+    private static final String TOPIC_NAME = "java-basics-events";
+    
+    @Param({"16", "512"})
+    public int descriptionLength;
+    
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private final JsonSerializer<UserEvent> jsonSerializer = new JsonSerializer<>();
+    private final JsonDeserializer<UserEvent> jsonDeserializer = new JsonDeserializer<>(UserEvent.class);
+    
+    private UserEvent event;
+    private byte[] bytes;
+    
+    @Setup
+    public void setUp() {
+        char[] description = new char[descriptionLength];
+        Arrays.fill(description, 'd');
+        event = new UserEvent("user1", "purchase", 1700000000000L, 3, 49.95, new String(description));
+        bytes = jsonSerializer.serialize(TOPIC_NAME, event);
+    }
+    
+    @Benchmark
+    public byte[] serializeStringNewMapper() throws IOException {
+        return stringSerializer.serialize(TOPIC_NAME, new ObjectMapper().writeValueAsString(event));
+    }
+    
+    @Benchmark
+    public byte[] serializeStringSharedMapper() throws IOException {
+        return stringSerializer.serialize(TOPIC_NAME, sharedMapper.writeValueAsString(event));
+    }
+    
+    @Benchmark
+    public byte[] serializeTyped() {
+        return jsonSerializer.serialize(TOPIC_NAME, event);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeStringNewMapper() throws IOException {
+        return new ObjectMapper().readValue(stringDeserializer.deserialize(TOPIC_NAME, bytes), UserEvent.class);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeStringSharedMapper() throws IOException {
+        return sharedMapper.readValue(stringDeserializer.deserialize(TOPIC_NAME, bytes), UserEvent.class);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeTyped() {
+        return jsonDeserializer.deserialize(TOPIC_NAME, bytes);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.kafka.course.lab1.jmh;
+
+import com.kafka.course.lab1.ClientMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics Benchmark
+ * 
+ * Hot-path cost of {@link ClientMetrics}: one latency sample plus record and byte counts,
+ * single-threaded and from four threads at once. With -prof gc, gc.alloc.rate.norm
+ * should be ~0 B/op since recording must not allocate per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    
+    private final ClientMetrics metrics = new ClientMetrics("benchmark");
+    private long latencyNanos = 1000;
+    
+    @TearDown
+    public void tearDown() {
+        metrics.close();
+    }
+    
+    @Benchmark
+    public void recordProcessed() {
+        // Vary the value a little so different histogram buckets are hit
+        latencyNanos = (latencyNanos * 31 + 7) & 0xFFFFF;
+        metrics.recordProcessed(latencyNanos, 512);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void recordProcessedContended() {
+        metrics.recordProcessed(1000, 512);
+    }
+}
\ No newline at end of file
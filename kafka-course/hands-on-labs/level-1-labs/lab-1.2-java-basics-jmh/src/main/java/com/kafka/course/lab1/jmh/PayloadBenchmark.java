@@ -0,0 +1,130 @@
+package com.kafka.course.lab1.jmh;
+
+import com.kafka.course.lab1.BufferPool;
+import com.kafka.course.lab1.PayloadView;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload Benchmark
+ * 
+ * Per-record cost of the String payload path against the binary pass-through path
+ * ({@link BufferPool} and {@link PayloadView}), for the part the client does not do
+ * either way:
+ * - stringProduce: build "tag:timestamp:sequence:body" and StringSerializer.serialize
+ * - bytesProduce: write the payload into a pooled buffer and ByteBufferSerializer.serialize
+ * - stringConsume: StringDeserializer.deserialize, split and parse the header fields
+ * - bytesConsume: ByteArrayDeserializer.deserialize and read the fields with a PayloadView
+ * 
+ * Both produce paths end in the byte[] the producer copies into its batch. Run with
+ * -prof gc to compare the allocation rate (gc.alloc.rate.norm is bytes per operation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+    
+    private static final String TOPIC_NAME = "java-basics-payloads";
+    private static final String TAG = "purchase";
+    private static final int BATCH = 1000;
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+    
+    @Param({"64", "1024"})
+    public int bodyBytes;
+    
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ByteBufferSerializer bufferSerializer = new ByteBufferSerializer();
+    private final ByteArrayDeserializer arrayDeserializer = new ByteArrayDeserializer();
+    private final PayloadView view = new PayloadView();
+    private final byte[] tag = TAG.getBytes(StandardCharsets.UTF_8);
+    private BufferPool pool;
+    private String body;
+    private byte[] bodyUtf8;
+    private byte[][] stringRecords;
+    private byte[][] payloadRecords;
+    
+    @Setup
+    public void setUp() {
+        char[] chars = new char[bodyBytes];
+        Arrays.fill(chars, 'x');
+        body = new String(chars);
+        bodyUtf8 = body.getBytes(StandardCharsets.UTF_8);
+        pool = new BufferPool(PayloadView.sizeOf(tag, bodyUtf8), 16);
+        stringRecords = new byte[BATCH][];
+        payloadRecords = new byte[BATCH][];
+        for (int i = 0; i < BATCH; i++) {
+            stringRecords[i] = stringSerializer.serialize(TOPIC_NAME, TAG + ":" + TIMESTAMP + ":" + i + ":" + body);
+            ByteBuffer buffer = pool.acquire();
+            payloadRecords[i] = bufferSerializer.serialize(TOPIC_NAME,
+                PayloadView.write(buffer, TIMESTAMP, i, tag, bodyUtf8));
+            pool.release(buffer);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void stringProduce(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(stringSerializer.serialize(TOPIC_NAME, TAG + ":" + TIMESTAMP + ":" + i + ":" + body));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void bytesProduce(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            ByteBuffer buffer = pool.acquire();
+            blackhole.consume(bufferSerializer.serialize(TOPIC_NAME,
+                PayloadView.write(buffer, TIMESTAMP, i, tag, bodyUtf8)));
+            pool.release(buffer);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void stringConsume(Blackhole blackhole) {
+        for (byte[] record : stringRecords) {
+            String[] fields = stringDeserializer.deserialize(TOPIC_NAME, record).split(":", 4);
+            blackhole.consume(TAG.equals(fields[0]));
+            blackhole.consume(Long.parseLong(fields[1]));
+            blackhole.consume(Long.parseLong(fields[2]));
+            blackhole.consume(fields[3].length());
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void bytesConsume(Blackhole blackhole) {
+        for (byte[] record : payloadRecords) {
+            view.wrap(arrayDeserializer.deserialize(TOPIC_NAME, record));
+            blackhole.consume(view.tagEquals(tag));
+            blackhole.consume(view.timestamp());
+            blackhole.consume(view.sequence());
+            blackhole.consume(view.bodyLength());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.kafka.course.lab1.jmh;
+
+import com.kafka.course.lab1.BasicProducer;
+import com.kafka.course.lab1.BulkSendResult;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer Send Benchmark
+ * 
+ * Client-side cost of send() measured against an auto-completing MockProducer:
+ * - rawSend: Producer.send() with a no-op callback
+ * - bulkSend: BasicProducer.sendBulk() (semaphore, counters and latency histogram)
+ * 
+ * MockProducer keeps every sent record, so its history is cleared between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProducerSendBenchmark {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int BATCH = 1000;
+    private static final Callback NO_OP_CALLBACK = (metadata, exception) -> { };
+    
+    private MockProducer<String, String> mockProducer;
+    private BasicProducer basicProducer;
+    private List<ProducerRecord<String, String>> records;
+    
+    @Setup
+    public void setUp() {
+        mockProducer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        basicProducer = new BasicProducer(mockProducer);
+        records = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            records.add(new ProducerRecord<>(TOPIC_NAME, "user" + (i % 10), "Message " + i));
+        }
+    }
+    
+    @Setup(Level.Invocation)
+    public void clearHistory() {
+        mockProducer.clear();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Future<?> rawSend() {
+        Future<?> last = null;
+        for (ProducerRecord<String, String> record : records) {
+            last = mockProducer.send(record, NO_OP_CALLBACK);
+        }
+        return last;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public BulkSendResult bulkSend() throws InterruptedException, ExecutionException {
+        return basicProducer.sendBulk(records, BATCH).get();
+    }
+}
\ No newline at end of file
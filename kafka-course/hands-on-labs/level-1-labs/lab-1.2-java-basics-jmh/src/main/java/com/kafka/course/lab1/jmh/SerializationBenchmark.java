@@ -0,0 +1,109 @@
+package com.kafka.course.lab1.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.course.lab1.BinaryEventDeserializer;
+import com.kafka.course.lab1.BinaryEventSerializer;
+import com.kafka.course.lab1.UserEvent;
+import com.kafka.course.lab1.UserEventCodec;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization Benchmark
+ * 
+ * Cost of turning a typical event into record bytes and back:
+ * - string: StringSerializer/StringDeserializer on the event rendered as JSON text
+ *   (what the lab producer and consumer do today)
+ * - jackson: ObjectMapper straight from and to the event object
+ * - binary: {@link BinaryEventSerializer}/{@link BinaryEventDeserializer} (compact codec),
+ *   decoding every field or only user_id and amount
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    
+    @Param({"16", "512"})
+    public int descriptionLength;
+    
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinaryEventSerializer binarySerializer = new BinaryEventSerializer();
+    private final BinaryEventDeserializer binaryDeserializer = new BinaryEventDeserializer();
+    private final BinaryEventDeserializer binaryPartialDeserializer = new BinaryEventDeserializer(
+            EnumSet.of(UserEventCodec.Field.USER_ID, UserEventCodec.Field.AMOUNT));
+    
+    private UserEvent event;
+    private String eventJson;
+    private byte[] stringBytes;
+    private byte[] jacksonBytes;
+    private byte[] binaryBytes;
+    
+    @Setup
+    public void setUp() throws IOException {
+        char[] description = new char[descriptionLength];
+        Arrays.fill(description, 'd');
+        event = new UserEvent("user1", "purchase", 1700000000000L, 3, 49.95, new String(description));
+        eventJson = objectMapper.writeValueAsString(event);
+        stringBytes = stringSerializer.serialize(TOPIC_NAME, eventJson);
+        jacksonBytes = objectMapper.writeValueAsBytes(event);
+        binaryBytes = binarySerializer.serialize(TOPIC_NAME, event);
+    }
+    
+    @Benchmark
+    public byte[] serializeString() {
+        return stringSerializer.serialize(TOPIC_NAME, eventJson);
+    }
+    
+    @Benchmark
+    public byte[] serializeJackson() throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+    
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC_NAME, event);
+    }
+    
+    @Benchmark
+    public String deserializeString() {
+        return stringDeserializer.deserialize(TOPIC_NAME, stringBytes);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeJackson() throws IOException {
+        return objectMapper.readValue(jacksonBytes, UserEvent.class);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeBinary() {
+        return binaryDeserializer.deserialize(TOPIC_NAME, binaryBytes);
+    }
+    
+    @Benchmark
+    public UserEvent deserializeBinaryPartial() {
+        return binaryPartialDeserializer.deserialize(TOPIC_NAME, binaryBytes);
+    }
+}
\ No newline at end of file
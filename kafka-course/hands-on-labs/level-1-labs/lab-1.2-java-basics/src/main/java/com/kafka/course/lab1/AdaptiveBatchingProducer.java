@@ -0,0 +1,381 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Adaptive Batching Producer
+ * 
+ * A producer that moves between batching levels (batch.size and linger.ms, from small
+ * and short to large and long) as the sustained load changes, so quiet periods keep the
+ * latency of small batches and peaks get the throughput of large ones:
+ * - Once per evaluation interval the batch fill ratio (batch-size-avg over batch.size)
+ *   and record-queue-time-avg are read from the current client's metrics; the average
+ *   send-to-ack latency is measured on the acknowledgements
+ * - Full batches (fill ratio of at least 80%) whose records still queued for linger.ms
+ *   or longer mean the level caps the throughput: a vote to move up
+ * - Batches that would not even fill half of the next smaller level's batch.size mean
+ *   the level only adds latency: a vote to move down
+ * - A move needs the same vote for several consecutive intervals and goes one level at
+ *   a time; the first interval after a move is skipped while the new client's metrics fill
+ * 
+ * The settings of a live producer cannot be changed, so a move creates a new client
+ * with the new level's settings. To keep the order of records per partition, sends wait
+ * until the old client has written everything it buffers (one flush, about linger.ms
+ * plus a request), so no record of the new client can overtake them. Callbacks run on
+ * a client's I/O thread, which that flush waits for: a send from a callback therefore
+ * never waits, and goes to the client whose callback made it. The move flushes those
+ * too before sends continue on the new client.
+ * The clients' metrics windows are shortened to the evaluation interval. Transactions are
+ * not supported, since a transactional client cannot be replaced under its user.
+ */
+public class AdaptiveBatchingProducer implements Producer<String, String> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchingProducer.class);
+    private static final int[][] LEVELS = { // batch.size, linger.ms
+        {16384, 1}, // The lab defaults
+        {65536, 5},
+        {262144, 20} // The throughput profile
+    };
+    private static final double FULL_FILL_RATIO = 0.8; // Batches this full are closed by size, not linger
+    private static final double SMALLER_LEVEL_FILL_RATIO = 0.5; // Move down below this fill at the smaller level
+    private static final int SUSTAIN_INTERVALS = 3; // Consecutive votes needed for a move
+    private static final long CLOSE_TIMEOUT_MS = 30000;
+    private static final String METRICS_GROUP = "producer-metrics";
+    
+    private final Properties tuning;
+    private final Function<Properties, Producer<String, String>> factory;
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final LongAdder acks = new LongAdder();
+    private final LongAdder ackNanos = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+    private volatile Producer<String, String> client;
+    private volatile Producer<String, String> retiring; // Replaced client until it is closed
+    private final ThreadLocal<Producer<String, String>> callbackClient = new ThreadLocal<>(); // Whose callback runs
+    private final AtomicLong callbackSends = new AtomicLong(); // Sent from callbacks, not yet acknowledged
+    private volatile int level;
+    private volatile double fillRatio = Double.NaN;
+    private volatile double queueTimeMs = Double.NaN;
+    private volatile double ackLatencyMs = Double.NaN;
+    private int vote; // Evaluation thread only
+    private int votes;
+    private boolean settling = true;
+    private volatile int moves;
+    
+    /**
+     * @param tuning producer settings without batch.size and linger.ms (e.g. a {@link ProducerProfile})
+     * @param factory creates a client with the given settings, e.g. {@link BasicProducer#createProducer}
+     * @param evaluateIntervalMs how often the metrics are evaluated
+     */
+    public AdaptiveBatchingProducer(Properties tuning, Function<Properties, Producer<String, String>> factory,
+                                    long evaluateIntervalMs) {
+        this.tuning = new Properties();
+        this.tuning.putAll(tuning);
+        this.tuning.put(CommonClientConfigs.METRICS_SAMPLE_WINDOW_MS_CONFIG, evaluateIntervalMs);
+        this.factory = factory;
+        this.client = factory.apply(levelProperties(this.tuning, 0));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-batching");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evaluate, evaluateIntervalMs, evaluateIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * The given settings with the batch.size and linger.ms of a level (0 is the smallest)
+     */
+    public static Properties levelProperties(Properties tuning, int level) {
+        Properties props = new Properties();
+        props.putAll(tuning);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, LEVELS[level][0]);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, LEVELS[level][1]);
+        return props;
+    }
+    
+    public static int levels() {
+        return LEVELS.length;
+    }
+    
+    private void evaluate() {
+        try {
+            long acked = acks.sumThenReset();
+            long latencyNanos = ackNanos.sumThenReset();
+            ackLatencyMs = acked == 0 ? Double.NaN : latencyNanos / 1_000_000.0 / acked;
+            Map<MetricName, ? extends Metric> metrics = client.metrics();
+            fillRatio = metric(metrics, "batch-size-avg") / LEVELS[level][0];
+            queueTimeMs = metric(metrics, "record-queue-time-avg");
+            if (settling) {
+                settling = false;
+                return;
+            }
+            
+            int current = acked == 0 ? 0 : vote();
+            votes = current != 0 && current == vote ? votes + 1 : 1;
+            vote = current;
+            if (vote != 0 && votes >= SUSTAIN_INTERVALS) {
+                move(level + vote);
+            }
+        } catch (Exception e) {
+            logger.warn("Batching evaluation failed", e);
+        }
+    }
+    
+    private int vote() {
+        if (level < LEVELS.length - 1 && fillRatio >= FULL_FILL_RATIO && queueTimeMs >= LEVELS[level][1]) {
+            return 1;
+        }
+        if (level > 0 && fillRatio * LEVELS[level][0] < SMALLER_LEVEL_FILL_RATIO * LEVELS[level - 1][0]) {
+            return -1;
+        }
+        return 0; // Also when the metrics are not available (NaN)
+    }
+    
+    private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            if (METRICS_GROUP.equals(entry.getKey().group()) && name.equals(entry.getKey().name())) {
+                Object value = entry.getValue().metricValue();
+                return value instanceof Double ? (Double) value : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+    
+    /**
+     * Replace the client with one at the given level; called by the evaluation thread
+     */
+    void move(int newLevel) {
+        logger.info("Batching level {} -> {} (batch.size={}, linger.ms={}): fill ratio {}, queue time {} ms, "
+                   + "ack latency {} ms", level, newLevel, LEVELS[newLevel][0], LEVELS[newLevel][1],
+                   String.format("%.2f", fillRatio), String.format("%.2f", queueTimeMs),
+                   String.format("%.2f", ackLatencyMs));
+        Producer<String, String> replacement = factory.apply(levelProperties(tuning, newLevel));
+        Producer<String, String> previous;
+        rotationLock.writeLock().lock();
+        try {
+            previous = client;
+            retiring = previous;
+            client = replacement;
+            level = newLevel;
+            // Sends wait for the lock until the old client has written everything; sends from
+            // its callbacks do not take the lock and go to the old client, so they are drained too
+            drain(previous);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        retiring = null;
+        previous.close(Duration.ofMillis(CLOSE_TIMEOUT_MS));
+        moves++;
+        votes = 0;
+        vote = 0;
+        settling = true;
+    }
+    
+    /**
+     * Flush the client until no record sent from a callback is left, or the close timeout passed
+     */
+    private void drain(Producer<String, String> previous) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MS);
+        do {
+            previous.flush();
+        } while (callbackSends.get() > 0 && System.nanoTime() < deadline);
+        if (callbackSends.get() > 0) {
+            logger.warn("Callbacks are still sending after {} ms, switching clients anyway", CLOSE_TIMEOUT_MS);
+        }
+    }
+    
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, String> record) {
+        return send(record, null);
+    }
+    
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        Producer<String, String> origin = callbackClient.get();
+        if (origin != null) {
+            // On the I/O thread of a client that a move may be flushing: waiting for the lock could deadlock
+            callbackSends.incrementAndGet();
+            try {
+                return send(origin, record, callback, true);
+            } catch (RuntimeException e) {
+                callbackSends.decrementAndGet();
+                throw e;
+            }
+        }
+        rotationLock.readLock().lock();
+        try {
+            return send(client, record, callback, false);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    private Future<RecordMetadata> send(Producer<String, String> target, ProducerRecord<String, String> record,
+                                        Callback callback, boolean fromCallback) {
+        long sendNanos = System.nanoTime();
+        return target.send(record, (metadata, exception) -> {
+            ackNanos.add(System.nanoTime() - sendNanos);
+            acks.increment();
+            Producer<String, String> outer = callbackClient.get();
+            callbackClient.set(target);
+            try {
+                if (callback != null) {
+                    callback.onCompletion(metadata, exception);
+                }
+            } finally {
+                if (outer == null) {
+                    callbackClient.remove();
+                } else {
+                    callbackClient.set(outer);
+                }
+                if (fromCallback) {
+                    callbackSends.decrementAndGet();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Flush the current client and a replaced one that is still being flushed
+     * 
+     * This does not take the rotation lock: during a move it flushes the old client
+     * alongside the move instead of waiting for it.
+     */
+    @Override
+    public void flush() {
+        // Read the client first: if a move swaps it right after, the old one is flushed here anyway
+        Producer<String, String> current = client;
+        Producer<String, String> previous = retiring;
+        if (previous != null && previous != current) {
+            previous.flush();
+        }
+        current.flush();
+    }
+    
+    /**
+     * The current level, 0 being the smallest batches
+     */
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * Number of level changes so far
+     */
+    public int moves() {
+        return moves;
+    }
+    
+    /**
+     * Batch fill ratio of the last evaluation, NaN if not reported
+     */
+    public double getFillRatio() {
+        return fillRatio;
+    }
+    
+    /**
+     * Average time records waited for their batch to be sent in the last evaluation
+     */
+    public double getQueueTimeMs() {
+        return queueTimeMs;
+    }
+    
+    /**
+     * Average send-to-ack latency in the last evaluation interval
+     */
+    public double getAckLatencyMs() {
+        return ackLatencyMs;
+    }
+    
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return client.partitionsFor(topic);
+    }
+    
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        return client.metrics();
+    }
+    
+    @Override
+    public void close() {
+        close(Duration.ofMillis(CLOSE_TIMEOUT_MS));
+    }
+    
+    /**
+     * Stop moving between levels and close the clients, a replaced one first if a move was
+     * interrupted before it could close it
+     */
+    @Override
+    public void close(Duration timeout) {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Producer<String, String> previous = retiring;
+        if (previous != null) {
+            previous.close(timeout);
+        }
+        client.close(timeout);
+    }
+    
+    @Override
+    public void initTransactions() {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+    
+    @Override
+    public void beginTransaction() {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+    
+    @Override
+    @SuppressWarnings("deprecation")
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+    
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                         ConsumerGroupMetadata groupMetadata) {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+    
+    @Override
+    public void commitTransaction() {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+    
+    @Override
+    public void abortTransaction() {
+        throw new UnsupportedOperationException("Transactions are not supported by the adaptive producer");
+    }
+}
\ No newline at end of file
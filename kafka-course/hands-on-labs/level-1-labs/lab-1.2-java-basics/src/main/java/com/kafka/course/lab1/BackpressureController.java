@@ -0,0 +1,78 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Backpressure Controller
+ * 
+ * Keeps the records buffered between the poll thread and the workers bounded:
+ * - A partition whose in-flight count reaches the high-water mark is paused
+ * - A paused partition is resumed once it drains to the low-water mark
+ * 
+ * Paused partitions return no records from poll(), but the poll loop keeps calling
+ * poll() so the consumer stays in the group and max.poll.interval.ms is never
+ * exceeded however slow processing gets. Per partition the buffer is bounded by
+ * the high-water mark plus one poll worth of records (max.poll.records).
+ */
+public class BackpressureController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BackpressureController.class);
+    
+    private final Consumer<?, ?> consumer;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private long pauseCount;
+    
+    public BackpressureController(Consumer<?, ?> consumer, int highWatermark, int lowWatermark) {
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("Low-water mark must not exceed high-water mark");
+        }
+        this.consumer = consumer;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+    
+    /**
+     * Pause saturated partitions and resume drained ones; call once per poll loop iteration
+     */
+    public void update(RecordWorkerPool<?, ?> workers) {
+        Set<TopicPartition> paused = consumer.paused();
+        List<TopicPartition> toPause = new ArrayList<>();
+        List<TopicPartition> toResume = new ArrayList<>();
+        
+        for (TopicPartition partition : consumer.assignment()) {
+            int inFlight = workers.inFlight(partition);
+            if (paused.contains(partition)) {
+                if (inFlight <= lowWatermark) {
+                    toResume.add(partition);
+                }
+            } else if (inFlight >= highWatermark) {
+                toPause.add(partition);
+            }
+        }
+        
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+            pauseCount += toPause.size();
+            logger.debug("Paused saturated partitions: {}", toPause);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+            logger.debug("Resumed drained partitions: {}", toResume);
+        }
+    }
+    
+    /**
+     * Total number of times a partition has been paused
+     */
+    public long pauseCount() {
+        return pauseCount;
+    }
+}
\ No newline at end of file
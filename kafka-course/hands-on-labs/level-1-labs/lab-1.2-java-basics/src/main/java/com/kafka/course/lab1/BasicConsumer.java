@@ -1,16 +1,27 @@
 package com.kafka.course.lab1;
 
 import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Basic Kafka Consumer Example
@@ -29,29 +40,258 @@ public class BasicConsumer {
     private static final String TOPIC_NAME = "java-basics-topic";
     private static final String BOOTSTRAP_SERVERS = "localhost:9092";
     private static final String GROUP_ID = "java-basics-group";
+    private static final String EVENTS_TOPIC_NAME = BasicProducer.EVENTS_TOPIC_NAME;
+    private static final String BINARY_EVENTS_TOPIC_NAME = BasicProducer.BINARY_EVENTS_TOPIC_NAME;
+    private static final long DEFAULT_PROCESSING_TIME_MS = 100;
+    private static final long REVOKE_TIMEOUT_MS = 10000;
+    private static final long COMMIT_INTERVAL_MS = 1000; // Same cadence as auto-commit
+    private static final int COMMIT_BATCH_RECORDS = 500; // Or once per max.poll.records worth of records
+    private static final int IN_FLIGHT_HIGH_WATERMARK = 1000; // Pause a partition with this many unprocessed records
+    private static final int IN_FLIGHT_LOW_WATERMARK = 250; // Resume it once it has drained to this many
+    private static final long METRICS_REPORT_INTERVAL_MS = 10000;
+    private static final int CHECKPOINT_CAPACITY = 16 * 1024 * 1024; // Compacted when full
+    private static final int CHECKPOINT_SYNC_RECORDS = 1000; // fsync the checkpoint file every 1000 records
+    private static final long CHECKPOINT_SYNC_INTERVAL_MS = 1000; // Or at least once per second
+    static final String GROUP_INSTANCE_ID_ENV = "KAFKA_GROUP_INSTANCE_ID"; // Enables static membership
+    static final String SESSION_TIMEOUT_ENV = "KAFKA_SESSION_TIMEOUT_MS";
+    static final String HEARTBEAT_INTERVAL_ENV = "KAFKA_HEARTBEAT_INTERVAL_MS";
+    static final long[] RETRY_DELAYS_MS = {1000, 10000, 60000}; // Delay of each retry topic tier
+    private static final String DEDUP_MAX_BYTES_PROPERTY = "dedup.max-bytes"; // Enables deduplication
+    private static final String DEDUP_WINDOW_MS_PROPERTY = "dedup.window-ms";
+    private static final long DEFAULT_DEDUP_WINDOW_MS = 600000; // Remember records for at least 10 minutes
+    static final String AGGREGATES_TOPIC_NAME = "java-basics-topic-aggregates"; // Per-key window results
+    private static final long DEFAULT_WINDOW_SIZE_MS = 60000;
+    private static final long WINDOW_ALLOWED_LATENESS_MS = 5000; // Out-of-order records within 5s still count
+    private static final int FETCH_WAIT_BOUND_MS = 100; // Latency bound of the adaptive-fetch mode
+    private static final int FETCH_MIN_BYTES_CAP = 1024 * 1024;
+    private static final long FETCH_RETUNE_INTERVAL_MS = 600000; // A retune recreates the consumer: a rebalance
+    private static final long FETCH_METRICS_INTERVAL_MS = 1000;
+    private static final long PAYLOAD_LOG_INTERVAL = 1000; // Log every n-th payload of the bytes mode
     
-    private final Consumer<String, String> consumer;
+    private volatile Consumer<String, String> consumer; // Only replaced by consumeWithFetchTuning, null in typed modes
+    private final String topic;
+    private final long processingTimeMs;
+    private long commitIntervalMs = COMMIT_INTERVAL_MS;
+    private int commitBatchRecords = COMMIT_BATCH_RECORDS;
+    private int inFlightHighWatermark = IN_FLIGHT_HIGH_WATERMARK;
+    private int inFlightLowWatermark = IN_FLIGHT_LOW_WATERMARK;
     private volatile boolean running = true;
+    private final ClientMetrics metrics = new ClientMetrics("consumer");
+    private RecordLogger recordLogger = RecordLogger.fromSystemProperties("Received");
+    private RecordProcessor recordProcessor = record -> { };
+    private RetryRouter retryRouter;
+    private DeduplicationCache deduplicationCache;
     
     public BasicConsumer() {
-        this.consumer = createConsumer();
+        this(createConsumer(true));
+    }
+    
+    public BasicConsumer(Consumer<String, String> consumer) {
+        this(consumer, DEFAULT_PROCESSING_TIME_MS);
+    }
+    
+    /**
+     * Create a consumer whose settings are overridden by the given properties
+     * (e.g. another bootstrap server or group id, see {@link #createConsumer(Properties)})
+     */
+    public BasicConsumer(Properties overrides) {
+        this(createConsumer(overrides));
+    }
+    
+    /**
+     * Create a consumer around an existing client (e.g. a MockConsumer) with a
+     * custom simulated processing time per record
+     */
+    public BasicConsumer(Consumer<String, String> consumer, long processingTimeMs) {
+        this(consumer, TOPIC_NAME, processingTimeMs);
+    }
+    
+    /**
+     * Create a consumer from layered settings: the default settings overridden by the
+     * config's consumer settings, reading the config's topic
+     */
+    public BasicConsumer(ClientConfig config, long processingTimeMs) {
+        this(createConsumer(config.consumerProperties()), config.getTopic(), processingTimeMs);
+    }
+    
+    /**
+     * Create a consumer around an existing client that reads the given topic; the client is
+     * null for the json, binary and bytes modes, which create their own typed client
+     */
+    public BasicConsumer(Consumer<String, String> consumer, String topic, long processingTimeMs) {
+        this.consumer = consumer;
+        this.topic = topic;
+        this.processingTimeMs = processingTimeMs;
+    }
+    
+    /**
+     * Processing, poll-to-commit and lag metrics of this consumer; start reporting with
+     * {@link ClientMetrics#startReporting}
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Choose how consumed records are logged; by default per-partition summaries and a
+     * 1% sample of the records are written instead of one INFO line per record
+     */
+    public void setRecordLogger(RecordLogger recordLogger) {
+        this.recordLogger = recordLogger;
+    }
+    
+    /**
+     * Set the business logic applied to every record after the simulated processing time;
+     * an exception thrown by it marks the record as failed
+     */
+    public void setRecordProcessor(RecordProcessor recordProcessor) {
+        this.recordProcessor = recordProcessor;
+    }
+    
+    /**
+     * Send records that fail in the error-handling mode to retry and dead-letter topics
+     * instead of logging and dropping them
+     */
+    public void setRetryRouter(RetryRouter retryRouter) {
+        this.retryRouter = retryRouter;
+    }
+    
+    /**
+     * Skip records the cache has seen before (same key and message id) instead of
+     * processing them again; a record is remembered once it has been processed without
+     * an exception. Enabled in main with the dedup.max-bytes system property
+     */
+    public void setDeduplicationCache(DeduplicationCache deduplicationCache) {
+        this.deduplicationCache = deduplicationCache;
+    }
+    
+    /**
+     * Change how often the manual-commit and parallel modes commit processed offsets
+     */
+    public void setCommitCadence(long commitIntervalMs, int commitBatchRecords) {
+        this.commitIntervalMs = commitIntervalMs;
+        this.commitBatchRecords = commitBatchRecords;
+    }
+    
+    /**
+     * Change the per-partition in-flight limits at which the parallel modes pause and resume fetching
+     */
+    public void setBackpressure(int inFlightHighWatermark, int inFlightLowWatermark) {
+        this.inFlightHighWatermark = inFlightHighWatermark;
+        this.inFlightLowWatermark = inFlightLowWatermark;
     }
     
     /**
      * Create and configure a Kafka consumer
      */
-    private Consumer<String, String> createConsumer() {
+    static Consumer<String, String> createConsumer(boolean enableAutoCommit) {
+        return new KafkaConsumer<>(consumerConfig(enableAutoCommit, StringDeserializer.class));
+    }
+    
+    /**
+     * Create a consumer with the default settings overridden by the given properties
+     */
+    static Consumer<String, String> createConsumer(Properties overrides) {
+        Properties props = consumerConfig(true, StringDeserializer.class);
+        props.putAll(overrides);
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a manual-commit consumer with the given fetch settings (see {@link FetchTuner})
+     */
+    static Consumer<String, String> createFetchTunedConsumer(Properties fetchProperties) {
+        Properties props = consumerConfig(false, StringDeserializer.class);
+        props.putAll(fetchProperties);
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a manual-commit consumer that uses incremental cooperative rebalancing:
+     * during a rebalance only the partitions that move are revoked, the others keep
+     * being processed
+     */
+    static Consumer<String, String> createCooperativeConsumer() {
+        Properties props = consumerConfig(false, StringDeserializer.class);
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a consumer that reads JSON values as {@link UserEvent}
+     */
+    static Consumer<String, UserEvent> createJsonConsumer(boolean enableAutoCommit) {
+        Properties props = consumerConfig(enableAutoCommit, JsonDeserializer.class);
+        props.put(JsonDeserializer.VALUE_TYPE_CONFIG, UserEvent.class.getName());
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a consumer that reads binary {@link UserEvent} values, decoding only the
+     * given fields (comma-separated, e.g. "user_id,amount") and skipping the rest
+     */
+    static Consumer<String, UserEvent> createBinaryConsumer(boolean enableAutoCommit, String fields) {
+        Properties props = consumerConfig(enableAutoCommit, BinaryEventDeserializer.class);
+        props.put(BinaryEventDeserializer.FIELDS_CONFIG, fields);
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a consumer that reads keys and values as the byte[] they arrive in, without
+     * decoding them (see {@link #consumePayloads})
+     */
+    static Consumer<byte[], byte[]> createPayloadConsumer(boolean enableAutoCommit) {
+        Properties props = consumerConfig(enableAutoCommit, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a consumer for {@link TransformPipeline}: offsets are committed by the
+     * pipeline and only committed transactional records are read
+     */
+    static Consumer<String, String> createPipelineConsumer(String groupId) {
+        Properties props = consumerConfig(false, StringDeserializer.class);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"); // Skip aborted and open transactions
+        return new KafkaConsumer<>(props);
+    }
+    
+    /**
+     * Create a consumer for {@link RetryScheduler}: it reads the retry topics in its own
+     * group and commits once the records it routed onwards have been acknowledged
+     */
+    static Consumer<String, String> createRetryConsumer() {
+        Properties props = consumerConfig(false, StringDeserializer.class);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID + "-retry");
+        props.remove(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG); // The instance id belongs to the main group member
+        return new KafkaConsumer<>(props);
+    }
+    
+    private static int intFromEnv(Map<String, String> env, String name, int defaultValue) {
+        String value = env.get(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+    
+    private static Properties consumerConfig(boolean enableAutoCommit, Class<?> valueDeserializer) {
+        return consumerConfig(enableAutoCommit, valueDeserializer, System.getenv());
+    }
+    
+    /**
+     * Consumer settings, with static membership and timeouts taken from the given environment
+     */
+    static Properties consumerConfig(boolean enableAutoCommit, Class<?> valueDeserializer, Map<String, String> env) {
         Properties props = new Properties();
         
         // Required configurations
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer.getName());
         
         // Offset management
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"); // Start from beginning if no offset
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true); // Auto-commit offsets
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, enableAutoCommit); // Auto-commit offsets
         props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000); // Commit every 1 second
         
         // Performance configurations
@@ -60,11 +300,21 @@ public class BasicConsumer {
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500); // Max records per poll
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000); // 5 minutes max poll interval
         
-        // Session and heartbeat
-        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000); // 30 seconds session timeout
-        props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 3000); // 3 seconds heartbeat
+        // Static membership: a member that restarts within the session timeout gets its
+        // partitions back without a rebalance, so a rolling restart does not stop the group
+        String groupInstanceId = env.get(GROUP_INSTANCE_ID_ENV);
+        boolean staticMember = groupInstanceId != null && !groupInstanceId.isEmpty();
+        if (staticMember) {
+            props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, groupInstanceId); // Unique and stable per instance
+        }
         
-        return new KafkaConsumer<>(props);
+        // Session and heartbeat (a static member's session must outlast a restart)
+        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG,
+                  intFromEnv(env, SESSION_TIMEOUT_ENV, staticMember ? 60000 : 30000)); // 60 or 30 seconds session timeout
+        props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG,
+                  intFromEnv(env, HEARTBEAT_INTERVAL_ENV, 3000)); // 3 seconds heartbeat
+        
+        return props;
     }
     
     /**
@@ -73,12 +323,13 @@ public class BasicConsumer {
     public void consumeMessages() {
         try {
             // Subscribe to the topic
-            consumer.subscribe(Arrays.asList(TOPIC_NAME));
-            logger.info("Subscribed to topic: {}", TOPIC_NAME);
+            consumer.subscribe(Arrays.asList(topic));
+            logger.info("Subscribed to topic: {}", topic);
             
             // Start consuming messages
             while (running) {
                 ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                metrics.maybeUpdateLag(consumer);
                 
                 if (!records.isEmpty()) {
                     logger.info("Received {} records", records.count());
@@ -89,6 +340,8 @@ public class BasicConsumer {
                 }
             }
             
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
         } catch (Exception e) {
             logger.error("Error consuming messages", e);
         } finally {
@@ -100,53 +353,322 @@ public class BasicConsumer {
      * Process a single consumer record
      */
     private void processRecord(ConsumerRecord<String, String> record) {
-        logger.info("Received message: topic={}, partition={}, offset={}, key={}, value={}", 
-                   record.topic(), record.partition(), record.offset(), record.key(), record.value());
+        if (deduplicationCache != null && deduplicationCache.contains(record)) {
+            logger.debug("Skipping duplicate record {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+        long startNanos = System.nanoTime();
+        recordLogger.onRecord(record);
+        
+        // Simulate some processing time (none when measuring the client alone)
+        if (processingTimeMs > 0) {
+            try {
+                Thread.sleep(processingTimeMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Processing interrupted");
+            }
+        }
+        recordProcessor.process(record);
+        if (deduplicationCache != null) {
+            // Only now: a record that failed must not be skipped when it is delivered again
+            deduplicationCache.remember(record);
+        }
+        
+        metrics.recordProcessed(System.nanoTime() - startNanos, serializedSize(record));
+    }
+    
+    private static int serializedSize(ConsumerRecord<?, ?> record) {
+        // Sizes are -1 for null keys and values
+        return Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+    }
+    
+    /**
+     * Consume messages with one worker lane per partition
+     * 
+     * Records of different partitions are processed concurrently on a bounded pool
+     * while each partition keeps its offset order. Offsets are committed manually
+     * and only for records that have been fully processed, so the consumer must
+     * be created with auto-commit disabled. A record that fails stops the consumer
+     * like in the manual-commit mode, and is redelivered from the committed offset.
+     */
+    public void consumeMessagesInParallel(int maxWorkers) {
+        consumeWithWorkers(new PartitionWorkerPool<>(maxWorkers, this::processRecord));
+    }
+    
+    /**
+     * Consume messages with key-ordered parallelism inside each partition
+     * 
+     * Records with different keys from the same partition are processed concurrently,
+     * records sharing a key keep their order. This keeps a single hot partition from
+     * becoming the bottleneck. Offsets are committed up to the lowest record that is
+     * not fully processed yet, so the consumer must be created with auto-commit disabled.
+     */
+    public void consumeMessagesByKey(int maxWorkers) {
+        consumeWithWorkers(new KeyOrderedWorkerPool<>(maxWorkers, this::processRecord));
+    }
+    
+    /**
+     * Poll loop shared by the parallel modes: the poll thread only fetches, hands
+     * records to the worker pool, applies backpressure and commits what the pool
+     * reports as processed
+     */
+    private void consumeWithWorkers(RecordWorkerPool<String, String> workers) {
+        OffsetCommitManager commits =
+            new OffsetCommitManager(consumer, commitIntervalMs, commitBatchRecords, metrics);
+        BackpressureController backpressure =
+            new BackpressureController(consumer, inFlightHighWatermark, inFlightLowWatermark);
         
-        // Simulate some processing time
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.warn("Processing interrupted");
+            consumer.subscribe(Arrays.asList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions revoked: {}", partitions);
+                    // Finish in-flight records and commit what was processed before losing ownership
+                    commits.markProcessed(workers.revoke(partitions, REVOKE_TIMEOUT_MS));
+                    commits.commitSync(partitions);
+                    commits.forget(partitions);
+                }
+                
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions assigned: {}", partitions);
+                }
+            });
+            logger.info("Subscribed to topic: {} with {}", topic, workers.getClass().getSimpleName());
+            
+            while (running) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                commits.markPolled(records);
+                metrics.maybeUpdateLag(consumer);
+                
+                for (TopicPartition partition : records.partitions()) {
+                    List<ConsumerRecord<String, String>> partitionRecords = records.records(partition);
+                    workers.submit(partition, partitionRecords);
+                }
+                
+                // Stop fetching saturated partitions but keep polling so the group sees us alive
+                backpressure.update(workers);
+                
+                commits.markProcessed(workers.completedOffsets());
+                commits.maybeCommitAsync();
+                
+                // A failed record stops the loop; everything before it is committed below
+                workers.throwIfFailed();
+            }
+            
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
+        } catch (Exception e) {
+            logger.error("Error in parallel consumer", e);
+        } finally {
+            try {
+                commits.markProcessed(workers.shutdown(REVOKE_TIMEOUT_MS));
+                commits.commitSync();
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
+            close();
         }
     }
     
     /**
      * Consume messages with manual offset commit
+     * 
+     * Offsets of processed records are committed asynchronously in batches (see
+     * {@link #setCommitCadence}) instead of blocking the poll loop with commitSync()
+     * after every poll. The consumer must be created with auto-commit disabled.
      */
     public void consumeMessagesWithManualCommit() {
+        OffsetCommitManager commits =
+            new OffsetCommitManager(consumer, commitIntervalMs, commitBatchRecords, metrics);
+        
         try {
-            // Disable auto-commit
-            Properties manualProps = new Properties();
-            manualProps.putAll(consumer.configs());
-            manualProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-            
-            Consumer<String, String> manualConsumer = new KafkaConsumer<>(manualProps);
-            manualConsumer.subscribe(Arrays.asList(TOPIC_NAME));
+            consumer.subscribe(Arrays.asList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions revoked: {}", partitions);
+                    commits.commitSync(partitions);
+                    commits.forget(partitions);
+                }
+                
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions assigned: {}", partitions);
+                }
+            });
             
             logger.info("Starting consumer with manual commit");
             
             while (running) {
-                ConsumerRecords<String, String> records = manualConsumer.poll(Duration.ofMillis(100));
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                commits.markPolled(records);
+                metrics.maybeUpdateLag(consumer);
                 
                 if (!records.isEmpty()) {
                     logger.info("Processing {} records with manual commit", records.count());
                     
                     for (ConsumerRecord<String, String> record : records) {
                         processRecord(record);
+                        commits.markProcessed(record);
                     }
-                    
-                    // Manually commit offsets
-                    manualConsumer.commitSync();
-                    logger.info("Committed offsets for {} records", records.count());
                 }
+                
+                // Commit asynchronously once enough records or time have accumulated
+                commits.maybeCommitAsync();
             }
             
-            manualConsumer.close();
-            
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
         } catch (Exception e) {
             logger.error("Error in manual commit consumer", e);
+        } finally {
+            try {
+                commits.commitSync();
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
+        }
+    }
+    
+    /**
+     * Aggregate records in event-time windows with at-least-once results
+     * 
+     * Offsets are committed after windows have been emitted and their results flushed,
+     * and only up to the first record that still counts in an open window (see
+     * {@link WindowedAggregator#committableOffsets()}). After a crash the open windows are
+     * rebuilt from the input instead of being lost; windows emitted after the last commit
+     * are emitted again. The consumer must be created with auto-commit disabled.
+     */
+    public void consumeWithWindows(WindowedAggregator aggregator, BasicProducer producer) {
+        setRecordProcessor(aggregator);
+        long committedWindows = 0;
+        try {
+            consumer.subscribe(Arrays.asList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions revoked: {}", partitions);
+                    commitWindowOffsets(aggregator, producer, partitions);
+                    aggregator.forget(partitions);
+                }
+                
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions assigned: {}", partitions);
+                }
+            });
+            
+            while (running) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                metrics.maybeUpdateLag(consumer);
+                for (ConsumerRecord<String, String> record : records) {
+                    processRecord(record);
+                }
+                
+                // Offsets only move past open windows when a window closes
+                if (aggregator.emittedWindows() != committedWindows) {
+                    committedWindows = aggregator.emittedWindows();
+                    commitWindowOffsets(aggregator, producer, consumer.assignment());
+                }
+            }
+            
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
+        } catch (Exception e) {
+            logger.error("Error in windowed consumer", e);
+        } finally {
+            try {
+                aggregator.flush();
+                commitWindowOffsets(aggregator, producer, consumer.assignment());
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
+        }
+    }
+    
+    /**
+     * Flush the emitted results, then commit the aggregator's committable offsets of the given partitions
+     */
+    private void commitWindowOffsets(WindowedAggregator aggregator, BasicProducer producer,
+                                     Collection<TopicPartition> partitions) {
+        producer.flush();
+        Map<TopicPartition, OffsetAndMetadata> offsets = aggregator.committableOffsets();
+        offsets.keySet().retainAll(partitions);
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+            logger.debug("Committed window offsets: {}", offsets);
+        }
+    }
+    
+    /**
+     * Consume typed JSON events
+     * 
+     * The deserializer parses each value straight from the record bytes into a
+     * {@link UserEvent}, so no intermediate String or per-record ObjectMapper is needed.
+     */
+    public void consumeJsonEvents() {
+        consumeEvents(createJsonConsumer(true), EVENTS_TOPIC_NAME);
+    }
+    
+    /**
+     * Consume events in the compact binary format
+     * 
+     * Only the fields that are logged below are decoded; the description is skipped
+     * on the wire without being turned into a String.
+     */
+    public void consumeBinaryEvents() {
+        consumeEvents(createBinaryConsumer(true, "user_id,event_type,amount"), BINARY_EVENTS_TOPIC_NAME);
+    }
+    
+    /**
+     * Consume binary pass-through payloads without turning them into Strings
+     * 
+     * One {@link PayloadView} is rewrapped around every record's byte[] and reads the
+     * header in place. Only every PAYLOAD_LOG_INTERVAL-th record is logged, with its tag
+     * decoded for the log line.
+     */
+    public void consumePayloads() {
+        PayloadView view = new PayloadView();
+        long count = 0;
+        try (Consumer<byte[], byte[]> payloadConsumer = createPayloadConsumer(true)) {
+            payloadConsumer.subscribe(Arrays.asList(BasicProducer.PAYLOADS_TOPIC_NAME));
+            logger.info("Subscribed to topic: {}", BasicProducer.PAYLOADS_TOPIC_NAME);
+            
+            while (running) {
+                ConsumerRecords<byte[], byte[]> records = payloadConsumer.poll(Duration.ofMillis(100));
+                
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    view.wrap(record.value());
+                    if (count++ % PAYLOAD_LOG_INTERVAL == 0) {
+                        logger.info("Payload: partition={}, offset={}, sequence={}, tag={}, body={} bytes, age={} ms",
+                                   record.partition(), record.offset(), view.sequence(),
+                                   StandardCharsets.UTF_8.decode(view.tag()), view.bodyLength(),
+                                   System.currentTimeMillis() - view.timestamp());
+                    }
+                }
+            }
+            
+        } catch (Exception e) {
+            logger.error("Error consuming payloads", e);
+        }
+        logger.info("Consumed {} payloads", count);
+    }
+    
+    private void consumeEvents(Consumer<String, UserEvent> eventConsumer, String topic) {
+        try (eventConsumer) {
+            eventConsumer.subscribe(Arrays.asList(topic));
+            logger.info("Subscribed to topic: {}", topic);
+            
+            while (running) {
+                ConsumerRecords<String, UserEvent> records = eventConsumer.poll(Duration.ofMillis(100));
+                
+                for (ConsumerRecord<String, UserEvent> record : records) {
+                    recordLogger.onRecord(record);
+                }
+            }
+            
+        } catch (Exception e) {
+            logger.error("Error consuming events from {}", topic, e);
         }
     }
     
@@ -158,7 +680,7 @@ public class BasicConsumer {
             // Get topic partitions
             Set<TopicPartition> partitions = consumer.assignment();
             if (partitions.isEmpty()) {
-                consumer.subscribe(Arrays.asList(TOPIC_NAME));
+                consumer.subscribe(Arrays.asList(topic));
                 consumer.poll(Duration.ofMillis(1000)); // Trigger assignment
                 partitions = consumer.assignment();
             }
@@ -176,8 +698,7 @@ public class BasicConsumer {
                 ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
                 
                 for (ConsumerRecord<String, String> record : records) {
-                    logger.info("Partition-specific message: partition={}, offset={}, key={}, value={}", 
-                               record.partition(), record.offset(), record.key(), record.value());
+                    recordLogger.onRecord(record);
                 }
             }
             
@@ -191,7 +712,7 @@ public class BasicConsumer {
      */
     public void demonstrateConsumerGroup() {
         try {
-            consumer.subscribe(Arrays.asList(TOPIC_NAME));
+            consumer.subscribe(Arrays.asList(topic));
             logger.info("Consumer group: {}", GROUP_ID);
             
             // Get current assignment
@@ -221,59 +742,312 @@ public class BasicConsumer {
     }
     
     /**
-     * Handle consumer rebalancing
+     * Handle consumer rebalancing with per-partition state hand-off
+     * 
+     * Works with both rebalance protocols; only the partitions passed to the listener
+     * are touched, so with {@link #createCooperativeConsumer()} the partitions that stay
+     * assigned keep being processed while others move:
+     * - Revoked: the partition's offset is committed synchronously together with its
+     *   state in the commit metadata, then the state is dropped
+     * - Assigned: the state is restored from the committed metadata, so the new owner
+     *   continues from where the previous one stopped
+     * - Lost: the state is dropped without committing (another member may own it already)
+     * 
+     * Records are processed on the poll thread, so no work for a revoked partition is
+     * still in flight when the listener runs. The consumer must be created with
+     * auto-commit disabled.
      */
     public void handleRebalancing() {
+        Map<TopicPartition, PartitionState> states = new HashMap<>();
+        
         try {
-            consumer.subscribe(Arrays.asList(TOPIC_NAME), new ConsumerRebalanceListener() {
+            consumer.subscribe(Arrays.asList(topic), new ConsumerRebalanceListener() {
                 @Override
                 public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
                     logger.info("Partitions revoked: {}", partitions);
-                    // Commit offsets for revoked partitions
-                    consumer.commitSync();
+                    // Commit offsets and hand off the state of revoked partitions only
+                    consumer.commitSync(PartitionState.toOffsets(states, partitions));
+                    states.keySet().removeAll(partitions);
                 }
                 
                 @Override
                 public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
                     logger.info("Partitions assigned: {}", partitions);
+                    Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+                    for (TopicPartition partition : partitions) {
+                        states.put(partition, PartitionState.restore(committed.get(partition)));
+                    }
+                }
+                
+                @Override
+                public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                    logger.warn("Partitions lost: {}", partitions);
+                    states.keySet().removeAll(partitions);
                 }
             });
             
             logger.info("Consumer with rebalancing listener started");
             
+            long lastCommitMs = System.currentTimeMillis();
             while (running) {
                 ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                metrics.maybeUpdateLag(consumer);
                 
                 for (ConsumerRecord<String, String> record : records) {
                     processRecord(record);
+                    states.get(new TopicPartition(record.topic(), record.partition())).update(record);
+                }
+                
+                if (System.currentTimeMillis() - lastCommitMs >= commitIntervalMs) {
+                    consumer.commitAsync(PartitionState.toOffsets(states, states.keySet()), null);
+                    lastCommitMs = System.currentTimeMillis();
                 }
             }
             
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
         } catch (Exception e) {
             logger.error("Error in rebalancing consumer", e);
+        } finally {
+            try {
+                consumer.commitSync(PartitionState.toOffsets(states, states.keySet()));
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
+        }
+    }
+    
+    /**
+     * State kept for one partition: the next offset to commit and running totals of the
+     * records seen, carried to the next owner in the metadata of the committed offset
+     */
+    private static class PartitionState {
+        
+        private long nextOffset = -1; // Nothing processed since assignment
+        private long records;
+        private long bytes;
+        
+        void update(ConsumerRecord<String, String> record) {
+            nextOffset = record.offset() + 1;
+            records++;
+            bytes += serializedSize(record);
+        }
+        
+        String encode() {
+            return records + "," + bytes;
+        }
+        
+        static PartitionState restore(OffsetAndMetadata committed) {
+            return restore(committed == null ? null : committed.metadata());
+        }
+        
+        static PartitionState restore(String encoded) {
+            PartitionState state = new PartitionState();
+            if (encoded != null && encoded.contains(",")) {
+                String[] totals = encoded.split(",");
+                state.records = Long.parseLong(totals[0]);
+                state.bytes = Long.parseLong(totals[1]);
+            }
+            return state;
+        }
+        
+        static Map<TopicPartition, OffsetAndMetadata> toOffsets(Map<TopicPartition, PartitionState> states,
+                                                                 Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                PartitionState state = states.get(partition);
+                if (state != null && state.nextOffset >= 0) {
+                    offsets.put(partition, new OffsetAndMetadata(state.nextOffset, state.encode()));
+                }
+            }
+            return offsets;
+        }
+    }
+    
+    /**
+     * Consume with offsets stored in a local checkpoint file instead of broker commits
+     * 
+     * After every record its partition's next offset and running totals are appended to
+     * the {@link CheckpointStore} in one entry, so results and offsets can never disagree,
+     * and there are no commits on the hot path. On assignment each partition seeks to its
+     * checkpoint. Offsets and totals are committed to the broker only when partitions are
+     * revoked and on shutdown, so that a member on another host (which does not have this
+     * file) can take over; on assignment the newer of checkpoint and broker commit wins.
+     * The consumer must be created with auto-commit disabled.
+     */
+    public void consumeWithCheckpoints(CheckpointStore checkpoints) {
+        Map<TopicPartition, PartitionState> states = new HashMap<>();
+        
+        try {
+            consumer.subscribe(Arrays.asList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    logger.info("Partitions revoked: {}", partitions);
+                    checkpoints.sync();
+                    consumer.commitSync(PartitionState.toOffsets(states, partitions));
+                    states.keySet().removeAll(partitions);
+                }
+                
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+                    for (TopicPartition partition : partitions) {
+                        CheckpointStore.Checkpoint checkpoint = checkpoints.get(partition);
+                        OffsetAndMetadata brokerOffset = committed.get(partition);
+                        boolean checkpointIsNewer = checkpoint != null
+                            && (brokerOffset == null || checkpoint.getNextOffset() >= brokerOffset.offset());
+                        if (checkpointIsNewer) {
+                            consumer.seek(partition, checkpoint.getNextOffset());
+                            states.put(partition, PartitionState.restore(
+                                new String(checkpoint.getResult(), StandardCharsets.UTF_8)));
+                            logger.info("Partition {} resumes from checkpoint at offset {}", partition,
+                                       checkpoint.getNextOffset());
+                        } else {
+                            states.put(partition, PartitionState.restore(brokerOffset));
+                            logger.info("Partition {} resumes from the committed offset {}", partition, brokerOffset);
+                        }
+                    }
+                }
+                
+                @Override
+                public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                    logger.warn("Partitions lost: {}", partitions);
+                    states.keySet().removeAll(partitions);
+                }
+            });
+            
+            logger.info("Consumer with local offset checkpoints started");
+            
+            while (running) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                metrics.maybeUpdateLag(consumer);
+                
+                for (ConsumerRecord<String, String> record : records) {
+                    processRecord(record);
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    PartitionState state = states.get(partition);
+                    state.update(record);
+                    checkpoints.append(partition, state.nextOffset, state.encode().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
+        } catch (Exception e) {
+            logger.error("Error in checkpointing consumer", e);
+        } finally {
+            try {
+                checkpoints.close();
+                consumer.commitSync(PartitionState.toOffsets(states, states.keySet()));
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
+        }
+    }
+    
+    /**
+     * Consume with fetch settings that follow the observed byte rate (see {@link FetchTuner})
+     * 
+     * Offsets are committed asynchronously after every poll. When the tuner asks for new
+     * fetch settings, the offsets are committed synchronously and the consumer is closed
+     * and replaced by one the factory creates with the new settings; it rejoins the group
+     * and continues from the committed offsets. The consumer must be created with
+     * auto-commit disabled.
+     * 
+     * Every retune is expensive: closing the consumer leaves the group and the new one
+     * joins it, one or two rebalances that pause the group (every partition of every member
+     * with the eager protocol) for seconds. The tuner therefore retunes rarely (every 10
+     * minutes at most in main, and only for a 2x change). A static member (with
+     * KAFKA_GROUP_INSTANCE_ID set) does not leave on close and gets its partitions back
+     * when it rejoins, so its retunes cause no rebalance at all.
+     */
+    public void consumeWithFetchTuning(FetchTuner tuner, Function<Properties, Consumer<String, String>> factory) {
+        try {
+            consumer.subscribe(Arrays.asList(topic));
+            logger.info("Subscribed to topic: {} with fetch settings {}", topic, tuner.fetchProperties());
+            long lastMetricsMs = System.currentTimeMillis();
+            
+            while (running) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                long bytes = 0;
+                for (ConsumerRecord<String, String> record : records) {
+                    processRecord(record);
+                    bytes += serializedSize(record);
+                }
+                if (!records.isEmpty()) {
+                    consumer.commitAsync();
+                }
+                
+                long now = System.currentTimeMillis();
+                tuner.onPoll(records.count(), bytes, now);
+                if (now - lastMetricsMs >= FETCH_METRICS_INTERVAL_MS) {
+                    tuner.observeMetrics(consumer.metrics());
+                    lastMetricsMs = now;
+                }
+                if (tuner.shouldRetune(now) && running) {
+                    logger.info("Recreating the consumer with fetch settings {}, it rejoins the group",
+                               tuner.fetchProperties());
+                    consumer.commitSync();
+                    consumer.close();
+                    consumer = factory.apply(tuner.fetchProperties());
+                    consumer.subscribe(Arrays.asList(topic));
+                }
+            }
+            
+        } catch (WakeupException e) {
+            logger.info("Consumer wakeup requested");
+        } catch (Exception e) {
+            logger.error("Error in fetch-tuning consumer", e);
+        } finally {
+            try {
+                consumer.commitSync();
+            } catch (Exception e) {
+                logger.error("Error committing final offsets", e);
+            }
         }
     }
     
     /**
      * Demonstrate error handling
+     * 
+     * A record that fails is logged and skipped, or with a {@link RetryRouter} set, sent
+     * to its first retry topic so the partition keeps moving while a {@link RetryScheduler}
+     * retries it. The routed records are flushed before the next poll, whose auto-commit
+     * covers the failed records' offsets. If a routed record could not be sent, its
+     * partition is rewound to it, so the auto-commit stops before it and it is processed
+     * (and routed) again.
      */
     public void consumeWithErrorHandling() {
         try {
-            consumer.subscribe(Arrays.asList(TOPIC_NAME));
+            consumer.subscribe(Arrays.asList(topic));
             
             while (running) {
                 try {
                     ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                    Map<TopicPartition, Long> firstRouted = new HashMap<>();
                     
                     for (ConsumerRecord<String, String> record : records) {
                         try {
                             processRecord(record);
                         } catch (Exception e) {
-                            logger.error("Error processing record: partition={}, offset={}", 
-                                       record.partition(), record.offset(), e);
+                            recordLogger.onError(record, e);
+                            if (retryRouter != null) {
+                                retryRouter.route(record, e);
+                                firstRouted.putIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                                                        record.offset());
+                            }
                             // Continue processing other records
                         }
                     }
+                    if (retryRouter != null) {
+                        try {
+                            retryRouter.flush();
+                        } catch (KafkaException e) {
+                            logger.error("Could not route failed records, consuming them again from {}",
+                                         firstRouted, e);
+                            firstRouted.forEach(consumer::seek);
+                        }
+                    }
                     
                 } catch (org.apache.kafka.common.errors.WakeupException e) {
                     logger.info("Consumer wakeup requested");
@@ -298,7 +1072,9 @@ public class BasicConsumer {
     public void stop() {
         logger.info("Stopping consumer...");
         running = false;
-        consumer.wakeup();
+        if (consumer != null) {
+            consumer.wakeup();
+        }
     }
     
     /**
@@ -306,15 +1082,104 @@ public class BasicConsumer {
      */
     public void close() {
         logger.info("Closing consumer...");
-        consumer.close();
+        recordLogger.flush();
+        metrics.close();
+        if (consumer != null) {
+            consumer.close();
+        }
         logger.info("Consumer closed successfully");
     }
     
+    /**
+     * Run the error-handling mode with retry topics: values containing "poison" fail,
+     * everything else succeeds, and failures are retried by a scheduler thread
+     */
+    private static void consumeWithRetryTopics(BasicConsumer consumer) throws InterruptedException {
+        RecordProcessor processor = record -> {
+            if (record.value() != null && record.value().contains("poison")) {
+                throw new IllegalArgumentException("Cannot process poison record " + record.key());
+            }
+        };
+        BasicProducer producer = new BasicProducer();
+        RetryRouter router = new RetryRouter(producer, consumer.topic, RETRY_DELAYS_MS);
+        RetryScheduler scheduler = new RetryScheduler(createRetryConsumer(), router, processor);
+        Thread schedulerThread = new Thread(scheduler, "retry-scheduler");
+        consumer.setRecordProcessor(processor);
+        consumer.setRetryRouter(router);
+        schedulerThread.start();
+        try {
+            consumer.consumeWithErrorHandling();
+        } finally {
+            scheduler.stop();
+            schedulerThread.join();
+            producer.close();
+            logger.info("Retried {} records ({} succeeded on retry), dead-lettered {}",
+                       router.retried(), scheduler.succeeded(), router.deadLettered());
+        }
+    }
+    
+    /**
+     * Count records and sum value lengths per key in event-time windows, sending each
+     * closed window's results to the aggregates topic (at least once)
+     */
+    private static void aggregateWindows(BasicConsumer consumer, long sizeMs, long advanceMs) {
+        BasicProducer producer = new BasicProducer();
+        WindowedAggregator aggregator = new WindowedAggregator(sizeMs, advanceMs > 0 ? advanceMs : sizeMs,
+            WINDOW_ALLOWED_LATENESS_MS, value -> value == null ? 0 : value.length(),
+            WindowedAggregator.toTopic(producer, AGGREGATES_TOPIC_NAME));
+        try {
+            consumer.consumeWithWindows(aggregator, producer);
+        } finally {
+            producer.close();
+            logger.info("Emitted {} window results ({} late records dropped)",
+                       aggregator.emittedResults(), aggregator.lateRecords());
+        }
+    }
+    
+    private static int workerCount(String[] args) {
+        return args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    }
+    
     /**
      * Main method to demonstrate the consumer
      */
     public static void main(String[] args) {
-        BasicConsumer consumer = new BasicConsumer();
+        // Choose which demo to run based on command line argument
+        String demo = args.length > 0 ? args[0] : "basic";
+        
+        // The json, binary and bytes modes create their own typed client instead of a String one
+        boolean typedClient = "json".equals(demo) || "binary".equals(demo) || "bytes".equals(demo);
+        // The manual-commit, parallel and aggregate modes commit processed offsets themselves
+        boolean manualCommit = "manual-commit".equals(demo) || "parallel".equals(demo) || "key-ordered".equals(demo)
+            || "rebalancing".equals(demo) || "checkpoint".equals(demo) || "aggregate".equals(demo);
+        // The rebalancing mode uses cooperative rebalancing unless "rebalancing eager" is given
+        boolean cooperative = "rebalancing".equals(demo) && !(args.length > 1 && "eager".equals(args[1]));
+        // The adaptive-fetch mode starts with fetch.min.bytes=1 and the given latency bound (default 100ms)
+        FetchTuner fetchTuner = new FetchTuner(args.length > 1 && "adaptive-fetch".equals(demo)
+            ? Integer.parseInt(args[1]) : FETCH_WAIT_BOUND_MS, FETCH_MIN_BYTES_CAP, FETCH_RETUNE_INTERVAL_MS);
+        BasicConsumer consumer;
+        if (typedClient) {
+            consumer = new BasicConsumer(null, TOPIC_NAME, DEFAULT_PROCESSING_TIME_MS);
+        } else if (cooperative) {
+            consumer = new BasicConsumer(createCooperativeConsumer());
+        } else if ("adaptive-fetch".equals(demo)) {
+            consumer = new BasicConsumer(createFetchTunedConsumer(fetchTuner.fetchProperties()));
+        } else if (manualCommit) {
+            consumer = new BasicConsumer(createConsumer(false));
+        } else {
+            consumer = new BasicConsumer();
+        }
+        
+        // Optionally drop redelivered records, e.g. -Ddedup.max-bytes=16777216 for 16MB of fingerprints
+        String dedupMaxBytes = System.getProperty(DEDUP_MAX_BYTES_PROPERTY);
+        if (dedupMaxBytes != null) {
+            consumer.setDeduplicationCache(new DeduplicationCache(Long.parseLong(dedupMaxBytes),
+                Long.getLong(DEDUP_WINDOW_MS_PROPERTY, DEFAULT_DEDUP_WINDOW_MS)));
+        }
+        
+        // Log a metrics summary and publish the metrics over JMX
+        consumer.getMetrics().startReporting(METRICS_REPORT_INTERVAL_MS,
+            new LoggingMetricsReporter(), new JmxMetricsReporter());
         
         // Add shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -325,9 +1190,6 @@ public class BasicConsumer {
         try {
             logger.info("=== Starting Basic Consumer Demo ===");
             
-            // Choose which demo to run based on command line argument
-            String demo = args.length > 0 ? args[0] : "basic";
-            
             switch (demo) {
                 case "manual-commit":
                     consumer.consumeMessagesWithManualCommit();
@@ -342,7 +1204,36 @@ public class BasicConsumer {
                     consumer.handleRebalancing();
                     break;
                 case "error-handling":
-                    consumer.consumeWithErrorHandling();
+                    consumeWithRetryTopics(consumer);
+                    break;
+                case "parallel":
+                    consumer.consumeMessagesInParallel(workerCount(args));
+                    break;
+                case "key-ordered":
+                    consumer.consumeMessagesByKey(workerCount(args));
+                    break;
+                case "json":
+                    consumer.consumeJsonEvents();
+                    break;
+                case "binary":
+                    consumer.consumeBinaryEvents();
+                    break;
+                case "bytes":
+                    consumer.consumePayloads();
+                    break;
+                case "adaptive-fetch":
+                    consumer.consumeWithFetchTuning(fetchTuner, BasicConsumer::createFetchTunedConsumer);
+                    break;
+                case "aggregate":
+                    // Optional: window size and advance in ms (advance defaults to the size, i.e. tumbling)
+                    aggregateWindows(consumer, args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_WINDOW_SIZE_MS,
+                        args.length > 2 ? Long.parseLong(args[2]) : -1);
+                    break;
+                case "checkpoint":
+                    // Optional second argument: checkpoint file
+                    consumer.consumeWithCheckpoints(new CheckpointStore(
+                        Paths.get(args.length > 1 ? args[1] : "target/java-basics.checkpoint"),
+                        CHECKPOINT_CAPACITY, CHECKPOINT_SYNC_RECORDS, CHECKPOINT_SYNC_INTERVAL_MS));
                     break;
                 default:
                     consumer.consumeMessages();
@@ -1,13 +1,27 @@
 package com.kafka.course.lab1;
 
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
 import org.apache.kafka.clients.producer.*;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Basic Kafka Producer Example
@@ -23,40 +37,147 @@ public class BasicProducer {
     
     private static final Logger logger = LoggerFactory.getLogger(BasicProducer.class);
     private static final String TOPIC_NAME = "java-basics-topic";
+    static final String EVENTS_TOPIC_NAME = "java-basics-events"; // JSON events, kept apart from the plain text messages
+    static final String BINARY_EVENTS_TOPIC_NAME = "java-basics-events-binary"; // Same events in the compact binary format
+    static final String PAYLOADS_TOPIC_NAME = "java-basics-payloads"; // Binary pass-through payloads (see PayloadView)
+    private static final int PAYLOAD_BUFFER_SIZE = 4096; // Pooled buffer per payload being built
     private static final String BOOTSTRAP_SERVERS = "localhost:9092";
+    private static final int DEFAULT_MAX_IN_FLIGHT_SENDS = 10000; // Unacknowledged sends allowed by sendBulk
+    private static final long METRICS_REPORT_INTERVAL_MS = 10000;
+    private static final long BATCHING_EVALUATE_INTERVAL_MS = 5000; // How often the adaptive profile checks the load
+    static final String MESSAGE_ID_HEADER = "message-id"; // Unique per message, lets consumers drop duplicates
     
     private final Producer<String, String> producer;
+    private final String topic;
+    private final ClientMetrics metrics = new ClientMetrics("producer");
+    private RecordLogger recordLogger = RecordLogger.fromSystemProperties("Sent");
+    private final String messageIdPrefix = UUID.randomUUID() + "-";
+    private final AtomicLong messageSequence = new AtomicLong();
     
     public BasicProducer() {
-        this.producer = createProducer();
+        this(ProducerProfile.DURABLE.toProperties());
+    }
+    
+    /**
+     * Create a producer with the given tuning settings (see {@link ProducerProfile})
+     */
+    public BasicProducer(Properties tuning) {
+        this(createProducer(tuning), TOPIC_NAME);
+    }
+    
+    /**
+     * Create a producer from layered settings: the durable profile overridden by the
+     * config's producer settings, sending to the config's topic
+     */
+    public BasicProducer(ClientConfig config) {
+        this(createProducer(withOverrides(ProducerProfile.DURABLE.toProperties(), config.producerProperties())),
+            config.getTopic());
+    }
+    
+    /**
+     * Create a producer around an existing client (e.g. a MockProducer)
+     */
+    public BasicProducer(Producer<String, String> producer) {
+        this(producer, TOPIC_NAME);
+    }
+    
+    /**
+     * Create a producer around an existing client that sends to the given topic
+     */
+    public BasicProducer(Producer<String, String> producer, String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+    
+    private static Properties withOverrides(Properties props, Properties overrides) {
+        props.putAll(overrides);
+        return props;
+    }
+    
+    /**
+     * Send latency and throughput metrics of this producer; start reporting with
+     * {@link ClientMetrics#startReporting}
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Choose how acknowledged sends are logged; by default per-partition summaries and a
+     * 1% sample of the records are written instead of one INFO line per send
+     */
+    public void setRecordLogger(RecordLogger recordLogger) {
+        this.recordLogger = recordLogger;
     }
     
     /**
      * Create and configure a Kafka producer
      */
-    private Producer<String, String> createProducer() {
+    static Producer<String, String> createProducer(Properties tuning) {
+        return new KafkaProducer<>(producerConfig(tuning, StringSerializer.class));
+    }
+    
+    /**
+     * Create a producer that sends {@link UserEvent} values as JSON
+     */
+    static Producer<String, UserEvent> createJsonProducer(Properties tuning) {
+        return new KafkaProducer<>(producerConfig(tuning, JsonSerializer.class));
+    }
+    
+    /**
+     * Create a producer that sends {@link UserEvent} values in the compact binary format
+     */
+    static Producer<String, UserEvent> createBinaryProducer(Properties tuning) {
+        return new KafkaProducer<>(producerConfig(tuning, BinaryEventSerializer.class));
+    }
+    
+    /**
+     * Create a producer for binary pass-through payloads: byte[] keys and ByteBuffer values
+     * are sent as they are, without the String encoding of the other producers
+     */
+    static Producer<byte[], ByteBuffer> createPayloadProducer(Properties tuning) {
+        Properties props = producerConfig(tuning, ByteBufferSerializer.class);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        return new KafkaProducer<>(props);
+    }
+    
+    /**
+     * Create a transactional producer (used by {@link TransformPipeline})
+     * 
+     * Transactions require idempotence and acks=all, so these override the tuning
+     * settings. Every running instance needs its own, stable transactional id.
+     */
+    static Producer<String, String> createTransactionalProducer(Properties tuning, String transactionalId) {
+        Properties props = producerConfig(tuning, StringSerializer.class);
+        props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new KafkaProducer<>(props);
+    }
+    
+    private static Properties producerConfig(Properties tuning, Class<?> valueSerializer) {
         Properties props = new Properties();
         
         // Required configurations
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        
-        // Performance configurations
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384); // 16KB batch size
-        props.put(ProducerConfig.LINGER_MS_CONFIG, 1); // Wait up to 1ms for more records
-        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432); // 32MB buffer
-        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy"); // Enable compression
-        
-        // Reliability configurations
-        props.put(ProducerConfig.ACKS_CONFIG, "all"); // Wait for all replicas
-        props.put(ProducerConfig.RETRIES_CONFIG, 3); // Retry failed sends
-        props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 100); // Backoff between retries
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer.getName());
         
-        // Idempotence (exactly-once semantics)
-        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Performance and reliability configurations (batching, compression, acks, retries, idempotence)
+        props.putAll(tuning);
         
-        return new KafkaProducer<>(props);
+        return props;
+    }
+    
+    /**
+     * Create a record for this producer's topic with a unique message id header, so a consumer
+     * with a {@link DeduplicationCache} can recognise it when it is delivered twice
+     */
+    private ProducerRecord<String, String> newRecord(String key, String value) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, value);
+        record.headers().add(MESSAGE_ID_HEADER,
+            (messageIdPrefix + messageSequence.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+        return record;
     }
     
     /**
@@ -64,15 +185,16 @@ public class BasicProducer {
      */
     public void sendMessageSync(String key, String value) {
         try {
-            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, key, value);
+            ProducerRecord<String, String> record = newRecord(key, value);
             
-            logger.info("Sending message synchronously: key={}, value={}", key, value);
+            logger.debug("Sending message synchronously: key={}, value={}", key, value);
             
+            long sendNanos = System.nanoTime();
             Future<RecordMetadata> future = producer.send(record);
             RecordMetadata metadata = future.get(); // This blocks until the record is sent
+            metrics.recordSend(System.nanoTime() - sendNanos, serializedSize(metadata));
             
-            logger.info("Message sent successfully to topic={}, partition={}, offset={}", 
-                       metadata.topic(), metadata.partition(), metadata.offset());
+            recordLogger.onRecord(metadata.topic(), metadata.partition(), metadata.offset(), key, value);
             
         } catch (InterruptedException | ExecutionException e) {
             logger.error("Error sending message synchronously", e);
@@ -84,16 +206,17 @@ public class BasicProducer {
      * Send a message asynchronously (non-blocking)
      */
     public void sendMessageAsync(String key, String value) {
-        ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, key, value);
+        ProducerRecord<String, String> record = newRecord(key, value);
         
-        logger.info("Sending message asynchronously: key={}, value={}", key, value);
+        logger.debug("Sending message asynchronously: key={}, value={}", key, value);
         
+        long sendNanos = System.nanoTime();
         producer.send(record, new Callback() {
             @Override
             public void onCompletion(RecordMetadata metadata, Exception exception) {
+                metrics.recordSend(System.nanoTime() - sendNanos, serializedSize(metadata));
                 if (exception == null) {
-                    logger.info("Message sent successfully to topic={}, partition={}, offset={}", 
-                               metadata.topic(), metadata.partition(), metadata.offset());
+                    recordLogger.onRecord(metadata.topic(), metadata.partition(), metadata.offset(), key, value);
                 } else {
                     logger.error("Error sending message asynchronously", exception);
                 }
@@ -101,6 +224,20 @@ public class BasicProducer {
         });
     }
     
+    /**
+     * Send a record and hand the outcome to the given callback, without logging it
+     * 
+     * Used by load generators that measure latency themselves; the send is still
+     * counted in this producer's metrics.
+     */
+    public void send(ProducerRecord<String, String> record, Callback callback) {
+        long sendNanos = System.nanoTime();
+        producer.send(record, (metadata, exception) -> {
+            metrics.recordSend(System.nanoTime() - sendNanos, serializedSize(metadata));
+            callback.onCompletion(metadata, exception);
+        });
+    }
+    
     /**
      * Send multiple messages in a batch
      */
@@ -119,12 +256,11 @@ public class BasicProducer {
             String key = "batch-key-" + i;
             String value = messages[i];
             
-            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, key, value);
+            ProducerRecord<String, String> record = newRecord(key, value);
             
             producer.send(record, (metadata, exception) -> {
                 if (exception == null) {
-                    logger.debug("Batch message sent: key={}, partition={}, offset={}", 
-                                key, metadata.partition(), metadata.offset());
+                    recordLogger.onRecord(metadata.topic(), metadata.partition(), metadata.offset(), key, value);
                 } else {
                     logger.error("Error sending batch message: key={}", key, exception);
                 }
@@ -153,14 +289,14 @@ public class BasicProducer {
         logger.info("Sending messages with different keys to demonstrate partitioning");
         
         for (int i = 0; i < keys.length; i++) {
-            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, keys[i], values[i]);
+            String key = keys[i];
+            ProducerRecord<String, String> record = newRecord(key, values[i]);
             
             producer.send(record, (metadata, exception) -> {
                 if (exception == null) {
-                    logger.info("Message sent: key={}, partition={}, offset={}", 
-                               keys[i], metadata.partition(), metadata.offset());
+                    recordLogger.onRecord(metadata.topic(), metadata.partition(), metadata.offset(), key, record.value());
                 } else {
-                    logger.error("Error sending message: key={}", keys[i], exception);
+                    logger.error("Error sending message: key={}", key, exception);
                 }
             });
         }
@@ -168,20 +304,197 @@ public class BasicProducer {
         producer.flush();
     }
     
+    /**
+     * Send a stream of records with a bounded number of unacknowledged sends
+     */
+    public CompletableFuture<BulkSendResult> sendBulk(Stream<ProducerRecord<String, String>> records, int maxInFlight) {
+        return sendBulk((Iterable<ProducerRecord<String, String>>) records::iterator, maxInFlight);
+    }
+    
+    /**
+     * Send any number of records without waiting for each acknowledgement
+     * 
+     * At most maxInFlight sends are unacknowledged at any time; the calling thread blocks
+     * when that limit is reached, so the producer's buffer.memory cannot be exhausted by
+     * a large input. The returned future completes once every record has been acknowledged
+     * or failed, with success/failure counts and send-to-ack latency percentiles.
+     */
+    public CompletableFuture<BulkSendResult> sendBulk(Iterable<ProducerRecord<String, String>> records, int maxInFlight) {
+        BulkSendTracker tracker = new BulkSendTracker(maxInFlight, metrics);
+        
+        for (ProducerRecord<String, String> record : records) {
+            try {
+                tracker.beforeSend();
+            } catch (InterruptedException e) {
+                logger.warn("Bulk send interrupted, waiting for records already sent");
+                Thread.currentThread().interrupt();
+                break;
+            }
+            
+            long sendNanos = System.nanoTime();
+            try {
+                producer.send(record, (metadata, exception) -> tracker.onCompletion(sendNanos, metadata, exception));
+            } catch (Exception e) {
+                // send() itself can fail, e.g. on serialization errors or when metadata is unavailable
+                tracker.onCompletion(sendNanos, null, e);
+            }
+        }
+        
+        tracker.allSubmitted();
+        return tracker.completion;
+    }
+    
+    /**
+     * Bookkeeping for one sendBulk() call: in-flight permits, outcome counters and latencies
+     */
+    private static class BulkSendTracker {
+        
+        private final CompletableFuture<BulkSendResult> completion = new CompletableFuture<>();
+        private final Semaphore inFlight;
+        private final Histogram latencyMicros = new ConcurrentHistogram(3);
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicReference<Exception> firstError = new AtomicReference<>();
+        // One extra count for the submitting thread, so completion waits until all records are handed out
+        private final AtomicLong outstanding = new AtomicLong(1);
+        private final long startNanos = System.nanoTime();
+        private final ClientMetrics metrics;
+        
+        BulkSendTracker(int maxInFlight, ClientMetrics metrics) {
+            this.inFlight = new Semaphore(maxInFlight);
+            this.metrics = metrics;
+        }
+        
+        void beforeSend() throws InterruptedException {
+            inFlight.acquire();
+            outstanding.incrementAndGet();
+        }
+        
+        void onCompletion(long sendNanos, RecordMetadata metadata, Exception exception) {
+            long latencyNanos = System.nanoTime() - sendNanos;
+            latencyMicros.recordValue(latencyNanos / 1000);
+            metrics.recordSend(latencyNanos, serializedSize(metadata));
+            if (exception == null) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, exception);
+            }
+            inFlight.release();
+            finishOne();
+        }
+        
+        void allSubmitted() {
+            finishOne();
+        }
+        
+        private void finishOne() {
+            if (outstanding.decrementAndGet() == 0) {
+                completion.complete(new BulkSendResult(succeeded.get(), failed.get(),
+                        System.nanoTime() - startNanos, latencyMicros, firstError.get()));
+            }
+        }
+    }
+    
+    private static int serializedSize(RecordMetadata metadata) {
+        // No metadata for sends that failed before reaching the producer; sizes are -1 for null keys and values
+        return metadata == null ? 0 : Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize());
+    }
+    
+    /**
+     * Send a large number of generated records with the bulk API
+     */
+    public void sendBulkMessages(int count) {
+        logger.info("Sending {} messages in bulk (max {} in flight)", count, DEFAULT_MAX_IN_FLIGHT_SENDS);
+        
+        Stream<ProducerRecord<String, String>> records = IntStream.range(0, count)
+            .mapToObj(i -> newRecord("bulk-key-" + (i % 100), "Bulk message " + i));
+        
+        try {
+            BulkSendResult result = sendBulk(records, DEFAULT_MAX_IN_FLIGHT_SENDS).get();
+            logger.info("Bulk sending completed: {}", result);
+            if (result.getFirstError() != null) {
+                logger.error("First bulk send error", result.getFirstError());
+            }
+        } catch (InterruptedException e) {
+            logger.error("Bulk send interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Bulk send failed", e);
+        }
+    }
+    
+    /**
+     * Send typed events; the producer's value serializer (JSON or binary) writes each
+     * event straight to bytes
+     */
+    public static void sendEvents(Producer<String, UserEvent> eventProducer, String topic, int count) {
+        logger.info("Sending {} events to {}", count, topic);
+        
+        for (int i = 0; i < count; i++) {
+            String userId = "user" + (i % 10);
+            UserEvent event = new UserEvent(userId, "purchase", System.currentTimeMillis(), i % 5 + 1, 9.99 * (i % 5 + 1),
+                    "Event " + i);
+            eventProducer.send(new ProducerRecord<>(topic, userId, event), (metadata, exception) -> {
+                if (exception != null) {
+                    logger.error("Error sending event for {}", userId, exception);
+                }
+            });
+        }
+        eventProducer.flush();
+        logger.info("Events sent to {}", topic);
+    }
+    
+    /**
+     * Send binary payloads built in pooled buffers (see {@link PayloadView} for the layout)
+     * 
+     * Keys and the payload parts are encoded once up front. Every payload is written into a
+     * buffer from the pool, which goes back to the pool when the record is acknowledged (see
+     * {@link BufferPool}), so the pool holds about as many buffers as records are in flight.
+     */
+    public static void sendPayloads(Producer<byte[], ByteBuffer> payloadProducer, String topic, int count,
+                                    BufferPool pool) {
+        logger.info("Sending {} payloads to {}", count, topic);
+        byte[][] keys = new byte[10][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ("user" + i).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] tag = "purchase".getBytes(StandardCharsets.UTF_8);
+        byte[] body = "Payload body".getBytes(StandardCharsets.UTF_8);
+        
+        for (int i = 0; i < count; i++) {
+            ByteBuffer buffer = pool.acquire();
+            try {
+                PayloadView.write(buffer, System.currentTimeMillis(), i, tag, body);
+                payloadProducer.send(new ProducerRecord<>(topic, keys[i % keys.length], buffer),
+                    (metadata, exception) -> {
+                        pool.release(buffer);
+                        if (exception != null) {
+                            logger.error("Error sending payload", exception);
+                        }
+                    });
+            } catch (RuntimeException e) {
+                pool.release(buffer); // Not sent, so the callback is not called
+                throw e;
+            }
+        }
+        payloadProducer.flush();
+        logger.info("Payloads sent to {} ({} buffers allocated)", topic, pool.allocated());
+    }
+    
     /**
      * Demonstrate error handling and retries
      */
     public void sendMessageWithErrorHandling(String key, String value) {
-        ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, key, value);
+        ProducerRecord<String, String> record = newRecord(key, value);
         
-        logger.info("Sending message with error handling: key={}, value={}", key, value);
+        logger.debug("Sending message with error handling: key={}, value={}", key, value);
         
         producer.send(record, new Callback() {
             @Override
             public void onCompletion(RecordMetadata metadata, Exception exception) {
                 if (exception == null) {
-                    logger.info("Message sent successfully: topic={}, partition={}, offset={}", 
-                               metadata.topic(), metadata.partition(), metadata.offset());
+                    recordLogger.onRecord(metadata.topic(), metadata.partition(), metadata.offset(), key, value);
                 } else {
                     if (exception instanceof org.apache.kafka.common.errors.RecordTooLargeException) {
                         logger.error("Message too large: {}", exception.getMessage());
@@ -195,26 +508,48 @@ public class BasicProducer {
         });
     }
     
+    /**
+     * Block until every record sent so far has been acknowledged (or has failed)
+     */
+    public void flush() {
+        producer.flush();
+    }
+    
     /**
      * Close the producer and release resources
      */
     public void close() {
         logger.info("Closing producer...");
         producer.close();
+        recordLogger.flush();
+        metrics.close();
         logger.info("Producer closed successfully");
     }
     
     /**
      * Main method to demonstrate the producer
      */
-    public static void main(String[] args) {
-        BasicProducer producer = new BasicProducer();
+    public static void main(String[] args) throws IOException {
+        // Choose a tuning profile (durable, throughput, low-latency), a properties file, or "adaptive"
+        // for durable settings whose batch.size and linger.ms follow the load
+        String profile = args.length > 0 ? args[0] : "durable";
+        boolean adaptive = "adaptive".equals(profile);
+        Properties tuning = adaptive ? ProducerProfile.DURABLE.toProperties() : ProducerProfile.resolve(profile);
+        BasicProducer producer = adaptive
+            ? new BasicProducer(new AdaptiveBatchingProducer(tuning, BasicProducer::createProducer,
+                BATCHING_EVALUATE_INTERVAL_MS))
+            : new BasicProducer(tuning);
+        Producer<String, UserEvent> jsonProducer = createJsonProducer(tuning);
+        Producer<String, UserEvent> binaryProducer = createBinaryProducer(tuning);
+        Producer<byte[], ByteBuffer> payloadProducer = createPayloadProducer(tuning);
+        producer.getMetrics().startReporting(METRICS_REPORT_INTERVAL_MS,
+            new LoggingMetricsReporter(), new JmxMetricsReporter());
         
         try {
             // Wait a moment for the producer to initialize
             Thread.sleep(1000);
             
-            logger.info("=== Starting Basic Producer Demo ===");
+            logger.info("=== Starting Basic Producer Demo ({} profile) ===", profile);
             
             // Send a simple message synchronously
             producer.sendMessageSync("sync-key", "Hello Kafka from Java!");
@@ -231,6 +566,16 @@ public class BasicProducer {
             // Send a message with error handling
             producer.sendMessageWithErrorHandling("error-test-key", "Testing error handling");
             
+            // Send many messages without waiting for each acknowledgement
+            producer.sendBulkMessages(10000);
+            
+            // Send typed events as JSON and in the compact binary format
+            sendEvents(jsonProducer, EVENTS_TOPIC_NAME, 100);
+            sendEvents(binaryProducer, BINARY_EVENTS_TOPIC_NAME, 100);
+            
+            // Send binary payloads built in pooled buffers, without String encoding
+            sendPayloads(payloadProducer, PAYLOADS_TOPIC_NAME, 100, new BufferPool(PAYLOAD_BUFFER_SIZE, 16));
+            
             // Wait for all async operations to complete
             Thread.sleep(2000);
             
@@ -241,6 +586,9 @@ public class BasicProducer {
             Thread.currentThread().interrupt();
         } finally {
             producer.close();
+            jsonProducer.close();
+            binaryProducer.close();
+            payloadProducer.close();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary Event Deserializer
+ * 
+ * Reads {@link UserEvent} values written by {@link BinaryEventSerializer}. Records
+ * with a different schema fingerprint, and truncated or malformed records, are rejected
+ * with a SerializationException.
+ * 
+ * Only the fields named in {@link #FIELDS_CONFIG} (e.g. "user_id,amount") are decoded;
+ * all others are skipped on the wire. Without the setting every field is decoded.
+ */
+public class BinaryEventDeserializer implements Deserializer<UserEvent> {
+    
+    public static final String FIELDS_CONFIG = "binary.fields";
+    
+    private Set<UserEventCodec.Field> fields = EnumSet.allOf(UserEventCodec.Field.class);
+    
+    public BinaryEventDeserializer() {
+    }
+    
+    /**
+     * Create a deserializer that only decodes the given fields
+     */
+    public BinaryEventDeserializer(Collection<UserEventCodec.Field> fields) {
+        this.fields = EnumSet.copyOf(fields);
+    }
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FIELDS_CONFIG);
+        if (configured == null) {
+            return;
+        }
+        Set<UserEventCodec.Field> selected = EnumSet.noneOf(UserEventCodec.Field.class);
+        for (String name : configured.toString().split(",")) {
+            if (!name.trim().isEmpty()) {
+                selected.add(UserEventCodec.Field.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        this.fields = selected;
+    }
+    
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : UserEventCodec.decode(data, fields);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Binary Event Serializer
+ * 
+ * Writes {@link UserEvent} values in the compact format of {@link UserEventCodec}.
+ */
+public class BinaryEventSerializer implements Serializer<UserEvent> {
+    
+    @Override
+    public byte[] serialize(String topic, UserEvent data) {
+        return data == null ? null : UserEventCodec.encode(data);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.kafka.course.lab1;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffer Pool
+ * 
+ * Reusable heap buffers for building record payloads, so a sender does not allocate a
+ * buffer per record:
+ * - acquire() hands out a cleared buffer and only allocates when the pool is empty
+ * - release() takes it back; up to maxPooled buffers are kept, the rest is left to the GC
+ * - Every thread keeps the last buffer it released for its next acquire(), so a sender
+ *   that builds one payload at a time never touches the shared free list
+ * 
+ * Release a payload buffer in the send callback, not when send() returns: whether send()
+ * copies the value depends on the client. ByteBufferSerializer returns the backing array
+ * itself when the payload fills the buffer, interceptors may keep the record, and a
+ * MockProducer keeps the buffer in its history. Buffers released on the producer's I/O
+ * thread go to the shared free list once that thread's slot is taken. Thread-safe; the
+ * free list is an array-backed queue, so returning a buffer does not allocate either.
+ */
+public class BufferPool {
+    
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final ThreadLocal<ByteBuffer[]> local = ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+    private final LongAdder allocated = new LongAdder();
+    
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+    
+    /**
+     * A cleared buffer of bufferSize bytes, from the pool if one is free
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer[] slot = local.get();
+        ByteBuffer buffer = slot[0];
+        if (buffer != null) {
+            slot[0] = null;
+        } else {
+            buffer = free.poll();
+        }
+        if (buffer == null) {
+            allocated.increment();
+            return ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+    
+    /**
+     * Return a buffer; it must not be used by the caller afterwards
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isReadOnly()) {
+            return;
+        }
+        ByteBuffer[] slot = local.get();
+        if (slot[0] == null) {
+            slot[0] = buffer;
+        } else {
+            free.offer(buffer);
+        }
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    /**
+     * Number of buffers allocated so far, i.e. how often the pool was empty
+     */
+    public long allocated() {
+        return allocated.sum();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Bulk Send Result
+ * 
+ * Aggregated outcome of {@link BasicProducer#sendBulk}: how many records were
+ * acknowledged or failed, how long the whole run took and the distribution of
+ * send-to-ack latencies (in microseconds).
+ */
+public class BulkSendResult {
+    
+    private final long succeeded;
+    private final long failed;
+    private final long elapsedNanos;
+    private final Histogram latencyMicros;
+    private final Exception firstError;
+    
+    BulkSendResult(long succeeded, long failed, long elapsedNanos, Histogram latencyMicros, Exception firstError) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyMicros = latencyMicros;
+        this.firstError = firstError;
+    }
+    
+    public long getSucceeded() {
+        return succeeded;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * First exception reported by a failed send, or null if all sends succeeded
+     */
+    public Exception getFirstError() {
+        return firstError;
+    }
+    
+    /**
+     * Send-to-ack latency at the given percentile (0-100) in microseconds
+     */
+    public long getLatencyMicros(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile);
+    }
+    
+    public Histogram getLatencyHistogram() {
+        return latencyMicros;
+    }
+    
+    public double getRecordsPerSecond() {
+        return elapsedNanos > 0 ? (succeeded + failed) * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("succeeded=%d, failed=%d, elapsed=%d ms, throughput=%.0f records/s, "
+                + "latency p50=%d us, p99=%d us, p99.9=%d us, max=%d us",
+                succeeded, failed, elapsedNanos / 1_000_000, getRecordsPerSecond(),
+                getLatencyMicros(50), getLatencyMicros(99), getLatencyMicros(99.9), latencyMicros.getMaxValue());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,278 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Local Offset Checkpoint Store
+ * 
+ * Keeps the next offset of every partition together with an opaque processing result in
+ * an append-only, memory-mapped file, so offsets and results are stored in one atomic
+ * write without any broker commit on the hot path.
+ * 
+ * File format: a sequence of entries, each [int length][int crc32][payload], where the
+ * payload is [short topic length][topic UTF-8][int partition][long next offset][result].
+ * The rest of the file is zero-filled; a zero length marks the end.
+ * - Crash safety: on open the entries are scanned and reading stops at the first entry
+ *   that is incomplete or fails its checksum (a torn write); later appends overwrite it
+ * - fsync batching: the mapped pages are forced to disk every syncEveryRecords appends
+ *   or syncIntervalMs, whichever comes first, and on {@link #sync()} and {@link #close()}.
+ *   A process crash loses nothing (the pages live in the OS page cache); an OS crash
+ *   loses at most the appends since the last sync
+ * - When the file is full it is compacted: the latest entry of every partition is
+ *   written to a new file, which atomically replaces the old one. The directory is
+ *   synced after the rename where the platform allows it; where it does not (Windows),
+ *   an OS crash right after a compaction can bring back the old file, which still holds
+ *   every checkpoint up to the last sync before the compaction
+ * - An entry holds at most 64 KB; larger results are rejected
+ * 
+ * Not thread-safe: use it from the poll thread only.
+ */
+public class CheckpointStore implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointStore.class);
+    private static final int ENTRY_HEADER_SIZE = 2 * Integer.BYTES; // Length and checksum
+    private static final int MAX_ENTRY_SIZE = 64 * 1024;
+    private static final int FIXED_PAYLOAD_SIZE = Short.BYTES + Integer.BYTES + Long.BYTES; // Besides topic and result
+    
+    /**
+     * The latest checkpoint of one partition
+     */
+    public static class Checkpoint {
+        
+        private final long nextOffset;
+        private final byte[] result;
+        
+        Checkpoint(long nextOffset, byte[] result) {
+            this.nextOffset = nextOffset;
+            this.result = result;
+        }
+        
+        /**
+         * Offset to resume consuming from
+         */
+        public long getNextOffset() {
+            return nextOffset;
+        }
+        
+        /**
+         * Processing result stored with the offset
+         */
+        public byte[] getResult() {
+            return result;
+        }
+    }
+    
+    private final Path path;
+    private final int capacity;
+    private final int syncEveryRecords;
+    private final long syncIntervalMs;
+    private final Map<TopicPartition, Checkpoint> latest = new HashMap<>();
+    private final Map<String, byte[]> topicBytes = new HashMap<>();
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_ENTRY_SIZE); // Reused for every append
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer mapped;
+    private int unsyncedRecords;
+    private long lastSyncMs = System.currentTimeMillis();
+    private long syncs;
+    
+    /**
+     * Open (or create) the checkpoint file and load the latest checkpoint of every partition
+     * 
+     * @param capacity file size in bytes; the file is compacted when it is full
+     */
+    public CheckpointStore(Path path, int capacity, int syncEveryRecords, long syncIntervalMs) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        this.syncEveryRecords = syncEveryRecords;
+        this.syncIntervalMs = syncIntervalMs;
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        this.mapped = map(path, capacity);
+        recover();
+    }
+    
+    private static MappedByteBuffer map(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed; new space is zero-filled
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+        }
+    }
+    
+    /**
+     * Read entries up to the end marker or the first damaged entry
+     */
+    private void recover() {
+        int entries = 0;
+        while (mapped.remaining() >= ENTRY_HEADER_SIZE) {
+            int start = mapped.position();
+            int length = mapped.getInt();
+            int checksum = mapped.getInt();
+            if (length <= 0 || length > MAX_ENTRY_SIZE || length > mapped.remaining()) {
+                mapped.position(start);
+                break;
+            }
+            byte[] entry = new byte[length];
+            mapped.get(entry);
+            crc.reset();
+            crc.update(entry, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Damaged checkpoint entry at {} in {}, ignoring it and everything after it", start, path);
+                // Clear the rest so leftovers of the damaged entry are never read as entries later
+                for (int i = start; i < mapped.capacity(); i++) {
+                    mapped.put(i, (byte) 0);
+                }
+                mapped.force();
+                mapped.position(start);
+                break;
+            }
+            readEntry(ByteBuffer.wrap(entry));
+            entries++;
+        }
+        logger.info("Loaded {} checkpoint entries for {} partitions from {}", entries, latest.size(), path);
+    }
+    
+    private void readEntry(ByteBuffer entry) {
+        byte[] topic = new byte[entry.getShort()];
+        entry.get(topic);
+        int partition = entry.getInt();
+        long nextOffset = entry.getLong();
+        byte[] result = new byte[entry.remaining()];
+        entry.get(result);
+        latest.put(new TopicPartition(new String(topic, StandardCharsets.UTF_8), partition),
+                   new Checkpoint(nextOffset, result));
+    }
+    
+    /**
+     * Store the next offset of a partition together with its processing result
+     * 
+     * @throws IllegalArgumentException if topic name and result together exceed the 64 KB entry size
+     */
+    public void append(TopicPartition partition, long nextOffset, byte[] result) {
+        byte[] topic = topicBytes.computeIfAbsent(partition.topic(), t -> t.getBytes(StandardCharsets.UTF_8));
+        if (FIXED_PAYLOAD_SIZE + topic.length + result.length > MAX_ENTRY_SIZE) {
+            throw new IllegalArgumentException("Checkpoint of " + partition + " is " + result.length
+                    + " bytes, at most " + (MAX_ENTRY_SIZE - FIXED_PAYLOAD_SIZE - topic.length) + " fit in an entry");
+        }
+        payload.clear();
+        payload.putShort((short) topic.length).put(topic).putInt(partition.partition()).putLong(nextOffset).put(result);
+        payload.flip();
+        int length = payload.remaining();
+        
+        if (mapped.remaining() < ENTRY_HEADER_SIZE + length) {
+            compact();
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        mapped.putInt(length).putInt((int) crc.getValue()).put(payload);
+        latest.put(partition, new Checkpoint(nextOffset, result));
+        
+        unsyncedRecords++;
+        if (unsyncedRecords >= syncEveryRecords || System.currentTimeMillis() - lastSyncMs >= syncIntervalMs) {
+            sync();
+        }
+    }
+    
+    /**
+     * Latest checkpoint of the partition, or null if it has none
+     */
+    public Checkpoint get(TopicPartition partition) {
+        return latest.get(partition);
+    }
+    
+    public Map<TopicPartition, Checkpoint> getAll() {
+        return Collections.unmodifiableMap(latest);
+    }
+    
+    /**
+     * Force all appends to disk
+     */
+    public void sync() {
+        if (unsyncedRecords > 0) {
+            mapped.force();
+            syncs++;
+        }
+        unsyncedRecords = 0;
+        lastSyncMs = System.currentTimeMillis();
+    }
+    
+    /**
+     * Number of times appends were forced to disk
+     */
+    public long syncs() {
+        return syncs;
+    }
+    
+    /**
+     * Rewrite the file with only the latest entry of every partition
+     */
+    private void compact() {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+            MappedByteBuffer target = map(compacted, capacity);
+            for (Map.Entry<TopicPartition, Checkpoint> entry : latest.entrySet()) {
+                byte[] topic = entry.getKey().topic().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer compactEntry = ByteBuffer.allocate(FIXED_PAYLOAD_SIZE + topic.length
+                        + entry.getValue().result.length);
+                compactEntry.putShort((short) topic.length).put(topic).putInt(entry.getKey().partition())
+                    .putLong(entry.getValue().nextOffset).put(entry.getValue().result);
+                crc.reset();
+                crc.update(compactEntry.array(), 0, compactEntry.capacity());
+                target.putInt(compactEntry.capacity()).putInt((int) crc.getValue()).put(compactEntry.array());
+            }
+            target.force();
+            Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            mapped = target;
+            unsyncedRecords = 0;
+            logger.debug("Compacted {} to {} entries", path, latest.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Compacting checkpoint file " + path + " failed", e);
+        }
+        if (mapped.remaining() < MAX_ENTRY_SIZE) {
+            throw new IllegalStateException("Checkpoint file " + path + " is too small for " + latest.size()
+                    + " partitions, increase its capacity");
+        }
+    }
+    
+    /**
+     * Make the rename of the compacted file durable: until the directory entry is on disk,
+     * an OS crash can bring back the old file
+     */
+    private void syncDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on every platform (e.g. Windows)
+            logger.debug("Cannot sync directory {} after compacting {}", directory, path, e);
+        }
+    }
+    
+    /**
+     * Sync outstanding appends; the file stays mapped until the buffer is garbage collected
+     */
+    @Override
+    public void close() {
+        sync();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Client Config
+ * 
+ * Layered settings for {@link BasicProducer} and {@link BasicConsumer}, so several
+ * differently tuned instances can run in one JVM. Later layers override earlier ones:
+ * - defaults: localhost:9092, the lab topic and group (tuning defaults stay in the
+ *   clients' own configuration, e.g. {@link ProducerProfile#DURABLE})
+ * - a properties file
+ * - environment variables: KAFKA_ followed by the setting in upper case with dots as
+ *   underscores, e.g. KAFKA_LINGER_MS=10 for linger.ms (only producer, consumer and lab
+ *   settings are taken, so KAFKA_HOME and the like are ignored)
+ * - arguments of the form key=value
+ * 
+ * Besides Kafka client settings the lab setting "topic" picks the topic. Each client only
+ * receives the settings it knows, so one config can hold both producer and consumer tuning.
+ * Instances are immutable; {@link #with} returns a modified copy for parameter sweeps.
+ */
+public class ClientConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClientConfig.class);
+    static final String TOPIC = "topic";
+    static final String ENV_PREFIX = "KAFKA_";
+    
+    private final Properties props;
+    
+    private ClientConfig(Properties props) {
+        this.props = props;
+    }
+    
+    /**
+     * The default layer only
+     */
+    public static ClientConfig defaults() {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, "java-basics-group");
+        props.setProperty(TOPIC, "java-basics-topic");
+        return new ClientConfig(props);
+    }
+    
+    /**
+     * Load all layers
+     * 
+     * @param file properties file, or null for none
+     * @param env environment variables, usually System.getenv()
+     * @param args key=value overrides
+     */
+    public static ClientConfig load(String file, Map<String, String> env, String... args) throws IOException {
+        Properties props = defaults().props;
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                props.load(in);
+            }
+        }
+        for (Map.Entry<String, String> entry : env.entrySet()) {
+            String key = fromEnvironmentName(entry.getKey());
+            if (key != null) {
+                props.setProperty(key, entry.getValue());
+            }
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            props.setProperty(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+        
+        for (String key : props.stringPropertyNames()) {
+            if (!isKnown(key)) {
+                logger.warn("Ignoring unknown setting {}", key);
+            }
+        }
+        return new ClientConfig(props);
+    }
+    
+    /**
+     * The setting for an environment variable name, or null if it is not a known setting
+     */
+    static String fromEnvironmentName(String name) {
+        if (!name.startsWith(ENV_PREFIX)) {
+            return null;
+        }
+        String key = name.substring(ENV_PREFIX.length()).toLowerCase(Locale.ROOT).replace('_', '.');
+        return isKnown(key) ? key : null;
+    }
+    
+    private static boolean isKnown(String key) {
+        return TOPIC.equals(key) || ProducerConfig.configNames().contains(key)
+            || ConsumerConfig.configNames().contains(key);
+    }
+    
+    /**
+     * A copy with one setting changed
+     */
+    public ClientConfig with(String key, String value) {
+        Properties copy = new Properties();
+        copy.putAll(props);
+        copy.setProperty(key, value);
+        return new ClientConfig(copy);
+    }
+    
+    public String get(String key) {
+        return props.getProperty(key);
+    }
+    
+    public String getTopic() {
+        return props.getProperty(TOPIC);
+    }
+    
+    public String getBootstrapServers() {
+        return props.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG);
+    }
+    
+    /**
+     * The settings a producer understands
+     */
+    public Properties producerProperties() {
+        return filter(ProducerConfig.configNames());
+    }
+    
+    /**
+     * The settings a consumer understands
+     */
+    public Properties consumerProperties() {
+        return filter(ConsumerConfig.configNames());
+    }
+    
+    /**
+     * All settings, e.g. as overrides for the ClientHarness of the performance tests
+     */
+    public Properties toProperties() {
+        Properties copy = new Properties();
+        copy.putAll(props);
+        return copy;
+    }
+    
+    private Properties filter(Set<String> names) {
+        Properties filtered = new Properties();
+        for (String key : props.stringPropertyNames()) {
+            if (names.contains(key)) {
+                filtered.setProperty(key, props.getProperty(key));
+            }
+        }
+        return filtered;
+    }
+    
+    @Override
+    public String toString() {
+        return props.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client Metrics
+ * 
+ * Instrumentation for one producer or consumer:
+ * - Send, processing and poll-to-commit latency as HDR histograms (microseconds)
+ * - Records and bytes, reported as rates per reporting interval
+ * - Per-partition consumer lag (end offset minus position), refreshed from endOffsets()
+ * 
+ * The record methods are called on the hot path from any thread and do not allocate:
+ * latencies go into HdrHistogram {@link Recorder}s and counts into {@link LongAdder}s.
+ * A background thread swaps the recorders' interval histograms once per interval and
+ * hands a {@link MetricsSnapshot} to every registered {@link MetricsReporter}.
+ */
+public class ClientMetrics implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClientMetrics.class);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10); // Larger values are clamped
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long LAG_UPDATE_INTERVAL_MS = 5000; // endOffsets() is a broker round trip
+    
+    private final String name;
+    private final Recorder sendLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder processingLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Recorder pollToCommitLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Map<TopicPartition, Long> lag = new ConcurrentHashMap<>();
+    private final List<MetricsReporter> reporters = new CopyOnWriteArrayList<>();
+    private long lastLagUpdateMs; // Poll thread only
+    private long lastRecords; // Reporter thread only
+    private long lastBytes;
+    private long lastSnapshotNanos = System.nanoTime();
+    private ScheduledExecutorService scheduler;
+    
+    public ClientMetrics(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Record an acknowledged (or failed) send; bytes is the serialized key plus value size
+     */
+    public void recordSend(long latencyNanos, int bytes) {
+        sendLatency.recordValue(toMicros(latencyNanos));
+        count(bytes);
+    }
+    
+    /**
+     * Record a consumed record that has been fully processed
+     */
+    public void recordProcessed(long latencyNanos, int bytes) {
+        processingLatency.recordValue(toMicros(latencyNanos));
+        count(bytes);
+    }
+    
+    /**
+     * Record that count records polled latencyNanos ago have now been committed
+     */
+    public void recordPollToCommit(long latencyNanos, long count) {
+        pollToCommitLatency.recordValueWithCount(toMicros(latencyNanos), count);
+    }
+    
+    private void count(int recordBytes) {
+        records.increment();
+        if (recordBytes > 0) {
+            bytes.add(recordBytes);
+        }
+    }
+    
+    private static long toMicros(long nanos) {
+        return Math.max(0, Math.min(nanos / 1000, HIGHEST_TRACKABLE_MICROS));
+    }
+    
+    /**
+     * Refresh per-partition lag if the update interval has passed
+     * 
+     * Must be called from the consumer's poll thread, since the consumer is not
+     * thread-safe. Lag is the log end offset minus the consumer's position.
+     */
+    public void maybeUpdateLag(Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        if (now - lastLagUpdateMs < LAG_UPDATE_INTERVAL_MS) {
+            return;
+        }
+        lastLagUpdateMs = now;
+        
+        try {
+            Set<TopicPartition> assignment = consumer.assignment();
+            lag.keySet().retainAll(assignment);
+            if (assignment.isEmpty()) {
+                return;
+            }
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assignment);
+            for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+                long position = consumer.position(entry.getKey(), Duration.ZERO);
+                lag.put(entry.getKey(), Math.max(0, entry.getValue() - position));
+            }
+        } catch (WakeupException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Lag is best effort; it is refreshed again on the next interval
+            logger.debug("Could not update consumer lag: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Take the metrics of the interval since the previous snapshot
+     */
+    public synchronized MetricsSnapshot snapshot() {
+        long now = System.nanoTime();
+        long totalRecords = records.sum();
+        long totalBytes = bytes.sum();
+        Histogram send = sendLatency.getIntervalHistogram();
+        Histogram processing = processingLatency.getIntervalHistogram();
+        Histogram pollToCommit = pollToCommitLatency.getIntervalHistogram();
+        
+        MetricsSnapshot snapshot = new MetricsSnapshot(name, now - lastSnapshotNanos,
+                totalRecords - lastRecords, totalBytes - lastBytes,
+                send, processing, pollToCommit, new HashMap<>(lag));
+        lastRecords = totalRecords;
+        lastBytes = totalBytes;
+        lastSnapshotNanos = now;
+        return snapshot;
+    }
+    
+    /**
+     * Report a snapshot to the given reporters every intervalMs on a background thread
+     */
+    public synchronized void startReporting(long intervalMs, MetricsReporter... newReporters) {
+        reporters.addAll(Arrays.asList(newReporters));
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void report() {
+        MetricsSnapshot snapshot = snapshot();
+        for (MetricsReporter reporter : reporters) {
+            try {
+                reporter.report(snapshot);
+            } catch (Exception e) {
+                logger.warn("Metrics reporter {} failed", reporter.getClass().getSimpleName(), e);
+            }
+        }
+    }
+    
+    /**
+     * Stop reporting; the final interval is reported before the reporters are closed
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        report();
+        for (MetricsReporter reporter : reporters) {
+            reporter.close();
+        }
+        reporters.clear();
+    }
+}
\ No newline at end of file
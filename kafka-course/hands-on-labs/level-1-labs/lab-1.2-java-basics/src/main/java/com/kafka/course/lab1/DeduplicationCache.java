@@ -0,0 +1,248 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Deduplication Cache
+ * 
+ * Remembers recently seen records as 64-bit fingerprints so redelivered records (producer
+ * retries, reprocessing after a rebalance) can be dropped before they reach expensive
+ * downstream writes:
+ * - A record is identified by its key plus the producer-supplied message id header
+ *   ({@link BasicProducer#MESSAGE_ID_HEADER}), or its key plus value if it has none
+ * - Fingerprints are stored in two open-addressing tables of longs (no objects per entry):
+ *   new records go into the current generation, lookups check both. The two tables are
+ *   interleaved in one array, so both probes of a lookup usually hit the same cache line
+ * - When the current generation is half full or older than the window, the previous one
+ *   is dropped and the current one takes its place, so a record is remembered for at
+ *   least one window (unless the memory cap is reached first) and at most two
+ *  * - Checking and remembering are separate: a consumer checks a record with
+ *   {@link #contains} before processing it and calls {@link #remember} only once it has
+ *   been processed, so a record whose processing failed is not dropped on redelivery
+ * 
+ * Memory is fixed at construction: two tables of capacity longs each. A false positive
+ * (a new record reported as a duplicate) needs two different ids with the same 64-bit
+ * fingerprint, about n / 2^64 per lookup with n remembered records.
+ * 
+ * The methods are synchronized, because the parallel consumer modes process records on
+ * several worker threads.
+ */
+public class DeduplicationCache {
+    
+    private static final double MAX_LOAD_FACTOR = 0.5; // Rotate before probe sequences get long
+    private static final long EMPTY = 0; // Fingerprints are never 0
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    
+    private final long windowMs;
+    private final int mask;
+    private final int maxEntries;
+    private final long[] slots; // Slot i of generation g is at 2 * i + g
+    private int current; // Generation new records go into
+    private int currentEntries;
+    private long generationStartMs = -1;
+    private long duplicates;
+    private long rotations;
+    
+    /**
+     * @param maxBytes memory cap for both generations; rounded down to a power-of-two capacity
+     * @param windowMs minimum time a record is remembered, measured in record timestamps
+     */
+    public DeduplicationCache(long maxBytes, long windowMs) {
+        long slots = Math.max(16, maxBytes / (2 * Long.BYTES));
+        int capacity = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        this.windowMs = windowMs;
+        this.mask = capacity - 1;
+        this.maxEntries = (int) (capacity * MAX_LOAD_FACTOR);
+        this.slots = new long[2 * capacity];
+    }
+    
+    /**
+     * True if the consumed record has been seen before; the record is not remembered
+     */
+    public boolean contains(ConsumerRecord<String, String> record) {
+        return contains(fingerprint(record));
+    }
+    
+    /**
+     * Remember a consumed record once it has been processed
+     */
+    public void remember(ConsumerRecord<String, String> record) {
+        remember(fingerprint(record), record.timestamp());
+    }
+    
+    private static long fingerprint(ConsumerRecord<String, String> record) {
+        Header id = record.headers().lastHeader(BasicProducer.MESSAGE_ID_HEADER);
+        return id != null ? fingerprint(record.key(), id.value()) : fingerprint(record.key(), record.value());
+    }
+    
+    /**
+     * True if the fingerprint has been seen before, which counts as a duplicate
+     */
+    public synchronized boolean contains(long fingerprint) {
+        if (probe(fingerprint)) {
+            duplicates++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Remember a fingerprint seen at the given time, unless it is remembered already
+     */
+    public synchronized void remember(long fingerprint, long timestampMs) {
+        if (!probe(fingerprint)) {
+            add(fingerprint, timestampMs);
+        }
+    }
+    
+    /**
+     * Check a fingerprint seen at the given time and remember it in one step; true if it
+     * has been seen before. Only for callers that need not wait for processing to succeed
+     */
+    public synchronized boolean isDuplicate(long fingerprint, long timestampMs) {
+        if (contains(fingerprint)) {
+            return true;
+        }
+        add(fingerprint, timestampMs);
+        return false;
+    }
+    
+    private void add(long fingerprint, long timestampMs) {
+        if (generationStartMs < 0) {
+            generationStartMs = timestampMs;
+        } else if (currentEntries >= maxEntries || timestampMs - generationStartMs >= windowMs) {
+            rotate(timestampMs);
+        }
+        insert(fingerprint);
+        currentEntries++;
+    }
+    
+    private boolean probe(long fingerprint) {
+        // Probe both generations in step; each stops at its first empty slot
+        boolean currentDone = false;
+        boolean previousDone = false;
+        for (int slot = index(fingerprint); ; slot = (slot + 1) & mask) {
+            long inCurrent = slots[2 * slot + current];
+            long inPrevious = slots[2 * slot + (current ^ 1)];
+            if ((!currentDone && inCurrent == fingerprint) || (!previousDone && inPrevious == fingerprint)) {
+                return true;
+            }
+            currentDone |= inCurrent == EMPTY;
+            previousDone |= inPrevious == EMPTY;
+            if (currentDone && previousDone) {
+                return false;
+            }
+        }
+    }
+    
+    private void insert(long fingerprint) {
+        int slot = index(fingerprint);
+        while (slots[2 * slot + current] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[2 * slot + current] = fingerprint;
+    }
+    
+    private int index(long fingerprint) {
+        // The low bits pick the slot; the fingerprint is already well mixed
+        return (int) fingerprint & mask;
+    }
+    
+    private void rotate(long timestampMs) {
+        // The previous generation is dropped and its slots reused for the new current one
+        current ^= 1;
+        for (int slot = current; slot < slots.length; slot += 2) {
+            slots[slot] = EMPTY;
+        }
+        currentEntries = 0;
+        generationStartMs = timestampMs;
+        rotations++;
+    }
+    
+    /**
+     * 64-bit fingerprint of a key and a message id
+     */
+    static long fingerprint(String key, byte[] id) {
+        long hash = hash(key);
+        // Eight bytes per step: ids are UUID-based and a byte at a time dominates the cost
+        int i = 0;
+        for (; i + Long.BYTES <= id.length; i += Long.BYTES) {
+            hash = Long.rotateLeft(hash ^ ((long) LONGS.get(id, i) * 0x87c37b91114253d5L), 31) * 0x4cf5ad432745937fL;
+        }
+        for (; i < id.length; i++) {
+            hash = (hash ^ id[i]) * 0x100000001b3L;
+        }
+        return nonZero(mix(hash ^ id.length));
+    }
+    
+    /**
+     * 64-bit fingerprint of a key and a value, for records without a message id
+     */
+    static long fingerprint(String key, String value) {
+        long hash = hash(key);
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return nonZero(mix(hash));
+    }
+    
+    private static long hash(String key) {
+        // FNV-1a over the chars, separated from what follows by the key length
+        long hash = 0xcbf29ce484222325L;
+        if (key != null) {
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ key.length()) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private static long mix(long hash) {
+        // MurmurHash3 finalizer: spreads every input bit over all 64 bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+    
+    private static long nonZero(long fingerprint) {
+        return fingerprint == EMPTY ? 1 : fingerprint;
+    }
+    
+    /**
+     * Memory used by both generations, in bytes
+     */
+    public long sizeInBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+    
+    /**
+     * Records remembered per generation before it is rotated out by the memory cap
+     */
+    public int maxEntriesPerGeneration() {
+        return maxEntries;
+    }
+    
+    /**
+     * Records reported as duplicates so far
+     */
+    public synchronized long duplicates() {
+        return duplicates;
+    }
+    
+    /**
+     * Generations rotated out so far
+     */
+    public synchronized long rotations() {
+        return rotations;
+    }
+}
\ No newline at end of file
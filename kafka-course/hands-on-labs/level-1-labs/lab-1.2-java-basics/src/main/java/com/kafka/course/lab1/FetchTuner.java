@@ -0,0 +1,184 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Fetch Tuner
+ * 
+ * Chooses fetch.min.bytes and fetch.max.wait.ms from the observed byte rate, so busy
+ * topics are read in large fetches and quiet topics are not delayed:
+ * - fetch.max.wait.ms is the configured latency bound: the longest a fetch may wait
+ *   for data to accumulate
+ * - fetch.min.bytes is what the topic delivers in half that time at the byte rate seen
+ *   over the last interval (at least 1, at most the configured cap), so at low rates the
+ *   broker answers as soon as any record arrives and at high rates fetches fill up
+ *   well within the bound
+ * 
+ * Fetch settings cannot be changed on a live consumer, so a retune means closing and
+ * recreating it (see {@link BasicConsumer#consumeWithFetchTuning}), and unless it is a
+ * static member, the group rebalances. To keep that rare, a new fetch.min.bytes
+ * is only applied when it is off by more than the hysteresis factor, and at most once
+ * per retune interval, which should be minutes rather than seconds.
+ * 
+ * Used from the poll thread only.
+ */
+public class FetchTuner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FetchTuner.class);
+    private static final double FILL_FRACTION = 0.5; // Aim to fill a fetch in half the wait bound
+    private static final double HYSTERESIS = 2.0; // Retune only when off by more than 2x
+    private static final String FETCH_METRICS_GROUP = "consumer-fetch-manager-metrics";
+    
+    private final int maxWaitMs;
+    private final int maxFetchMinBytes;
+    private final long retuneIntervalMs;
+    private int fetchMinBytes;
+    private long intervalStartMs = -1;
+    private long intervalBytes;
+    private long totalPolls;
+    private long totalNonEmptyPolls;
+    private long totalRecords;
+    private long totalBytes;
+    private int retunes;
+    private volatile double fetchSizeAvg = Double.NaN; // Reported by the consumer, bytes per fetch request
+    private volatile double fetchRate = Double.NaN; // Fetch requests per second
+    
+    /**
+     * @param maxWaitMs latency bound, used as fetch.max.wait.ms
+     * @param maxFetchMinBytes upper limit for fetch.min.bytes
+     * @param retuneIntervalMs how long the byte rate is observed before a retune; Long.MAX_VALUE
+     *                         keeps the initial settings (for comparison)
+     */
+    public FetchTuner(int maxWaitMs, int maxFetchMinBytes, long retuneIntervalMs) {
+        this(maxWaitMs, maxFetchMinBytes, retuneIntervalMs, 1);
+    }
+    
+    /**
+     * Create a tuner that starts from the given fetch.min.bytes instead of 1
+     */
+    public FetchTuner(int maxWaitMs, int maxFetchMinBytes, long retuneIntervalMs, int initialFetchMinBytes) {
+        this.maxWaitMs = maxWaitMs;
+        this.maxFetchMinBytes = maxFetchMinBytes;
+        this.retuneIntervalMs = retuneIntervalMs;
+        this.fetchMinBytes = initialFetchMinBytes;
+    }
+    
+    /**
+     * Account for one poll
+     */
+    public void onPoll(int records, long bytes, long nowMs) {
+        if (intervalStartMs < 0) {
+            intervalStartMs = nowMs;
+        }
+        intervalBytes += bytes;
+        totalPolls++;
+        totalRecords += records;
+        totalBytes += bytes;
+        if (records > 0) {
+            totalNonEmptyPolls++;
+        }
+    }
+    
+    /**
+     * At the end of a retune interval, decide whether the consumer should be recreated with
+     * {@link #fetchProperties()}; starts the next interval either way
+     */
+    public boolean shouldRetune(long nowMs) {
+        long elapsedMs = nowMs - intervalStartMs;
+        if (intervalStartMs < 0 || elapsedMs < retuneIntervalMs) {
+            return false;
+        }
+        double bytesPerMs = (double) intervalBytes / elapsedMs;
+        intervalStartMs = nowMs;
+        intervalBytes = 0;
+        
+        int target = (int) Math.max(1, Math.min(maxFetchMinBytes, bytesPerMs * maxWaitMs * FILL_FRACTION));
+        if (target <= fetchMinBytes * HYSTERESIS && target >= fetchMinBytes / HYSTERESIS) {
+            return false;
+        }
+        logger.info("Retuning fetch.min.bytes {} -> {} ({} bytes/s observed, wait bound {} ms)",
+                   fetchMinBytes, target, (long) (bytesPerMs * 1000), maxWaitMs);
+        fetchMinBytes = target;
+        retunes++;
+        return true;
+    }
+    
+    /**
+     * The fetch settings to create the consumer with
+     */
+    public Properties fetchProperties() {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, maxWaitMs);
+        return props;
+    }
+    
+    /**
+     * Take the fetch size and rate the consumer reports (a MockConsumer reports none)
+     */
+    public void observeMetrics(Map<MetricName, ? extends Metric> metrics) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName name = entry.getKey();
+            if (!FETCH_METRICS_GROUP.equals(name.group()) || name.tags().containsKey("topic")) {
+                continue;
+            }
+            Object value = entry.getValue().metricValue();
+            if (value instanceof Double && "fetch-size-avg".equals(name.name())) {
+                fetchSizeAvg = (Double) value;
+            } else if (value instanceof Double && "fetch-rate".equals(name.name())) {
+                fetchRate = (Double) value;
+            }
+        }
+    }
+    
+    public int getFetchMinBytes() {
+        return fetchMinBytes;
+    }
+    
+    public int getMaxWaitMs() {
+        return maxWaitMs;
+    }
+    
+    public int retunes() {
+        return retunes;
+    }
+    
+    /**
+     * Bytes per poll that returned records
+     */
+    public double bytesPerNonEmptyPoll() {
+        return totalNonEmptyPolls == 0 ? 0 : (double) totalBytes / totalNonEmptyPolls;
+    }
+    
+    /**
+     * Records per poll that returned records
+     */
+    public double recordsPerNonEmptyPoll() {
+        return totalNonEmptyPolls == 0 ? 0 : (double) totalRecords / totalNonEmptyPolls;
+    }
+    
+    public long polls() {
+        return totalPolls;
+    }
+    
+    /**
+     * Average bytes per fetch request as reported by the consumer, NaN if not reported
+     */
+    public double fetchSizeAvg() {
+        return fetchSizeAvg;
+    }
+    
+    /**
+     * Fetch requests per second as reported by the consumer, NaN if not reported
+     */
+    public double fetchRate() {
+        return fetchRate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JMX Metrics Reporter
+ * 
+ * Publishes the latest snapshot as an MXBean named
+ * com.kafka.course.lab1:type=ClientMetrics,name=&lt;client name&gt;, so the metrics can be
+ * watched with JConsole/VisualVM or scraped by a JMX exporter. The MBean is registered
+ * with the first report and unregistered on close.
+ */
+public class JmxMetricsReporter implements MetricsReporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JmxMetricsReporter.class);
+    private static final String DOMAIN = "com.kafka.course.lab1";
+    
+    /**
+     * Attributes exposed over JMX, all for the most recent reporting interval
+     */
+    public interface ClientMetricsMXBean {
+        
+        double getRecordsPerSecond();
+        
+        double getBytesPerSecond();
+        
+        long getSendLatencyP50Micros();
+        
+        long getSendLatencyP99Micros();
+        
+        long getProcessingLatencyP50Micros();
+        
+        long getProcessingLatencyP99Micros();
+        
+        long getPollToCommitLatencyP50Micros();
+        
+        long getPollToCommitLatencyP99Micros();
+        
+        long getTotalLag();
+        
+        Map<String, Long> getLag();
+    }
+    
+    private static class ClientMetricsBean implements ClientMetricsMXBean {
+        
+        private volatile MetricsSnapshot snapshot;
+        
+        ClientMetricsBean(MetricsSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+        
+        @Override
+        public double getRecordsPerSecond() {
+            return snapshot.getRecordsPerSecond();
+        }
+        
+        @Override
+        public double getBytesPerSecond() {
+            return snapshot.getBytesPerSecond();
+        }
+        
+        @Override
+        public long getSendLatencyP50Micros() {
+            return snapshot.getSendLatencyMicros().getValueAtPercentile(50);
+        }
+        
+        @Override
+        public long getSendLatencyP99Micros() {
+            return snapshot.getSendLatencyMicros().getValueAtPercentile(99);
+        }
+        
+        @Override
+        public long getProcessingLatencyP50Micros() {
+            return snapshot.getProcessingLatencyMicros().getValueAtPercentile(50);
+        }
+        
+        @Override
+        public long getProcessingLatencyP99Micros() {
+            return snapshot.getProcessingLatencyMicros().getValueAtPercentile(99);
+        }
+        
+        @Override
+        public long getPollToCommitLatencyP50Micros() {
+            return snapshot.getPollToCommitLatencyMicros().getValueAtPercentile(50);
+        }
+        
+        @Override
+        public long getPollToCommitLatencyP99Micros() {
+            return snapshot.getPollToCommitLatencyMicros().getValueAtPercentile(99);
+        }
+        
+        @Override
+        public long getTotalLag() {
+            return snapshot.getTotalLag();
+        }
+        
+        @Override
+        public Map<String, Long> getLag() {
+            Map<String, Long> lag = new TreeMap<>();
+            for (Map.Entry<TopicPartition, Long> entry : snapshot.getLag().entrySet()) {
+                lag.put(entry.getKey().toString(), entry.getValue());
+            }
+            return lag;
+        }
+    }
+    
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private ClientMetricsBean bean;
+    private ObjectName objectName;
+    
+    @Override
+    public synchronized void report(MetricsSnapshot snapshot) {
+        if (bean != null) {
+            bean.snapshot = snapshot;
+            return;
+        }
+        try {
+            objectName = new ObjectName(DOMAIN + ":type=ClientMetrics,name=" + ObjectName.quote(snapshot.getName()));
+            bean = new ClientMetricsBean(snapshot);
+            server.registerMBean(bean, objectName);
+            logger.info("Registered metrics MBean {}", objectName);
+        } catch (JMException e) {
+            logger.warn("Could not register metrics MBean for {}", snapshot.getName(), e);
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (objectName == null || !server.isRegistered(objectName)) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Could not unregister metrics MBean {}", objectName, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.kafka.course.lab1;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * JSON Deserializer
+ * 
+ * Reads UTF-8 JSON bytes into a fixed target type:
+ * - The ObjectReader for the target type is created once; it is immutable and thread-safe
+ * - Records are parsed straight from the byte[], without an intermediate String
+ * 
+ * Pass an instance to the KafkaConsumer constructor, or set value.deserializer to
+ * this class together with {@link #VALUE_TYPE_CONFIG} (or {@link #KEY_TYPE_CONFIG}).
+ */
+public class JsonDeserializer<T> implements Deserializer<T> {
+    
+    public static final String KEY_TYPE_CONFIG = "json.key.type";
+    public static final String VALUE_TYPE_CONFIG = "json.value.type";
+    
+    private ObjectReader reader;
+    
+    /**
+     * Create a deserializer whose target type comes from the consumer configuration
+     */
+    public JsonDeserializer() {
+    }
+    
+    public JsonDeserializer(Class<T> type) {
+        this.reader = JsonSerializer.MAPPER.readerFor(type);
+    }
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (reader != null) {
+            return;
+        }
+        String typeConfig = isKey ? KEY_TYPE_CONFIG : VALUE_TYPE_CONFIG;
+        Object type = configs.get(typeConfig);
+        if (type == null) {
+            throw new IllegalArgumentException(typeConfig + " must be set to the JSON target class");
+        }
+        try {
+            Class<?> targetType = type instanceof Class ? (Class<?>) type : Class.forName(type.toString());
+            this.reader = JsonSerializer.MAPPER.readerFor(targetType);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown JSON target class " + type, e);
+        }
+    }
+    
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return reader.readValue(data);
+        } catch (IOException e) {
+            throw new SerializationException("Error deserializing JSON from topic " + topic, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.kafka.course.lab1;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * JSON Serializer
+ * 
+ * Writes any Jackson-mappable object as UTF-8 JSON bytes:
+ * - One ObjectMapper is shared by all serializers and deserializers
+ * - The ObjectWriter is created once; it is immutable and thread-safe
+ * - Bytes are produced directly, without an intermediate String
+ * 
+ * Use it as value.serializer in the producer configuration or pass an instance
+ * to the KafkaProducer constructor.
+ */
+public class JsonSerializer<T> implements Serializer<T> {
+    
+    /**
+     * Mapper shared by the JSON serializers and deserializers; only used to create
+     * writers and readers, never reconfigured after class initialization
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final ObjectWriter writer = MAPPER.writer();
+    
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return writer.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Error serializing JSON for topic " + topic, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Key-Ordered Worker Pool
+ * 
+ * Processes records of the same partition concurrently when their keys differ:
+ * - Every partition is split into a fixed number of key lanes (hash of the key), each
+ *   a {@link WorkerLane}
+ * - Records with the same key always land in the same lane, so per-key order is kept
+ * - Records without a key are spread across lanes and carry no ordering guarantee
+ * - Offsets complete out of order, so only the lowest offset that is not yet
+ *   processed is reported for commit
+ * - A record whose processing fails stops its key lane and stays pending, so the
+ *   partition's commits never pass it (see {@link #throwIfFailed()})
+ * 
+ * Using a fixed number of lanes per partition keeps memory bounded no matter how
+ * many distinct keys a topic carries.
+ */
+public class KeyOrderedWorkerPool<K, V> implements RecordWorkerPool<K, V> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedWorkerPool.class);
+    
+    private final ExecutorService executor;
+    private final int lanesPerPartition;
+    private final java.util.function.Consumer<ConsumerRecord<K, V>> handler;
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+    
+    public KeyOrderedWorkerPool(int maxWorkers, java.util.function.Consumer<ConsumerRecord<K, V>> handler) {
+        this.executor = WorkerLane.newExecutor(maxWorkers, "key-worker");
+        this.lanesPerPartition = maxWorkers;
+        this.handler = handler;
+    }
+    
+    @Override
+    public void submit(TopicPartition partition, Collection<ConsumerRecord<K, V>> records) {
+        PartitionState state = partitions.computeIfAbsent(partition, PartitionState::new);
+        state.inFlight.addAndGet(records.size());
+        for (ConsumerRecord<K, V> record : records) {
+            state.pendingOffsets.add(record.offset());
+            state.highestSubmitted = record.offset();
+            state.lanes.get(laneFor(record)).add(record);
+        }
+        for (WorkerLane<K, V> lane : state.lanes) {
+            lane.schedule();
+        }
+    }
+    
+    int laneFor(ConsumerRecord<K, V> record) {
+        Object key = record.key();
+        int hash = key != null ? key.hashCode() : Long.hashCode(record.offset());
+        return Math.floorMod(hash, lanesPerPartition);
+    }
+    
+    @Override
+    public int inFlight(TopicPartition partition) {
+        PartitionState state = partitions.get(partition);
+        return state != null ? state.inFlight.get() : 0;
+    }
+    
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> completedOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (PartitionState state : partitions.values()) {
+            long committable = state.committableOffset();
+            if (committable > state.reportedOffset) {
+                state.reportedOffset = committable;
+                offsets.put(state.partition, new OffsetAndMetadata(committable));
+            }
+        }
+        return offsets;
+    }
+    
+    @Override
+    public void throwIfFailed() {
+        for (PartitionState state : partitions.values()) {
+            for (WorkerLane<K, V> lane : state.lanes) {
+                RuntimeException failure = lane.failure();
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stop processing the given partitions and return their final committable offsets.
+     * 
+     * Queued records are abandoned and stay in the pending set, so the returned offset
+     * never skips past a record that was not processed.
+     */
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> revoke(Collection<TopicPartition> revoked, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : revoked) {
+            PartitionState state = partitions.remove(partition);
+            if (state == null) {
+                continue;
+            }
+            for (WorkerLane<K, V> lane : state.lanes) {
+                lane.abandon();
+            }
+            for (WorkerLane<K, V> lane : state.lanes) {
+                if (!lane.awaitIdle(deadline)) {
+                    logger.warn("Timed out waiting for in-flight records on partition {}", partition);
+                }
+            }
+            long committable = state.committableOffset();
+            if (committable > state.reportedOffset) {
+                offsets.put(partition, new OffsetAndMetadata(committable));
+            }
+        }
+        return offsets;
+    }
+    
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> shutdown(long timeoutMs) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = revoke(new ArrayList<>(partitions.keySet()), timeoutMs);
+        executor.shutdownNow();
+        return offsets;
+    }
+    
+    /**
+     * Offset bookkeeping and key lanes of a single partition
+     */
+    private class PartitionState {
+        
+        private final TopicPartition partition;
+        private final List<WorkerLane<K, V>> lanes = new ArrayList<>();
+        private final ConcurrentSkipListSet<Long> pendingOffsets = new ConcurrentSkipListSet<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private long highestSubmitted = -1; // Only touched by the poll thread
+        private long reportedOffset = -1; // Only touched by the poll thread
+        
+        PartitionState(TopicPartition partition) {
+            this.partition = partition;
+            for (int i = 0; i < lanesPerPartition; i++) {
+                lanes.add(new WorkerLane<>(executor, handler, record -> {
+                    pendingOffsets.remove(record.offset());
+                    inFlight.decrementAndGet();
+                }));
+            }
+        }
+        
+        /**
+         * Lowest offset that is not processed yet; everything below it is done
+         */
+        long committableOffset() {
+            Long lowestPending = pendingOffsets.ceiling(Long.MIN_VALUE);
+            return lowestPending != null ? lowestPending : highestSubmitted + 1;
+        }
+    }
+}
\ No newline at end of file
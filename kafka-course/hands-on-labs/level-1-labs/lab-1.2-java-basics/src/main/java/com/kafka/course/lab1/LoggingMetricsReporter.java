@@ -0,0 +1,43 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logging Metrics Reporter
+ * 
+ * Writes one summary line per reporting interval: throughput, latency percentiles of
+ * every histogram that received values, and total/maximum partition lag.
+ */
+public class LoggingMetricsReporter implements MetricsReporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsReporter.class);
+    
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("[%s] %.0f records/s, %.2f MB/s", snapshot.getName(),
+                snapshot.getRecordsPerSecond(), snapshot.getBytesPerSecond() / (1024.0 * 1024.0)));
+        appendLatency(line, "send", snapshot.getSendLatencyMicros());
+        appendLatency(line, "processing", snapshot.getProcessingLatencyMicros());
+        appendLatency(line, "poll-to-commit", snapshot.getPollToCommitLatencyMicros());
+        if (!snapshot.getLag().isEmpty()) {
+            long maxLag = 0;
+            for (long partitionLag : snapshot.getLag().values()) {
+                maxLag = Math.max(maxLag, partitionLag);
+            }
+            line.append(String.format(", lag total=%d max=%d over %d partitions",
+                    snapshot.getTotalLag(), maxLag, snapshot.getLag().size()));
+        }
+        logger.info(line.toString());
+    }
+    
+    private static void appendLatency(StringBuilder line, String label, Histogram micros) {
+        if (micros.getTotalCount() == 0) {
+            return;
+        }
+        line.append(String.format(", %s p50=%d us p99=%d us max=%d us", label,
+                micros.getValueAtPercentile(50), micros.getValueAtPercentile(99), micros.getMaxValue()));
+    }
+}
\ No newline at end of file
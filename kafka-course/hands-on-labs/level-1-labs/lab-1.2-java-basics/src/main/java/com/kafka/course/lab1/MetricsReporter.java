@@ -0,0 +1,17 @@
+package com.kafka.course.lab1;
+
+/**
+ * Receives a {@link MetricsSnapshot} once per {@link ClientMetrics} reporting interval
+ * 
+ * Reports are delivered on the metrics thread, never on the poll or send path.
+ */
+public interface MetricsReporter {
+    
+    void report(MetricsSnapshot snapshot);
+    
+    /**
+     * Release resources (e.g. unregister MBeans) when reporting stops
+     */
+    default void close() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metrics Snapshot
+ * 
+ * The metrics of one {@link ClientMetrics} reporting interval: record and byte counts,
+ * latency histograms (microseconds) of the values recorded during the interval, and
+ * the most recent per-partition consumer lag.
+ */
+public class MetricsSnapshot {
+    
+    private final String name;
+    private final long intervalNanos;
+    private final long records;
+    private final long bytes;
+    private final Histogram sendLatencyMicros;
+    private final Histogram processingLatencyMicros;
+    private final Histogram pollToCommitLatencyMicros;
+    private final Map<TopicPartition, Long> lag;
+    
+    MetricsSnapshot(String name, long intervalNanos, long records, long bytes, Histogram sendLatencyMicros,
+                    Histogram processingLatencyMicros, Histogram pollToCommitLatencyMicros,
+                    Map<TopicPartition, Long> lag) {
+        this.name = name;
+        this.intervalNanos = intervalNanos;
+        this.records = records;
+        this.bytes = bytes;
+        this.sendLatencyMicros = sendLatencyMicros;
+        this.processingLatencyMicros = processingLatencyMicros;
+        this.pollToCommitLatencyMicros = pollToCommitLatencyMicros;
+        this.lag = Collections.unmodifiableMap(lag);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+    
+    public long getRecords() {
+        return records;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public double getRecordsPerSecond() {
+        return intervalNanos > 0 ? records * 1_000_000_000.0 / intervalNanos : 0;
+    }
+    
+    public double getBytesPerSecond() {
+        return intervalNanos > 0 ? bytes * 1_000_000_000.0 / intervalNanos : 0;
+    }
+    
+    public Histogram getSendLatencyMicros() {
+        return sendLatencyMicros;
+    }
+    
+    public Histogram getProcessingLatencyMicros() {
+        return processingLatencyMicros;
+    }
+    
+    public Histogram getPollToCommitLatencyMicros() {
+        return pollToCommitLatencyMicros;
+    }
+    
+    /**
+     * Lag per assigned partition, as of the last endOffsets() refresh
+     */
+    public Map<TopicPartition, Long> getLag() {
+        return lag;
+    }
+    
+    public long getTotalLag() {
+        long total = 0;
+        for (long partitionLag : lag.values()) {
+            total += partitionLag;
+        }
+        return total;
+    }
+}
\ No newline at end of file
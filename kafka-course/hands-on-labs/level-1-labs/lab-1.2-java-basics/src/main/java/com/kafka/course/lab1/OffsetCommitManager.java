@@ -0,0 +1,267 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offset Commit Manager
+ * 
+ * Replaces a blocking commitSync() per poll with batched asynchronous commits:
+ * - Tracks the highest fully processed offset of every partition
+ * - Commits with commitAsync() every N records or after a time interval
+ * - Falls back to a single commitSync() on revocation and shutdown
+ * - Never moves a committed offset backwards, even when async commits fail
+ *   or their callbacks complete out of order
+ * 
+ * A failed async commit is not retried as-is (that could overwrite a newer commit);
+ * instead the partition is marked dirty so the next commit carries its latest offset.
+ * 
+ * Offsets reported by a worker pool are counted as the records between the previous and
+ * the new offset; for a partition seen for the first time the baseline is its first polled
+ * offset (see {@link #markPolled}), or its committed offset if it was never marked polled.
+ * 
+ * With {@link ClientMetrics} attached, every poll is remembered per partition (one entry
+ * per poll, not per record) and its records are counted as poll-to-commit latency once
+ * a commit covering the whole poll has been acknowledged.
+ * 
+ * Like the consumer itself this class is not thread-safe: it must only be used from
+ * the poll thread, which is also where commit callbacks are invoked.
+ */
+public class OffsetCommitManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OffsetCommitManager.class);
+    
+    private final Consumer<?, ?> consumer;
+    private final long commitIntervalMs;
+    private final int commitBatchRecords;
+    private final ClientMetrics metrics;
+    
+    private final Map<TopicPartition, Long> processed = new HashMap<>(); // Next offset to commit
+    private final Map<TopicPartition, Long> sent = new HashMap<>(); // Highest offset handed to commitAsync
+    private final Map<TopicPartition, Long> committed = new HashMap<>(); // Highest offset acknowledged
+    private final Map<TopicPartition, Long> firstPolled = new HashMap<>(); // Baseline until something is processed
+    private long recordsSinceCommit;
+    private long lastCommitTimeMs = System.currentTimeMillis();
+    private long failedCommits;
+    private final Map<TopicPartition, ArrayDeque<PolledRange>> uncommittedPolls = new HashMap<>();
+    
+    /**
+     * Offsets fetched by one poll for one partition
+     */
+    private static class PolledRange {
+        
+        private final long endOffset; // Committing this offset covers the whole range
+        private final long pollNanos;
+        private final int count;
+        
+        PolledRange(long endOffset, long pollNanos, int count) {
+            this.endOffset = endOffset;
+            this.pollNanos = pollNanos;
+            this.count = count;
+        }
+    }
+    
+    public OffsetCommitManager(Consumer<?, ?> consumer, long commitIntervalMs, int commitBatchRecords) {
+        this(consumer, commitIntervalMs, commitBatchRecords, null);
+    }
+    
+    /**
+     * Create a commit manager that also reports poll-to-commit latency to the given metrics
+     */
+    public OffsetCommitManager(Consumer<?, ?> consumer, long commitIntervalMs, int commitBatchRecords,
+                               ClientMetrics metrics) {
+        this.consumer = consumer;
+        this.commitIntervalMs = commitIntervalMs;
+        this.commitBatchRecords = commitBatchRecords;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Remember where newly polled partitions start and, for poll-to-commit latency, when
+     * the records of a poll were fetched
+     */
+    public void markPolled(ConsumerRecords<?, ?> records) {
+        for (TopicPartition partition : records.partitions()) {
+            if (!processed.containsKey(partition)) {
+                firstPolled.putIfAbsent(partition, records.records(partition).get(0).offset());
+            }
+        }
+        if (metrics == null || records.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (TopicPartition partition : records.partitions()) {
+            List<? extends ConsumerRecord<?, ?>> partitionRecords = records.records(partition);
+            long endOffset = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+            uncommittedPolls.computeIfAbsent(partition, p -> new ArrayDeque<>())
+                .add(new PolledRange(endOffset, now, partitionRecords.size()));
+        }
+    }
+    
+    private void recordPollToCommit(TopicPartition partition, long committedOffset) {
+        ArrayDeque<PolledRange> polls = uncommittedPolls.get(partition);
+        if (polls == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        while (!polls.isEmpty() && polls.peek().endOffset <= committedOffset) {
+            PolledRange range = polls.poll();
+            metrics.recordPollToCommit(now - range.pollNanos, range.count);
+        }
+    }
+    
+    /**
+     * Record that a single record has been fully processed
+     */
+    public void markProcessed(ConsumerRecord<?, ?> record) {
+        advance(new TopicPartition(record.topic(), record.partition()), record.offset() + 1, 1);
+    }
+    
+    /**
+     * Record committable offsets reported by a worker pool
+     */
+    public void markProcessed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            long offset = entry.getValue().offset();
+            Long previous = processed.containsKey(partition) ? processed.get(partition) : baseline(partition);
+            advance(partition, offset, previous != null ? Math.max(0, offset - previous) : 0);
+        }
+    }
+    
+    /**
+     * Offset a partition started from before anything of it was processed, or null if unknown
+     */
+    private Long baseline(TopicPartition partition) {
+        Long first = firstPolled.remove(partition);
+        if (first != null) {
+            return first;
+        }
+        OffsetAndMetadata committedOffset = consumer.committed(Collections.singleton(partition)).get(partition);
+        return committedOffset != null ? committedOffset.offset() : null;
+    }
+    
+    private void advance(TopicPartition partition, long nextOffset, long records) {
+        firstPolled.remove(partition);
+        processed.merge(partition, nextOffset, Math::max);
+        recordsSinceCommit += records;
+    }
+    
+    /**
+     * Start an asynchronous commit if the record or time threshold has been reached
+     */
+    public void maybeCommitAsync() {
+        long now = System.currentTimeMillis();
+        if (recordsSinceCommit < commitBatchRecords && now - lastCommitTimeMs < commitIntervalMs) {
+            return;
+        }
+        
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, Long> entry : processed.entrySet()) {
+            if (entry.getValue() > sent.getOrDefault(entry.getKey(), -1L)) {
+                offsets.put(entry.getKey(), new OffsetAndMetadata(entry.getValue()));
+            }
+        }
+        recordsSinceCommit = 0;
+        lastCommitTimeMs = now;
+        if (offsets.isEmpty()) {
+            return;
+        }
+        
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            sent.put(entry.getKey(), entry.getValue().offset());
+        }
+        consumer.commitAsync(offsets, (committedOffsets, exception) -> {
+            if (exception == null) {
+                onCommitted(committedOffsets);
+            } else {
+                onCommitFailed(offsets, exception);
+            }
+        });
+    }
+    
+    private void onCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            // Ignore late callbacks for partitions that have been revoked in the meantime
+            if (processed.containsKey(entry.getKey())) {
+                committed.merge(entry.getKey(), entry.getValue().offset(), Math::max);
+                recordPollToCommit(entry.getKey(), entry.getValue().offset());
+            }
+        }
+        logger.debug("Committed offsets: {}", offsets);
+    }
+    
+    private void onCommitFailed(Map<TopicPartition, OffsetAndMetadata> offsets, Exception exception) {
+        failedCommits++;
+        logger.warn("Async offset commit failed for {}: {}", offsets.keySet(), exception.getMessage());
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            // Only resend if no newer commit has been started for this partition since
+            Long latestSent = sent.get(entry.getKey());
+            if (latestSent != null && latestSent == entry.getValue().offset()) {
+                sent.put(entry.getKey(), committed.getOrDefault(entry.getKey(), -1L));
+            }
+        }
+    }
+    
+    /**
+     * Synchronously commit everything processed so far (used on shutdown)
+     */
+    public void commitSync() {
+        commitSync(processed.keySet());
+    }
+    
+    /**
+     * Synchronously commit the given partitions (used on revocation, followed by {@link #forget})
+     */
+    public void commitSync(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            Long offset = processed.get(partition);
+            if (offset != null && offset > committed.getOrDefault(partition, -1L)) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+            logger.info("Committed offsets synchronously: {}", offsets);
+        }
+        
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+            sent.merge(entry.getKey(), entry.getValue().offset(), Math::max);
+            committed.merge(entry.getKey(), entry.getValue().offset(), Math::max);
+            recordPollToCommit(entry.getKey(), entry.getValue().offset());
+        }
+    }
+    
+    /**
+     * Stop tracking partitions that are no longer assigned
+     */
+    public void forget(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            processed.remove(partition);
+            sent.remove(partition);
+            committed.remove(partition);
+            firstPolled.remove(partition);
+            uncommittedPolls.remove(partition);
+        }
+    }
+    
+    /**
+     * Number of async commits that failed (their offsets were carried by a later commit)
+     */
+    public long failedCommits() {
+        return failedCommits;
+    }
+}
\ No newline at end of file
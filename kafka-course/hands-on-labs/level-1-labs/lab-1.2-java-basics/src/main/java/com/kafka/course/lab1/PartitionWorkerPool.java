@@ -0,0 +1,143 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-Partition Worker Pool
+ * 
+ * Hands the records of each assigned partition to a dedicated {@link WorkerLane} that is
+ * executed on a bounded thread pool:
+ * - Records of one partition are processed strictly in offset order
+ * - Different partitions are processed concurrently (up to the pool size)
+ * - Only offsets of fully processed records are reported for commit; a record whose
+ *   processing fails stops its partition's lane (see {@link #throwIfFailed()})
+ * 
+ * The pool is driven from the poll thread: all methods must only be called from that thread.
+ */
+public class PartitionWorkerPool<K, V> implements RecordWorkerPool<K, V> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PartitionWorkerPool.class);
+    
+    private final ExecutorService executor;
+    private final java.util.function.Consumer<ConsumerRecord<K, V>> handler;
+    private final Map<TopicPartition, PartitionLane> lanes = new ConcurrentHashMap<>();
+    
+    public PartitionWorkerPool(int maxWorkers, java.util.function.Consumer<ConsumerRecord<K, V>> handler) {
+        this.executor = WorkerLane.newExecutor(maxWorkers, "partition-worker");
+        this.handler = handler;
+    }
+    
+    /**
+     * Queue a partition's records behind any records of that partition still being processed
+     */
+    @Override
+    public void submit(TopicPartition partition, Collection<ConsumerRecord<K, V>> records) {
+        PartitionLane lane = lanes.computeIfAbsent(partition, PartitionLane::new);
+        lane.inFlight.addAndGet(records.size());
+        lane.worker.addAll(records);
+        lane.worker.schedule();
+    }
+    
+    @Override
+    public int inFlight(TopicPartition partition) {
+        PartitionLane lane = lanes.get(partition);
+        return lane != null ? lane.inFlight.get() : 0;
+    }
+    
+    /**
+     * Offsets that became committable since the last call, keyed by partition
+     */
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> completedOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (PartitionLane lane : lanes.values()) {
+            long completed = lane.completedOffset;
+            if (completed > lane.reportedOffset) {
+                lane.reportedOffset = completed;
+                offsets.put(lane.partition, new OffsetAndMetadata(completed));
+            }
+        }
+        return offsets;
+    }
+    
+    @Override
+    public void throwIfFailed() {
+        for (PartitionLane lane : lanes.values()) {
+            RuntimeException failure = lane.worker.failure();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+    
+    /**
+     * Stop processing the given partitions and return their final committable offsets.
+     * 
+     * Records that have not been started are abandoned: they are not processed and not
+     * committed, so they will be redelivered to the next owner from the committed offset.
+     * The record currently in progress is allowed to finish so the returned offset is accurate.
+     */
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> revoke(Collection<TopicPartition> partitions, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionLane lane = lanes.remove(partition);
+            if (lane == null) {
+                continue;
+            }
+            lane.worker.abandon();
+            if (!lane.worker.awaitIdle(deadline)) {
+                logger.warn("Timed out waiting for in-flight record on partition {}", partition);
+            }
+            if (lane.completedOffset > lane.reportedOffset) {
+                offsets.put(partition, new OffsetAndMetadata(lane.completedOffset));
+            }
+        }
+        return offsets;
+    }
+    
+    /**
+     * Stop all lanes, wait for the records in progress and return the final committable
+     * offsets; queued records are abandoned like on {@link #revoke}
+     */
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> shutdown(long timeoutMs) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = revoke(new ArrayList<>(lanes.keySet()), timeoutMs);
+        executor.shutdownNow();
+        return offsets;
+    }
+    
+    /**
+     * Records of a single partition, processed one at a time in offset order
+     */
+    private class PartitionLane {
+        
+        private final TopicPartition partition;
+        private final WorkerLane<K, V> worker;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long completedOffset = -1; // Next offset to commit (last processed + 1)
+        private long reportedOffset = -1; // Only touched by the poll thread
+        
+        PartitionLane(TopicPartition partition) {
+            this.partition = partition;
+            this.worker = new WorkerLane<>(executor, handler, record -> {
+                completedOffset = record.offset() + 1;
+                inFlight.decrementAndGet();
+            });
+        }
+    }
+}
\ No newline at end of file
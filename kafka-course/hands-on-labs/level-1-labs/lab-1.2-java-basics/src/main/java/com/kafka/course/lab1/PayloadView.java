@@ -0,0 +1,117 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Payload View
+ * 
+ * A pass-through payload with a small binary header, read in place:
+ * - Layout: 8-byte timestamp, 8-byte sequence number, 2-byte tag length, the tag bytes,
+ *   then the body bytes up to the end of the record (all big-endian)
+ * - {@link #write} builds a payload in a (pooled) buffer
+ * - A view is wrapped around a received byte[] and reads the header fields straight out
+ *   of it; the tag and body are returned as slices sharing the array, so nothing is
+ *   copied or decoded unless the caller does so
+ * 
+ * One view is rewrapped for every record, so reading the header allocates nothing.
+ * Not thread-safe.
+ */
+public final class PayloadView {
+    
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORTS = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int SEQUENCE_OFFSET = 8;
+    static final int TAG_LENGTH_OFFSET = 16;
+    static final int HEADER_SIZE = 18;
+    
+    private byte[] data;
+    private int offset;
+    private int length;
+    
+    /**
+     * Append a payload at the buffer's position
+     * 
+     * The position is left after the payload. The ByteBufferSerializer of the Kafka client
+     * used here (3.5) flips the buffer itself, so the buffer is handed to send() as is.
+     */
+    public static ByteBuffer write(ByteBuffer buffer, long timestamp, long sequence, byte[] tag, byte[] body) {
+        if (tag.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Tag too long: " + tag.length + " bytes");
+        }
+        return buffer.putLong(timestamp)
+            .putLong(sequence)
+            .putShort((short) tag.length)
+            .put(tag)
+            .put(body);
+    }
+    
+    /**
+     * Size of a payload with the given tag and body
+     */
+    public static int sizeOf(byte[] tag, byte[] body) {
+        return HEADER_SIZE + tag.length + body.length;
+    }
+    
+    public PayloadView wrap(byte[] data) {
+        return wrap(data, 0, data.length);
+    }
+    
+    /**
+     * Point this view at the payload in data[offset, offset + length)
+     */
+    public PayloadView wrap(byte[] data, int offset, int length) {
+        int tagLength = length < HEADER_SIZE ? -1 : (short) SHORTS.get(data, offset + TAG_LENGTH_OFFSET);
+        if (tagLength < 0 || HEADER_SIZE + tagLength > length) {
+            throw new SerializationException("Not a payload: " + length + " bytes");
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+    
+    public long timestamp() {
+        return (long) LONGS.get(data, offset + TIMESTAMP_OFFSET);
+    }
+    
+    public long sequence() {
+        return (long) LONGS.get(data, offset + SEQUENCE_OFFSET);
+    }
+    
+    public int tagLength() {
+        return (short) SHORTS.get(data, offset + TAG_LENGTH_OFFSET);
+    }
+    
+    /**
+     * Compare the tag with the given bytes without copying it
+     */
+    public boolean tagEquals(byte[] expected) {
+        int tagStart = offset + HEADER_SIZE;
+        return Arrays.equals(data, tagStart, tagStart + tagLength(), expected, 0, expected.length);
+    }
+    
+    /**
+     * The tag as a read-only slice of the wrapped array
+     */
+    public ByteBuffer tag() {
+        return ByteBuffer.wrap(data, offset + HEADER_SIZE, tagLength()).slice().asReadOnlyBuffer();
+    }
+    
+    public int bodyLength() {
+        return length - HEADER_SIZE - tagLength();
+    }
+    
+    /**
+     * The body as a read-only slice of the wrapped array
+     */
+    public ByteBuffer body() {
+        return ByteBuffer.wrap(data, offset + HEADER_SIZE + tagLength(), bodyLength()).slice().asReadOnlyBuffer();
+    }
+}
\ No newline at end of file
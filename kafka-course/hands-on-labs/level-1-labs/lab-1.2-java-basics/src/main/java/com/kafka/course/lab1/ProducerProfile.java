@@ -0,0 +1,119 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Producer Tuning Profiles
+ * 
+ * Named sets of producer settings that trade throughput, latency and durability:
+ * - DURABLE: the lab defaults (small batches, acks=all, idempotence)
+ * - THROUGHPUT: large batches, longer linger and lz4 compression
+ * - LOW_LATENCY: no linger, no compression, leader-only acks
+ * 
+ * A profile can also be loaded from a properties file. The file may name a base
+ * profile with "profile=throughput" and override any producer setting on top of it.
+ */
+public enum ProducerProfile {
+    
+    DURABLE {
+        @Override
+        void apply(Properties props) {
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384); // 16KB batch size
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 1); // Wait up to 1ms for more records
+            props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432); // 32MB buffer
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy"); // Enable compression
+            props.put(ProducerConfig.ACKS_CONFIG, "all"); // Wait for all replicas
+            props.put(ProducerConfig.RETRIES_CONFIG, 3); // Retry failed sends
+            props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 100); // Backoff between retries
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true); // Exactly-once per partition
+        }
+    },
+    
+    THROUGHPUT {
+        @Override
+        void apply(Properties props) {
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, 262144); // 256KB batches
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 20); // Give batches time to fill up
+            props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 67108864); // 64MB buffer for the larger batches
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"); // Cheap compression with a good ratio
+            props.put(ProducerConfig.ACKS_CONFIG, "1"); // Leader acknowledgement only
+            props.put(ProducerConfig.RETRIES_CONFIG, 3);
+            props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 100);
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false); // Idempotence requires acks=all
+        }
+    },
+    
+    LOW_LATENCY {
+        @Override
+        void apply(Properties props) {
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 0); // Send as soon as possible
+            props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"); // No compression CPU on the send path
+            props.put(ProducerConfig.ACKS_CONFIG, "1"); // Do not wait for followers
+            props.put(ProducerConfig.RETRIES_CONFIG, 3);
+            props.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 100);
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false); // Idempotence requires acks=all
+        }
+    };
+    
+    private static final String PROFILE_KEY = "profile";
+    
+    /**
+     * Add this profile's settings to the given properties
+     */
+    abstract void apply(Properties props);
+    
+    /**
+     * The producer settings of this profile
+     */
+    public Properties toProperties() {
+        Properties props = new Properties();
+        apply(props);
+        return props;
+    }
+    
+    /**
+     * Resolve a profile name (e.g. "throughput") or the path of a properties file
+     */
+    public static Properties resolve(String nameOrFile) throws IOException {
+        ProducerProfile named = byName(nameOrFile);
+        if (named != null) {
+            return named.toProperties();
+        }
+        
+        Properties fileProps = new Properties();
+        Path path = Paths.get(nameOrFile);
+        try (InputStream in = Files.newInputStream(path)) {
+            fileProps.load(in);
+        }
+        
+        String base = fileProps.getProperty(PROFILE_KEY, DURABLE.name());
+        ProducerProfile baseProfile = byName(base);
+        if (baseProfile == null) {
+            throw new IllegalArgumentException("Unknown producer profile '" + base + "' in " + path);
+        }
+        Properties props = baseProfile.toProperties();
+        fileProps.remove(PROFILE_KEY);
+        props.putAll(fileProps);
+        return props;
+    }
+    
+    private static ProducerProfile byName(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        for (ProducerProfile profile : values()) {
+            if (profile.name().equals(normalized)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record Logger
+ * 
+ * Keeps per-record logging off the hot path of the producer and consumer:
+ * - PER_RECORD: one INFO line with key and value for every record (the original behavior)
+ * - SAMPLED: one rate-limited summary line per partition and interval (record count and
+ *   offset range), plus the full record for a configurable sample of records
+ * 
+ * The mode can be chosen at startup with -Drecord.logging=per-record|sampled and the
+ * sample rate with -Drecord.logging.sample-rate=0.01 (see {@link #fromSystemProperties}).
+ * 
+ * Errors are always logged with the full record, whatever the mode. All methods may be
+ * called from several threads at once (e.g. the workers of the parallel consumer modes).
+ * Record lines go to the logger of this class, so they can be tuned independently.
+ */
+public class RecordLogger {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RecordLogger.class);
+    private static final double DEFAULT_SAMPLE_RATE = 0.01; // Log 1 in 100 records in full
+    private static final long DEFAULT_SUMMARY_INTERVAL_MS = 5000;
+    private static final String MODE_PROPERTY = "record.logging";
+    private static final String SAMPLE_RATE_PROPERTY = "record.logging.sample-rate";
+    
+    public enum Mode {
+        PER_RECORD, SAMPLED
+    }
+    
+    /**
+     * Records seen for one partition since the last summary
+     */
+    private static class PartitionSummary {
+        
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong firstOffset = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastOffset = new AtomicLong(-1);
+        
+        void add(long offset) {
+            count.incrementAndGet();
+            firstOffset.accumulateAndGet(offset, Math::min);
+            lastOffset.accumulateAndGet(offset, Math::max);
+        }
+    }
+    
+    private final String action;
+    private final Mode mode;
+    private final long sampleEvery; // 0 = no sampled records
+    private final long summaryIntervalMs;
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong nextSummaryMs;
+    private final Map<String, Map<Integer, PartitionSummary>> summaries = new ConcurrentHashMap<>();
+    
+    private RecordLogger(String action, Mode mode, double sampleRate, long summaryIntervalMs) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.action = action;
+        this.mode = mode;
+        this.sampleEvery = sampleRate == 0 ? 0 : Math.round(1 / sampleRate);
+        this.summaryIntervalMs = summaryIntervalMs;
+        this.nextSummaryMs = new AtomicLong(System.currentTimeMillis() + summaryIntervalMs);
+    }
+    
+    /**
+     * Log every record in full; action names what happened, e.g. "Received" or "Sent"
+     */
+    public static RecordLogger perRecord(String action) {
+        return new RecordLogger(action, Mode.PER_RECORD, 1, DEFAULT_SUMMARY_INTERVAL_MS);
+    }
+    
+    /**
+     * Per-partition summaries every 5 seconds and 1% of the records in full
+     */
+    public static RecordLogger sampled(String action) {
+        return sampled(action, DEFAULT_SAMPLE_RATE, DEFAULT_SUMMARY_INTERVAL_MS);
+    }
+    
+    /**
+     * Per-partition summaries every summaryIntervalMs and the given fraction (0-1) of the
+     * records in full
+     */
+    public static RecordLogger sampled(String action, double sampleRate, long summaryIntervalMs) {
+        return new RecordLogger(action, Mode.SAMPLED, sampleRate, summaryIntervalMs);
+    }
+    
+    /**
+     * The logger selected by the record.logging and record.logging.sample-rate system
+     * properties; sampled with the default rate if they are not set
+     */
+    public static RecordLogger fromSystemProperties(String action) {
+        String mode = System.getProperty(MODE_PROPERTY, "sampled").trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        if (Mode.valueOf(mode) == Mode.PER_RECORD) {
+            return perRecord(action);
+        }
+        String sampleRate = System.getProperty(SAMPLE_RATE_PROPERTY);
+        return sampled(action, sampleRate == null ? DEFAULT_SAMPLE_RATE : Double.parseDouble(sampleRate),
+                DEFAULT_SUMMARY_INTERVAL_MS);
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    public void onRecord(ConsumerRecord<?, ?> record) {
+        onRecord(record.topic(), record.partition(), record.offset(), record.key(), record.value());
+    }
+    
+    public void onRecord(String topic, int partition, long offset, Object key, Object value) {
+        if (mode == Mode.PER_RECORD) {
+            logRecord(topic, partition, offset, key, value);
+            return;
+        }
+        
+        summaries.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(partition, p -> new PartitionSummary())
+            .add(offset);
+        if (sampleEvery > 0 && seen.incrementAndGet() % sampleEvery == 0) {
+            logRecord(topic, partition, offset, key, value);
+        }
+        
+        long next = nextSummaryMs.get();
+        long now = System.currentTimeMillis();
+        // Only the thread that moves the deadline forward writes the summaries
+        if (now >= next && nextSummaryMs.compareAndSet(next, now + summaryIntervalMs)) {
+            logSummaries();
+        }
+    }
+    
+    private void logRecord(String topic, int partition, long offset, Object key, Object value) {
+        if (logger.isInfoEnabled()) {
+            logger.info("{} message: topic={}, partition={}, offset={}, key={}, value={}",
+                       action, topic, partition, offset, key, value);
+        }
+    }
+    
+    public void onError(ConsumerRecord<?, ?> record, Exception exception) {
+        onError(record.topic(), record.partition(), record.offset(), record.key(), record.value(), exception);
+    }
+    
+    public void onError(String topic, int partition, long offset, Object key, Object value, Exception exception) {
+        logger.error("Failed record: topic={}, partition={}, offset={}, key={}, value={}",
+                    topic, partition, offset, key, value, exception);
+    }
+    
+    /**
+     * Write the summaries of the records seen since the last summary (e.g. on close)
+     */
+    public void flush() {
+        if (mode == Mode.SAMPLED) {
+            logSummaries();
+        }
+    }
+    
+    private void logSummaries() {
+        String verb = action.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Map<Integer, PartitionSummary>> topic : summaries.entrySet()) {
+            for (Map.Entry<Integer, PartitionSummary> partition : topic.getValue().entrySet()) {
+                PartitionSummary summary = partition.getValue();
+                long count = summary.count.getAndSet(0);
+                long first = summary.firstOffset.getAndSet(Long.MAX_VALUE);
+                long last = summary.lastOffset.getAndSet(-1);
+                if (count > 0) {
+                    logger.info("{}-{}: {} records {}, offsets {}..{}",
+                               topic.getKey(), partition.getKey(), count, verb, first, last);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
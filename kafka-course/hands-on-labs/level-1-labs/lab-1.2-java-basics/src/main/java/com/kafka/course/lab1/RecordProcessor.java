@@ -0,0 +1,16 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Record Processor
+ * 
+ * The business logic applied to every consumed record. Throwing an exception marks the
+ * record as failed; what happens next (log and skip, retry topic, dead-letter topic)
+ * is up to the consumer loop.
+ */
+@FunctionalInterface
+public interface RecordProcessor {
+    
+    void process(ConsumerRecord<String, String> record);
+}
\ No newline at end of file
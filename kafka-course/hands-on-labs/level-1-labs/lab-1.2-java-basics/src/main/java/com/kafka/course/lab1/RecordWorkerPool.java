@@ -0,0 +1,51 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Record Worker Pool
+ * 
+ * Common contract for the pools that process polled records off the poll thread.
+ * All methods are called from the poll thread; implementations decide how records
+ * are spread across workers and which offsets are safe to commit.
+ */
+public interface RecordWorkerPool<K, V> {
+    
+    /**
+     * Hand a partition's polled records to the workers
+     */
+    void submit(TopicPartition partition, Collection<ConsumerRecord<K, V>> records);
+    
+    /**
+     * Number of submitted records of a partition that are not fully processed yet
+     */
+    int inFlight(TopicPartition partition);
+    
+    /**
+     * Offsets that became committable since the last call, keyed by partition
+     */
+    Map<TopicPartition, OffsetAndMetadata> completedOffsets();
+    
+    /**
+     * Throw the exception of the first record whose processing failed, if any. The failed
+     * record and the records queued behind it are never reported as processed.
+     */
+    void throwIfFailed();
+    
+    /**
+     * Stop processing the given partitions and return their final committable offsets;
+     * records that have not been started are abandoned and not committed
+     */
+    Map<TopicPartition, OffsetAndMetadata> revoke(Collection<TopicPartition> partitions, long timeoutMs);
+    
+    /**
+     * Stop all workers, wait for the records in progress and return the final committable
+     * offsets; records that have not been started are abandoned and not committed
+     */
+    Map<TopicPartition, OffsetAndMetadata> shutdown(long timeoutMs);
+}
\ No newline at end of file
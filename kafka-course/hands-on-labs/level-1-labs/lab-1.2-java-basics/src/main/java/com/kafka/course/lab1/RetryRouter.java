@@ -0,0 +1,194 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Retry and Dead-Letter Router
+ * 
+ * Sends failed records to tiered retry topics and finally to a dead-letter topic instead
+ * of retrying them in place, which would stall their partition:
+ * - Tier n is the topic "<main-topic>-retry-<n>" with its own delay (e.g. 1s, 10s, 60s)
+ * - A record that fails in the main topic goes to tier 1, a record that fails in tier n
+ *   goes to tier n+1, and after the last tier to "<main-topic>-dlq"
+ * 
+ * Every routed record keeps its key, value and headers and gets failure headers:
+ * - retry.attempt: how many times the record has failed
+ * - retry.due-ms: wall-clock time at which the record may be retried (retry topics only)
+ * - failure.original-topic, failure.original-partition, failure.original-offset: where it
+ *   was first consumed (set on the first failure and kept afterwards)
+ * - failure.exception, failure.message: the exception of the latest failure
+ * 
+ * Sends are asynchronous; call {@link #flush()} before committing the offsets of routed
+ * records, so a record cannot be lost between its commit and its retry send. flush()
+ * throws if a record routed by the calling thread could not be sent: the caller must
+ * then not commit, and rewind to the routed records instead. The router can be shared by
+ * several threads (a consumer and its {@link RetryScheduler}); each one only sees the
+ * failures of its own routes.
+ */
+public class RetryRouter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RetryRouter.class);
+    static final String ATTEMPT_HEADER = "retry.attempt";
+    static final String DUE_HEADER = "retry.due-ms";
+    static final String ORIGINAL_TOPIC_HEADER = "failure.original-topic";
+    static final String ORIGINAL_PARTITION_HEADER = "failure.original-partition";
+    static final String ORIGINAL_OFFSET_HEADER = "failure.original-offset";
+    static final String EXCEPTION_HEADER = "failure.exception";
+    static final String MESSAGE_HEADER = "failure.message";
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    
+    private final BasicProducer producer;
+    private final List<String> retryTopics = new ArrayList<>();
+    private final long[] delaysMs;
+    private final String deadLetterTopic;
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong routeFailures = new AtomicLong();
+    // Per routing thread: the first send failure since that thread's last flush
+    private final ThreadLocal<AtomicReference<Exception>> sendErrors = ThreadLocal.withInitial(AtomicReference::new);
+    
+    /**
+     * @param delaysMs delay of every retry tier, in tier order
+     */
+    public RetryRouter(BasicProducer producer, String mainTopic, long... delaysMs) {
+        this.producer = producer;
+        this.delaysMs = delaysMs.clone();
+        for (int tier = 1; tier <= delaysMs.length; tier++) {
+            retryTopics.add(mainTopic + "-retry-" + tier);
+        }
+        this.deadLetterTopic = mainTopic + "-dlq";
+    }
+    
+    public List<String> getRetryTopics() {
+        return Collections.unmodifiableList(retryTopics);
+    }
+    
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+    
+    /**
+     * Send a failed record to its next retry tier, or to the dead-letter topic if it has
+     * been through all tiers
+     */
+    public void route(ConsumerRecord<String, String> record, Exception failure) {
+        int attempt = (int) longHeader(record, ATTEMPT_HEADER, 0) + 1;
+        boolean retry = attempt <= retryTopics.size();
+        String target = retry ? retryTopics.get(attempt - 1) : deadLetterTopic;
+        
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith("retry.") && !header.key().startsWith("failure.")) {
+                headers.add(header);
+            }
+        }
+        addHeader(headers, ATTEMPT_HEADER, String.valueOf(attempt));
+        if (retry) {
+            addHeader(headers, DUE_HEADER, String.valueOf(System.currentTimeMillis() + delaysMs[attempt - 1]));
+        }
+        boolean firstFailure = record.headers().lastHeader(ORIGINAL_TOPIC_HEADER) == null;
+        addHeader(headers, ORIGINAL_TOPIC_HEADER,
+                  firstFailure ? record.topic() : stringHeader(record, ORIGINAL_TOPIC_HEADER));
+        addHeader(headers, ORIGINAL_PARTITION_HEADER,
+                  firstFailure ? String.valueOf(record.partition()) : stringHeader(record, ORIGINAL_PARTITION_HEADER));
+        addHeader(headers, ORIGINAL_OFFSET_HEADER,
+                  firstFailure ? String.valueOf(record.offset()) : stringHeader(record, ORIGINAL_OFFSET_HEADER));
+        addHeader(headers, EXCEPTION_HEADER, failure.getClass().getName());
+        String message = String.valueOf(failure.getMessage());
+        addHeader(headers, MESSAGE_HEADER, message.length() > MAX_MESSAGE_LENGTH
+                  ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+        
+        AtomicReference<Exception> sendError = sendErrors.get();
+        ProducerRecord<String, String> routed =
+            new ProducerRecord<>(target, null, record.key(), record.value(), headers);
+        producer.send(routed, (metadata, exception) -> {
+            if (exception != null) {
+                sendError.compareAndSet(null, exception);
+                routeFailures.incrementAndGet();
+                logger.error("Could not send failed record {}-{}@{} to {}", record.topic(), record.partition(),
+                            record.offset(), target, exception);
+            }
+        });
+        if (retry) {
+            retried.incrementAndGet();
+            logger.debug("Record {}-{}@{} failed (attempt {}), retrying via {}", record.topic(), record.partition(),
+                        record.offset(), attempt, target);
+        } else {
+            deadLettered.incrementAndGet();
+            logger.warn("Record {}-{}@{} failed {} times, sent to {}: {}", record.topic(), record.partition(),
+                       record.offset(), attempt, target, message);
+        }
+    }
+    
+    /**
+     * Wall-clock time at which a record from a retry topic may be processed again
+     */
+    public long dueTimeMs(ConsumerRecord<String, String> record) {
+        return longHeader(record, DUE_HEADER, 0);
+    }
+    
+    /**
+     * Wait until all routed records have been acknowledged
+     * 
+     * Always flushes the producer: a send of another thread may still be in flight, and a
+     * flag of pending sends could not tell them apart.
+     * 
+     * @throws KafkaException if a record routed by this thread since its last flush was not sent
+     */
+    public void flush() {
+        producer.flush();
+        Exception error = sendErrors.get().getAndSet(null);
+        if (error != null) {
+            throw new KafkaException("Routing failed records failed, offsets must not be committed", error);
+        }
+    }
+    
+    /**
+     * Records sent to a retry topic
+     */
+    public long retried() {
+        return retried.get();
+    }
+    
+    /**
+     * Records sent to the dead-letter topic
+     */
+    public long deadLettered() {
+        return deadLettered.get();
+    }
+    
+    /**
+     * Records whose send to a retry or dead-letter topic failed
+     */
+    public long routeFailures() {
+        return routeFailures.get();
+    }
+    
+    private static void addHeader(Headers headers, String key, String value) {
+        headers.add(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String stringHeader(ConsumerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header == null ? "" : new String(header.value(), StandardCharsets.UTF_8);
+    }
+    
+    private static long longHeader(ConsumerRecord<?, ?> record, String key, long defaultValue) {
+        Header header = record.headers().lastHeader(key);
+        return header == null ? defaultValue : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry Scheduler
+ * 
+ * Re-consumes the retry topics of a {@link RetryRouter} on its own consumer and thread,
+ * so waiting for a retry never blocks the main topic:
+ * - Records in a retry topic are in due-time order (one delay per topic), so when the
+ *   first record of a partition is not yet due the partition is paused and rewound to
+ *   that record, and resumed once it is due. Other retry partitions keep going
+ * - Due records are processed with the same {@link RecordProcessor}; if they fail again
+ *   they are routed to the next tier or the dead-letter topic
+ * - Offsets are committed after every poll, once the routed records are acknowledged.
+ *   If a routed record could not be sent nothing is committed, and its partition is
+ *   rewound to it so it is retried (and routed) again
+ * 
+ * The consumer must be created with auto-commit disabled and use its own group.
+ */
+public class RetryScheduler implements Runnable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+    
+    private final Consumer<String, String> consumer;
+    private final RetryRouter router;
+    private final RecordProcessor processor;
+    private final Map<TopicPartition, Long> resumeAtMs = new HashMap<>(); // Paused partitions and their due time
+    private final AtomicLong succeeded = new AtomicLong();
+    private volatile boolean running = true;
+    
+    public RetryScheduler(Consumer<String, String> consumer, RetryRouter router, RecordProcessor processor) {
+        this.consumer = consumer;
+        this.router = router;
+        this.processor = processor;
+    }
+    
+    @Override
+    public void run() {
+        try {
+            consumer.subscribe(router.getRetryTopics(), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    try {
+                        router.flush();
+                        consumer.commitSync();
+                    } catch (KafkaException e) {
+                        // The next owner resumes from the last commit, before the records not routed
+                        logger.error("Could not route failed records, not committing revoked retry partitions", e);
+                    }
+                    resumeAtMs.keySet().removeAll(partitions);
+                }
+                
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    logger.info("Retry partitions assigned: {}", partitions);
+                }
+            });
+            
+            while (running) {
+                resumeDuePartitions();
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                if (records.isEmpty()) {
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                Map<TopicPartition, Long> firstRouted = new HashMap<>();
+                for (TopicPartition partition : records.partitions()) {
+                    for (ConsumerRecord<String, String> record : records.records(partition)) {
+                        long dueMs = router.dueTimeMs(record);
+                        if (dueMs > now) {
+                            // Not due yet: come back to this record later, the rest of the partition is even later
+                            consumer.pause(Collections.singleton(partition));
+                            consumer.seek(partition, record.offset());
+                            resumeAtMs.put(partition, dueMs);
+                            break;
+                        }
+                        if (!retry(record)) {
+                            firstRouted.putIfAbsent(partition, record.offset());
+                        }
+                    }
+                }
+                try {
+                    router.flush();
+                } catch (KafkaException e) {
+                    logger.error("Could not route failed records, retrying them again from {}", firstRouted, e);
+                    firstRouted.forEach(consumer::seek);
+                    continue;
+                }
+                consumer.commitAsync();
+            }
+        } catch (WakeupException e) {
+            logger.info("Retry scheduler wakeup requested");
+        } catch (Exception e) {
+            logger.error("Error in retry scheduler", e);
+        } finally {
+            try {
+                router.flush();
+                consumer.commitSync();
+            } catch (Exception e) {
+                logger.error("Error committing final retry offsets", e);
+            }
+            consumer.close();
+        }
+    }
+    
+    /**
+     * Process the record again; false if it failed and was routed
+     */
+    private boolean retry(ConsumerRecord<String, String> record) {
+        try {
+            processor.process(record);
+            succeeded.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            router.route(record, e);
+            return false;
+        }
+    }
+    
+    private void resumeDuePartitions() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<TopicPartition, Long>> paused = resumeAtMs.entrySet().iterator();
+        while (paused.hasNext()) {
+            Map.Entry<TopicPartition, Long> entry = paused.next();
+            if (entry.getValue() <= now) {
+                consumer.resume(Collections.singleton(entry.getKey()));
+                paused.remove();
+            }
+        }
+    }
+    
+    /**
+     * Records that succeeded on a retry
+     */
+    public long succeeded() {
+        return succeeded.get();
+    }
+    
+    /**
+     * Stop the scheduler; it commits and closes its consumer
+     */
+    public void stop() {
+        running = false;
+        consumer.wakeup();
+    }
+}
\ No newline at end of file
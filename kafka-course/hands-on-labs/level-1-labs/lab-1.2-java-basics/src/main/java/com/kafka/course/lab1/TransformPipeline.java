@@ -0,0 +1,370 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.UnsupportedVersionException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Consume-Transform-Produce Pipeline
+ * 
+ * Reads records from an input topic, transforms their values and writes them to an
+ * output topic, committing the consumed offsets in batches:
+ * - EXACTLY_ONCE: output records and consumer offsets are committed atomically in one
+ *   producer transaction (sendOffsetsToTransaction), so a crash or rebalance never
+ *   leaves output without committed input or the other way round
+ * - AT_LEAST_ONCE: output records are flushed, then offsets are committed with
+ *   commitSync(); records sent after the last commit are produced again after a failure
+ * 
+ * A transaction spans many records (see transactionRecords and transactionIntervalMs)
+ * so that its commit cost (markers on every partition and the offsets topic) is
+ * amortized. Batches are only closed between polls, so each holds at least one poll's
+ * records. The open batch is committed when partitions are revoked, so a cooperative
+ * hand-over does not produce duplicates; it is aborted when partitions are lost.
+ * 
+ * If a transaction fails it is aborted and the consumer is rewound to the last committed
+ * offsets, so the batch is processed again. A commit that times out is retried instead:
+ * its outcome is unknown and the producer rejects an abort until the commit is retried.
+ * Fencing and other fatal producer errors, and a commit that keeps timing out, are
+ * rethrown; the pipeline must then be closed and restarted.
+ * 
+ * Records with a null value (tombstones) are passed through without calling the
+ * transform. If the transform throws, the open batch is aborted and the error is rethrown.
+ * 
+ * Like the consumer it is not thread-safe; only {@link #stop()} may be called from
+ * another thread.
+ */
+public class TransformPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransformPipeline.class);
+    private static final String INPUT_TOPIC_NAME = "java-basics-topic";
+    static final String OUTPUT_TOPIC_NAME = "java-basics-topic-transformed";
+    private static final String GROUP_ID = "java-basics-pipeline";
+    private static final int TRANSACTION_RECORDS = 1000; // Records per transaction (or offset commit)
+    private static final long TRANSACTION_INTERVAL_MS = 100; // Commit a smaller batch after this long
+    private static final int COMMIT_ATTEMPTS = 3; // commitTransaction() calls before a timeout is fatal
+    private static final long METRICS_REPORT_INTERVAL_MS = 10000;
+    
+    /**
+     * Delivery guarantee of the pipeline
+     */
+    public enum Delivery {
+        AT_LEAST_ONCE,
+        EXACTLY_ONCE
+    }
+    
+    private final Consumer<String, String> consumer;
+    private final Producer<String, String> producer;
+    private final Delivery delivery;
+    private final String outputTopic;
+    private final UnaryOperator<String> transform;
+    private final int transactionRecords;
+    private final long transactionIntervalMs;
+    private final ClientMetrics metrics = new ClientMetrics("pipeline");
+    private volatile boolean running = true;
+    
+    private final Map<TopicPartition, OffsetAndMetadata> batchOffsets = new HashMap<>(); // Next offsets of the open batch
+    private final AtomicReference<Exception> sendError = new AtomicReference<>(); // First failed send (at-least-once)
+    private boolean inTransaction;
+    private int batchRecords;
+    private long batchStartNanos;
+    private long committedBatches;
+    private long abortedBatches;
+    
+    public TransformPipeline(Consumer<String, String> consumer, Producer<String, String> producer, Delivery delivery,
+                             String outputTopic, UnaryOperator<String> transform,
+                             int transactionRecords, long transactionIntervalMs) {
+        this.consumer = consumer;
+        this.producer = producer;
+        this.delivery = delivery;
+        this.outputTopic = outputTopic;
+        this.transform = transform;
+        this.transactionRecords = transactionRecords;
+        this.transactionIntervalMs = transactionIntervalMs;
+        if (delivery == Delivery.EXACTLY_ONCE) {
+            // Fences older producers with the same transactional id and aborts their open transaction
+            producer.initTransactions();
+        }
+    }
+    
+    /**
+     * Batch latency (first poll of a batch to its commit) and lag of this pipeline
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Subscribe to the input topic, committing the open batch before partitions are revoked
+     */
+    public void subscribe(String inputTopic) {
+        consumer.subscribe(Collections.singletonList(inputTopic), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                logger.info("Partitions revoked, committing open batch: {}", partitions);
+                commitBatch();
+            }
+            
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                logger.info("Partitions assigned: {}", partitions);
+            }
+            
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                // Another member may already own these partitions; committing would be rejected anyway
+                logger.warn("Partitions lost, aborting open batch: {}", partitions);
+                abortBatch();
+            }
+        });
+    }
+    
+    /**
+     * Poll once, transform and send the records and commit the batch if it is due
+     * 
+     * @return number of records processed by this poll
+     */
+    public int pollOnce() {
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+        metrics.maybeUpdateLag(consumer);
+        
+        if (!records.isEmpty()) {
+            if (batchRecords == 0) {
+                batchStartNanos = System.nanoTime();
+            }
+            if (delivery == Delivery.EXACTLY_ONCE && !inTransaction) {
+                producer.beginTransaction();
+                inTransaction = true;
+            }
+            try {
+                for (ConsumerRecord<String, String> record : records) {
+                    send(record);
+                    batchOffsets.put(new TopicPartition(record.topic(), record.partition()),
+                                     new OffsetAndMetadata(record.offset() + 1));
+                    batchRecords++;
+                }
+            } catch (RuntimeException e) {
+                // Do not leave a partly sent batch open behind a failing transform
+                logger.error("Transforming records failed, aborting batch of {} records", batchRecords, e);
+                abortBatch();
+                throw e;
+            }
+        }
+        
+        if (batchRecords >= transactionRecords
+                || (batchRecords > 0 && System.nanoTime() - batchStartNanos >= transactionIntervalMs * 1_000_000)) {
+            commitBatch();
+        }
+        return records.count();
+    }
+    
+    private void send(ConsumerRecord<String, String> record) {
+        String value = record.value() != null ? transform.apply(record.value()) : null;
+        ProducerRecord<String, String> output = new ProducerRecord<>(outputTopic, record.key(), value);
+        if (delivery == Delivery.EXACTLY_ONCE) {
+            // Send failures surface in commitTransaction()
+            producer.send(output);
+        } else {
+            producer.send(output, (metadata, exception) -> {
+                if (exception != null) {
+                    sendError.compareAndSet(null, exception);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Commit the open batch: output records and consumer offsets
+     */
+    public void commitBatch() {
+        if (batchRecords == 0) {
+            return;
+        }
+        try {
+            if (delivery == Delivery.EXACTLY_ONCE) {
+                producer.sendOffsetsToTransaction(batchOffsets, consumer.groupMetadata());
+                commitTransaction();
+                inTransaction = false;
+            } else {
+                producer.flush();
+                Exception error = sendError.getAndSet(null);
+                if (error != null) {
+                    throw new KafkaException("Send failed, offsets not committed", error);
+                }
+                consumer.commitSync(batchOffsets);
+            }
+            metrics.recordPollToCommit(System.nanoTime() - batchStartNanos, batchRecords);
+            committedBatches++;
+            clearBatch();
+        } catch (ProducerFencedException | OutOfOrderSequenceException | AuthorizationException
+                 | UnsupportedVersionException e) {
+            // Fatal: another instance took over this transactional id, or the producer is unusable
+            throw e;
+        } catch (TimeoutException e) {
+            if (inTransaction) {
+                // The transaction may still commit, and abortTransaction() would be rejected
+                throw e;
+            }
+            logger.warn("Committing batch of {} records timed out, reprocessing it: {}", batchRecords, e.getMessage());
+            abortBatch();
+        } catch (KafkaException e) {
+            logger.warn("Committing batch of {} records failed, reprocessing it: {}", batchRecords, e.getMessage());
+            abortBatch();
+        }
+    }
+    
+    /**
+     * Commit the open transaction, retrying a commit that timed out
+     */
+    private void commitTransaction() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                producer.commitTransaction();
+                return;
+            } catch (TimeoutException e) {
+                if (attempt >= COMMIT_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Committing transaction timed out (attempt {} of {}), retrying", attempt, COMMIT_ATTEMPTS);
+            }
+        }
+    }
+    
+    private void abortBatch() {
+        if (batchRecords == 0 && !inTransaction) {
+            return;
+        }
+        if (inTransaction) {
+            producer.abortTransaction();
+            inTransaction = false;
+        }
+        abortedBatches++;
+        clearBatch();
+        rewind();
+    }
+    
+    private void clearBatch() {
+        batchOffsets.clear();
+        batchRecords = 0;
+    }
+    
+    /**
+     * Seek every assigned partition back to its committed offset so the aborted batch is read again
+     */
+    private void rewind() {
+        Set<TopicPartition> assigned = consumer.assignment();
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(assigned);
+        for (TopicPartition partition : assigned) {
+            OffsetAndMetadata offset = committed.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset.offset());
+            } else {
+                consumer.seekToBeginning(Collections.singleton(partition));
+            }
+        }
+    }
+    
+    public long committedBatches() {
+        return committedBatches;
+    }
+    
+    public long abortedBatches() {
+        return abortedBatches;
+    }
+    
+    /**
+     * Run until {@link #stop()} is called, then commit the open batch
+     */
+    public void run() {
+        try {
+            while (running) {
+                pollOnce();
+            }
+        } catch (WakeupException e) {
+            logger.info("Pipeline wakeup requested");
+        }
+        commitBatch();
+    }
+    
+    /**
+     * Stop the pipeline
+     */
+    public void stop() {
+        running = false;
+        consumer.wakeup();
+    }
+    
+    /**
+     * Close both clients and release resources
+     */
+    public void close() {
+        logger.info("Closing pipeline ({} batches committed, {} aborted)...", committedBatches, abortedBatches);
+        metrics.close();
+        producer.close();
+        consumer.close();
+    }
+    
+    /**
+     * Main method to run the pipeline from java-basics-topic to java-basics-topic-transformed
+     * 
+     * Arguments: [exactly-once|at-least-once] [instance-id]; the instance id makes the
+     * transactional id unique per running instance and must stay the same across restarts.
+     */
+    public static void main(String[] args) {
+        Delivery delivery = Delivery.valueOf(
+            (args.length > 0 ? args[0] : "exactly-once").toUpperCase(Locale.ROOT).replace('-', '_'));
+        String instanceId = args.length > 1 ? args[1] : "1";
+        
+        Producer<String, String> producer = delivery == Delivery.EXACTLY_ONCE
+            ? BasicProducer.createTransactionalProducer(ProducerProfile.DURABLE.toProperties(), GROUP_ID + "-" + instanceId)
+            : BasicProducer.createProducer(ProducerProfile.DURABLE.toProperties());
+        TransformPipeline pipeline = new TransformPipeline(BasicConsumer.createPipelineConsumer(GROUP_ID), producer,
+            delivery, OUTPUT_TOPIC_NAME, value -> value.toUpperCase(Locale.ROOT),
+            TRANSACTION_RECORDS, TRANSACTION_INTERVAL_MS);
+        pipeline.getMetrics().startReporting(METRICS_REPORT_INTERVAL_MS, new LoggingMetricsReporter());
+        
+        Thread mainThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.info("Shutdown hook triggered");
+            pipeline.stop();
+            try {
+                mainThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        
+        try {
+            logger.info("=== Starting {} pipeline {} -> {} ===", delivery, INPUT_TOPIC_NAME, OUTPUT_TOPIC_NAME);
+            pipeline.subscribe(INPUT_TOPIC_NAME);
+            pipeline.run();
+        } catch (Exception e) {
+            logger.error("Pipeline error", e);
+        } finally {
+            pipeline.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.kafka.course.lab1;
+
+/**
+ * User Event
+ * 
+ * A typical JSON event sent by the typed producer and read by the typed consumer
+ * (see {@link JsonSerializer} and {@link JsonDeserializer}).
+ */
+public class UserEvent {
+    
+    private String userId;
+    private String eventType;
+    private long timestamp;
+    private int quantity;
+    private double amount;
+    private String description;
+    
+    public UserEvent() {
+    }
+    
+    public UserEvent(String userId, String eventType, long timestamp, int quantity, double amount, String description) {
+        this.userId = userId;
+        this.eventType = eventType;
+        this.timestamp = timestamp;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.description = description;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    
+    public double getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserEvent{userId=" + userId + ", eventType=" + eventType + ", timestamp=" + timestamp
+                + ", quantity=" + quantity + ", amount=" + amount + ", description=" + description + "}";
+    }
+}
\ No newline at end of file
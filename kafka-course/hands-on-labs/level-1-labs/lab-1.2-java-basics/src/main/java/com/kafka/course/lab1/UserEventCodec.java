@@ -0,0 +1,182 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.utils.ByteUtils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Compact Binary Codec for {@link UserEvent}
+ * 
+ * Wire format:
+ * - Header: one magic byte and the 4-byte schema fingerprint (CRC32 of {@link #SCHEMA})
+ * - Fields in schema order: strings as unsigned varint length + 1 (0 = null) followed by
+ *   UTF-8 bytes, integers as zig-zag varints, the amount as an 8-byte double
+ * 
+ * Every field can be skipped without decoding it, so a reader that only needs some
+ * fields jumps over the others (strings are skipped by their length prefix). Truncated or
+ * malformed records are rejected with a SerializationException, like any other record
+ * the client cannot deserialize.
+ */
+public final class UserEventCodec {
+    
+    /**
+     * Fields in wire order
+     */
+    public enum Field {
+        USER_ID, EVENT_TYPE, TIMESTAMP, QUANTITY, AMOUNT, DESCRIPTION
+    }
+    
+    static final String SCHEMA = "UserEvent(userId:string,eventType:string,timestamp:varlong,"
+            + "quantity:varint,amount:double,description:string)";
+    static final byte MAGIC = 0x1;
+    static final int FINGERPRINT = fingerprint(SCHEMA);
+    static final int HEADER_SIZE = 1 + Integer.BYTES;
+    
+    private UserEventCodec() {
+    }
+    
+    private static int fingerprint(String schema) {
+        CRC32 crc = new CRC32();
+        crc.update(schema.getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Encode an event into an exactly sized byte array
+     */
+    public static byte[] encode(UserEvent event) {
+        byte[] userId = utf8(event.getUserId());
+        byte[] eventType = utf8(event.getEventType());
+        byte[] description = utf8(event.getDescription());
+        int size = HEADER_SIZE
+                + sizeOfString(userId)
+                + sizeOfString(eventType)
+                + ByteUtils.sizeOfVarlong(event.getTimestamp())
+                + ByteUtils.sizeOfVarint(event.getQuantity())
+                + Double.BYTES
+                + sizeOfString(description);
+        
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).putInt(FINGERPRINT);
+        writeString(userId, buffer);
+        writeString(eventType, buffer);
+        ByteUtils.writeVarlong(event.getTimestamp(), buffer);
+        ByteUtils.writeVarint(event.getQuantity(), buffer);
+        buffer.putDouble(event.getAmount());
+        writeString(description, buffer);
+        return buffer.array();
+    }
+    
+    /**
+     * Decode the requested fields of an encoded event; the other fields are skipped
+     * and keep their default values
+     * 
+     * @throws SerializationException if the data is not a complete event of this schema
+     */
+    public static UserEvent decode(byte[] data, Set<Field> fields) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.get() != MAGIC) {
+            throw new SerializationException("Not a binary UserEvent record");
+        }
+        int fingerprint = buffer.getInt();
+        if (fingerprint != FINGERPRINT) {
+            throw new SerializationException(String.format(
+                    "Unknown schema fingerprint %08x, expected %08x", fingerprint, FINGERPRINT));
+        }
+        try {
+            return decodeFields(buffer, fields);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // Lengths or varints that run past the end of the record
+            throw new SerializationException("Truncated or malformed binary UserEvent record ("
+                                             + data.length + " bytes)", e);
+        }
+    }
+    
+    private static UserEvent decodeFields(ByteBuffer buffer, Set<Field> fields) {
+        UserEvent event = new UserEvent();
+        for (Field field : Field.values()) {
+            boolean wanted = fields.contains(field);
+            switch (field) {
+                case USER_ID:
+                    event.setUserId(wanted ? readString(buffer) : skipString(buffer));
+                    break;
+                case EVENT_TYPE:
+                    event.setEventType(wanted ? readString(buffer) : skipString(buffer));
+                    break;
+                case TIMESTAMP:
+                    long timestamp = ByteUtils.readVarlong(buffer);
+                    if (wanted) {
+                        event.setTimestamp(timestamp);
+                    }
+                    break;
+                case QUANTITY:
+                    int quantity = ByteUtils.readVarint(buffer);
+                    if (wanted) {
+                        event.setQuantity(quantity);
+                    }
+                    break;
+                case AMOUNT:
+                    if (wanted) {
+                        event.setAmount(buffer.getDouble());
+                    } else {
+                        buffer.position(buffer.position() + Double.BYTES);
+                    }
+                    break;
+                case DESCRIPTION:
+                    event.setDescription(wanted ? readString(buffer) : skipString(buffer));
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled field " + field);
+            }
+        }
+        return event;
+    }
+    
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int sizeOfString(byte[] bytes) {
+        return bytes == null ? 1 : ByteUtils.sizeOfUnsignedVarint(bytes.length + 1) + bytes.length;
+    }
+    
+    private static void writeString(byte[] bytes, ByteBuffer buffer) {
+        if (bytes == null) {
+            ByteUtils.writeUnsignedVarint(0, buffer);
+        } else {
+            ByteUtils.writeUnsignedVarint(bytes.length + 1, buffer);
+            buffer.put(bytes);
+        }
+    }
+    
+    private static int readLength(ByteBuffer buffer) {
+        int length = ByteUtils.readUnsignedVarint(buffer) - 1;
+        if (length < -1) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        return length;
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+    
+    private static String skipString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,377 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Windowed Aggregator
+ * 
+ * Counts and sums a value per record key over event-time windows, as a
+ * {@link RecordProcessor} stage of {@link BasicConsumer}:
+ * - Tumbling windows (advance equal to the size) or hopping windows (advance smaller than
+ *   the size, so every record falls into size / advance windows), aligned to the epoch
+ * - The watermark is the highest record timestamp seen minus the allowed lateness; a
+ *   window is emitted once the watermark has passed its end, and records whose windows
+ *   have all been closed are counted as late and dropped
+ * 
+ * Per-window state is primitive: an open-addressing table of keys with parallel long[]
+ * counts and sums, so a key costs no objects beyond the key String itself. Tables of
+ * emitted windows are cleared and reused for new windows, so once they have grown to
+ * the number of keys per window a steady stream allocates nothing per record.
+ * 
+ * Results go to a {@link ResultSink}; {@link #toTopic} sends them through a
+ * {@link BasicProducer}. State is in memory only, so the input offsets of records that
+ * still count in an open window must not be committed: every window remembers the first
+ * offset it holds per partition, and {@link #committableOffsets()} stops below them.
+ * Committing those offsets once the emitted results have been flushed (see
+ * {@link BasicConsumer#consumeWithWindows}) gives at-least-once results: after a crash
+ * the open windows are rebuilt from the input, and windows emitted after the last
+ * commit are emitted again. Offsets are tracked per partition of a single input topic.
+ * Not thread-safe, so use it with the single-threaded consumer modes.
+ */
+public class WindowedAggregator implements RecordProcessor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WindowedAggregator.class);
+    private static final int INITIAL_CAPACITY = 1024; // Keys per window before the first resize
+    private static final double MAX_LOAD_FACTOR = 0.5;
+    
+    /**
+     * Receives the result of one key in one window
+     */
+    @FunctionalInterface
+    public interface ResultSink {
+        
+        void emit(String key, long windowStartMs, long windowEndMs, long count, long sum);
+    }
+    
+    /**
+     * Counts and sums of all keys in one window
+     */
+    private static class WindowState {
+        
+        private long startMs;
+        private String[] keys = new String[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private long[] counts = new long[INITIAL_CAPACITY];
+        private long[] sums = new long[INITIAL_CAPACITY];
+        private int size;
+        private long[] firstOffsets = new long[0]; // Per partition, -1 if the window holds none of its records
+        
+        /**
+         * Remember the offset if it is the window's first record of the partition
+         */
+        void markOffset(int partition, long offset) {
+            if (partition >= firstOffsets.length) {
+                int length = firstOffsets.length;
+                firstOffsets = Arrays.copyOf(firstOffsets, partition + 1);
+                Arrays.fill(firstOffsets, length, firstOffsets.length, -1);
+            }
+            if (firstOffsets[partition] < 0) {
+                firstOffsets[partition] = offset;
+            }
+        }
+        
+        long firstOffset(int partition) {
+            return partition < firstOffsets.length ? firstOffsets[partition] : -1;
+        }
+        
+        void add(String key, int hash, long value) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && keys[slot].equals(key)) {
+                    counts[slot]++;
+                    sums[slot] += value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            counts[slot] = 1;
+            sums[slot] = value;
+            if (++size > keys.length * MAX_LOAD_FACTOR) {
+                resize();
+            }
+        }
+        
+        private void resize() {
+            String[] oldKeys = keys;
+            int[] oldHashes = hashes;
+            long[] oldCounts = counts;
+            long[] oldSums = sums;
+            int capacity = oldKeys.length * 2;
+            keys = new String[capacity];
+            hashes = new int[capacity];
+            counts = new long[capacity];
+            sums = new long[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    hashes[slot] = oldHashes[i];
+                    counts[slot] = oldCounts[i];
+                    sums[slot] = oldSums[i];
+                }
+            }
+        }
+        
+        void emit(long endMs, ResultSink sink) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    sink.emit(keys[i], startMs, endMs, counts[i], sums[i]);
+                }
+            }
+        }
+        
+        void clear() {
+            // Counts and sums are overwritten when a slot is taken again
+            Arrays.fill(keys, null);
+            Arrays.fill(firstOffsets, -1);
+            size = 0;
+        }
+    }
+    
+    private final long sizeMs;
+    private final long advanceMs;
+    private final long allowedLatenessMs;
+    private final ToLongFunction<String> valueOf;
+    private final ResultSink sink;
+    private final List<WindowState> open = new ArrayList<>(); // Ordered by start time
+    private final ArrayDeque<WindowState> free = new ArrayDeque<>(); // Emitted windows, ready for reuse
+    private long maxTimestampMs = Long.MIN_VALUE;
+    private String topic; // Input topic, from the first record
+    private long[] nextOffsets = new long[0]; // Per partition: last processed offset + 1, -1 if none
+    private long emittedWindows;
+    private long lateRecords;
+    private long unkeyedRecords;
+    private long emittedResults;
+    
+    /**
+     * @param sizeMs window size
+     * @param advanceMs distance between window starts; equal to sizeMs for tumbling windows
+     * @param allowedLatenessMs how far behind the highest timestamp seen a record may be
+     * @param valueOf the value summed per key, computed from the record value
+     */
+    public WindowedAggregator(long sizeMs, long advanceMs, long allowedLatenessMs, ToLongFunction<String> valueOf,
+                              ResultSink sink) {
+        if (advanceMs <= 0 || advanceMs > sizeMs || sizeMs % advanceMs != 0) {
+            throw new IllegalArgumentException("Advance must divide the window size: size=" + sizeMs
+                                               + ", advance=" + advanceMs);
+        }
+        this.sizeMs = sizeMs;
+        this.advanceMs = advanceMs;
+        this.allowedLatenessMs = allowedLatenessMs;
+        this.valueOf = valueOf;
+        this.sink = sink;
+    }
+    
+    /**
+     * A sink that sends every result to the output topic, keyed by the record key, with a
+     * JSON value holding the window bounds, the count and the sum
+     */
+    public static ResultSink toTopic(BasicProducer producer, String outputTopic) {
+        return (key, windowStartMs, windowEndMs, count, sum) -> {
+            String value = "{\"windowStart\":" + windowStartMs + ",\"windowEnd\":" + windowEndMs
+                + ",\"count\":" + count + ",\"sum\":" + sum + "}";
+            producer.send(new ProducerRecord<>(outputTopic, key, value), (metadata, exception) -> {
+                if (exception != null) {
+                    logger.error("Could not send window result for key {}", key, exception);
+                }
+            });
+        };
+    }
+    
+    @Override
+    public void process(ConsumerRecord<String, String> record) {
+        if (topic == null) {
+            topic = record.topic();
+        }
+        int partition = record.partition();
+        if (partition >= nextOffsets.length) {
+            int length = nextOffsets.length;
+            nextOffsets = Arrays.copyOf(nextOffsets, partition + 1);
+            Arrays.fill(nextOffsets, length, nextOffsets.length, -1);
+        }
+        add(record.key(), record.timestamp(), valueOf.applyAsLong(record.value()), partition, record.offset());
+        nextOffsets[partition] = record.offset() + 1;
+    }
+    
+    /**
+     * Add a value for a key at the given event time, then emit every window the watermark has passed
+     */
+    public void add(String key, long timestampMs, long value) {
+        add(key, timestampMs, value, -1, -1);
+    }
+    
+    private void add(String key, long timestampMs, long value, int partition, long offset) {
+        if (key == null) {
+            unkeyedRecords++;
+            return;
+        }
+        if (timestampMs > maxTimestampMs) {
+            maxTimestampMs = timestampMs;
+        }
+        long watermarkMs = maxTimestampMs - allowedLatenessMs;
+        
+        // Windows containing the timestamp start at most sizeMs - advanceMs before its own window
+        int hash = mixHash(key.hashCode());
+        long lastStart = Math.floorDiv(timestampMs, advanceMs) * advanceMs;
+        boolean added = false;
+        for (long start = lastStart - sizeMs + advanceMs; start <= lastStart; start += advanceMs) {
+            if (start + sizeMs > watermarkMs) { // Otherwise closed (and emitted) already
+                WindowState window = window(start);
+                window.add(key, hash, value);
+                if (partition >= 0) {
+                    window.markOffset(partition, offset);
+                }
+                added = true;
+            }
+        }
+        if (!added) {
+            lateRecords++;
+        }
+        emitClosedWindows(watermarkMs);
+    }
+    
+    private WindowState window(long startMs) {
+        // Few windows are open at a time, and new ones are usually the latest
+        int index = open.size();
+        while (index > 0 && open.get(index - 1).startMs >= startMs) {
+            if (open.get(index - 1).startMs == startMs) {
+                return open.get(index - 1);
+            }
+            index--;
+        }
+        WindowState window = free.isEmpty() ? new WindowState() : free.poll();
+        window.startMs = startMs;
+        open.add(index, window);
+        return window;
+    }
+    
+    private void emitClosedWindows(long watermarkMs) {
+        while (!open.isEmpty() && open.get(0).startMs + sizeMs <= watermarkMs) {
+            emit(open.remove(0));
+        }
+    }
+    
+    private void emit(WindowState window) {
+        long endMs = window.startMs + sizeMs;
+        window.emit(endMs, sink);
+        emittedResults += window.size;
+        emittedWindows++;
+        logger.debug("Emitted window [{}, {}) with {} keys", window.startMs, endMs, window.size);
+        window.clear();
+        free.add(window);
+    }
+    
+    /**
+     * Emit all open windows, e.g. before shutting down
+     */
+    public void flush() {
+        while (!open.isEmpty()) {
+            emit(open.remove(0));
+        }
+    }
+    
+    /**
+     * Input offsets that are safe to commit once the emitted results have been flushed:
+     * per partition the next offset to process, or the first offset still held by an open
+     * window if that is lower
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (int partition = 0; partition < nextOffsets.length; partition++) {
+            long offset = nextOffsets[partition];
+            if (offset < 0) {
+                continue;
+            }
+            for (WindowState window : open) {
+                long first = window.firstOffset(partition);
+                if (first >= 0 && first < offset) {
+                    offset = first;
+                }
+            }
+            offsets.put(new TopicPartition(topic, partition), new OffsetAndMetadata(offset));
+        }
+        return offsets;
+    }
+    
+    /**
+     * Stop tracking the offsets of partitions that are no longer assigned
+     * 
+     * Their records stay in the open windows; the new owner reads them again from the
+     * committed offset, so they may be counted twice.
+     */
+    public void forget(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            int index = partition.partition();
+            if (index < nextOffsets.length) {
+                nextOffsets[index] = -1;
+            }
+            for (WindowState window : open) {
+                if (index < window.firstOffsets.length) {
+                    window.firstOffsets[index] = -1;
+                }
+            }
+        }
+    }
+    
+    private static int mixHash(int hash) {
+        // String hash codes of similar keys differ in the low bits only; spread them out
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Windows currently open
+     */
+    public int openWindows() {
+        return open.size();
+    }
+    
+    /**
+     * Records dropped because all their windows had already been closed
+     */
+    public long lateRecords() {
+        return lateRecords;
+    }
+    
+    /**
+     * Records dropped because they have no key
+     */
+    public long unkeyedRecords() {
+        return unkeyedRecords;
+    }
+    
+    /**
+     * Windows emitted so far
+     */
+    public long emittedWindows() {
+        return emittedWindows;
+    }
+    
+    /**
+     * Key-window results emitted so far
+     */
+    public long emittedResults() {
+        return emittedResults;
+    }
+}
\ No newline at end of file
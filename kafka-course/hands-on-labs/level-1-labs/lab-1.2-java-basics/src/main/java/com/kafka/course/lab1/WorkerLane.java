@@ -0,0 +1,147 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Worker Lane
+ * 
+ * A queue of records processed one at a time, in the order they were added, on a
+ * shared thread pool:
+ * - At most one worker runs a lane at any time, so the lane needs no further locking
+ * - A worker yields after MAX_RECORDS_PER_TURN records so other lanes get a turn
+ * - Every record is passed to the completion callback once it is processed, which is
+ *   where the pools do their offset bookkeeping
+ * - When the handler throws, the lane stops: the failed record and the records queued
+ *   behind it are never passed to the completion callback, so their offsets are never
+ *   committed, and the exception is kept for the poll thread ({@link #failure()})
+ * 
+ * Used by {@link PartitionWorkerPool} (one lane per partition) and {@link KeyOrderedWorkerPool}
+ * (a fixed number of key lanes per partition).
+ */
+class WorkerLane<K, V> implements Runnable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WorkerLane.class);
+    private static final int MAX_RECORDS_PER_TURN = 100; // Yield the worker thread so other lanes get a turn
+    
+    private final ExecutorService executor;
+    private final Consumer<ConsumerRecord<K, V>> handler;
+    private final Consumer<ConsumerRecord<K, V>> onProcessed;
+    private final Queue<ConsumerRecord<K, V>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile RuntimeException failure;
+    private boolean abandoned; // Guarded by this
+    
+    WorkerLane(ExecutorService executor, Consumer<ConsumerRecord<K, V>> handler,
+               Consumer<ConsumerRecord<K, V>> onProcessed) {
+        this.executor = executor;
+        this.handler = handler;
+        this.onProcessed = onProcessed;
+    }
+    
+    /**
+     * Fixed pool of daemon worker threads named threadPrefix-1, threadPrefix-2, ...
+     */
+    static ExecutorService newExecutor(int maxWorkers, String threadPrefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxWorkers, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    void add(ConsumerRecord<K, V> record) {
+        pending.add(record);
+    }
+    
+    void addAll(Collection<ConsumerRecord<K, V>> records) {
+        pending.addAll(records);
+    }
+    
+    /**
+     * Stop the lane and abandon the records that have not been started: they are neither
+     * processed nor reported as processed. The one in progress still completes.
+     */
+    synchronized void abandon() {
+        // Under the lock: a worker polling while the queue is being cleared could otherwise
+        // pick a record further down the queue and skip the ones before it
+        abandoned = true;
+        pending.clear();
+    }
+    
+    private synchronized ConsumerRecord<K, V> next() {
+        return abandoned ? null : pending.poll();
+    }
+    
+    /**
+     * Exception thrown by the handler that stopped this lane, or null
+     */
+    RuntimeException failure() {
+        return failure;
+    }
+    
+    void schedule() {
+        if (failure == null && !pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+    
+    @Override
+    public void run() {
+        try {
+            ConsumerRecord<K, V> record;
+            int processed = 0;
+            while (processed < MAX_RECORDS_PER_TURN && (record = next()) != null) {
+                try {
+                    handler.accept(record);
+                } catch (RuntimeException e) {
+                    logger.error("Error processing record, stopping its lane: partition={}, offset={}, key={}",
+                               record.partition(), record.offset(), record.key(), e);
+                    failure = e;
+                    abandon();
+                    break;
+                }
+                onProcessed.accept(record);
+                processed++;
+            }
+        } finally {
+            synchronized (this) {
+                scheduled.set(false);
+                notifyAll();
+            }
+            // Records may have arrived between the last poll() and clearing the flag
+            schedule();
+        }
+    }
+    
+    /**
+     * Wait until no worker runs this lane; false if the deadline passed first
+     */
+    synchronized boolean awaitIdle(long deadlineNanos) {
+        while (scheduled.get()) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMs <= 0) {
+                return false;
+            }
+            try {
+                wait(remainingMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Adaptive Batching Benchmark
+ * 
+ * Drives a low, a peak and again a low load phase through {@link OpenLoopLoadGenerator}
+ * and compares fixed batching with an {@link AdaptiveBatchingProducer}:
+ * - small: 16KB batches, linger.ms=1 (the lab defaults) for the whole run
+ * - large: 256KB batches, linger.ms=20 for the whole run
+ * - adaptive: starts small and moves between the levels as the load changes
+ * 
+ * Each mode keeps one producer for all phases. Per phase the table shows the achieved
+ * records/s (acknowledged records over the time until the last ack, so a producer that
+ * falls behind shows lower throughput) and response latency from the scheduled send time.
+ * The goal for adaptive: the throughput of large at peak and the p99 of small at low load.
+ * 
+ * Arguments: [target] [low-rate] [peak-rate] [seconds-per-phase] [value-bytes]
+ * - target: bootstrap servers, or mock[:request-us[:ns-per-byte]] for a
+ *   {@link BatchingMockProducer} (default mock:2000:2, a 2ms request plus 2ns per byte)
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.AdaptiveBatchingBenchmark" \
+ *   -Dexec.args="localhost:9092 2000 100000 30 512"
+ */
+public class AdaptiveBatchingBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchingBenchmark.class);
+    private static final long EVALUATE_INTERVAL_MS = 1000;
+    private static final String[] MODES = {"small", "large", "adaptive"};
+    
+    private static Function<Properties, Producer<String, String>> clientFactory(String target) {
+        if (target.startsWith("mock")) {
+            String[] parts = target.split(":");
+            long requestMicros = parts.length > 1 ? Long.parseLong(parts[1]) : 2000;
+            double nanosPerByte = parts.length > 2 ? Double.parseDouble(parts[2]) : 2;
+            return props -> BatchingMockProducer.fromConfig(props, requestMicros, nanosPerByte);
+        }
+        return props -> {
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+            return BasicProducer.createProducer(props);
+        };
+    }
+    
+    private static Producer<String, String> createClient(String mode,
+                                                         Function<Properties, Producer<String, String>> factory) {
+        Properties tuning = ProducerProfile.DURABLE.toProperties();
+        switch (mode) {
+            case "small":
+                return factory.apply(AdaptiveBatchingProducer.levelProperties(tuning, 0));
+            case "large":
+                int largest = AdaptiveBatchingProducer.levels() - 1;
+                return factory.apply(AdaptiveBatchingProducer.levelProperties(tuning, largest));
+            default:
+                return new AdaptiveBatchingProducer(tuning, factory, EVALUATE_INTERVAL_MS);
+        }
+    }
+    
+    private static String level(Producer<String, String> client) {
+        return client instanceof AdaptiveBatchingProducer
+            ? String.valueOf(((AdaptiveBatchingProducer) client).getLevel()) : "-";
+    }
+    
+    public static void main(String[] args) throws InterruptedException, FileNotFoundException {
+        String target = args.length > 0 ? args[0] : "mock";
+        double lowRate = args.length > 1 ? Double.parseDouble(args[1]) : 2000;
+        double peakRate = args.length > 2 ? Double.parseDouble(args[2]) : 30000;
+        long phaseMs = TimeUnit.SECONDS.toMillis(args.length > 3 ? Long.parseLong(args[3]) : 15);
+        int valueBytes = args.length > 4 ? Integer.parseInt(args[4]) : 512;
+        Function<Properties, Producer<String, String>> factory = clientFactory(target);
+        String[] phases = {"low", "peak", "low"};
+        double[] rates = {lowRate, peakRate, lowRate};
+        
+        // Warm up (class loading, JIT) with a short adaptive run
+        BasicProducer warmUp = new BasicProducer(createClient("adaptive", factory));
+        new OpenLoopLoadGenerator(warmUp).run(peakRate, phaseMs / 3, valueBytes, new HistogramLogWriter(
+            new File("target/adaptive-batching-warm-up.hlog")));
+        warmUp.close();
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-10s %-6s %10s %12s %10s %10s %10s %8s%n",
+                "mode", "phase", "rate", "records/s", "p50 ms", "p99 ms", "max ms", "level"));
+        for (String mode : MODES) {
+            Producer<String, String> client = createClient(mode, factory);
+            BasicProducer producer = new BasicProducer(client);
+            HistogramLogWriter log = new HistogramLogWriter(new File("target/adaptive-batching-" + mode + ".hlog"));
+            try {
+                for (int phase = 0; phase < phases.length; phase++) {
+                    OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(producer);
+                    long start = System.nanoTime();
+                    generator.run(rates[phase], phaseMs, valueBytes, log);
+                    double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                    Histogram response = generator.getResponseMicros();
+                    report.append(String.format("%-10s %-6s %10.0f %12.0f %10.2f %10.2f %10.2f %8s%n",
+                            mode, phases[phase], rates[phase], response.getTotalCount() / elapsedSeconds,
+                            response.getValueAtPercentile(50) / 1000.0, response.getValueAtPercentile(99) / 1000.0,
+                            response.getMaxValue() / 1000.0, level(client)));
+                }
+            } finally {
+                producer.close();
+                log.close();
+            }
+        }
+        
+        logger.info("Batching against {} ({}s per phase, {} byte values):{}",
+                   target, TimeUnit.MILLISECONDS.toSeconds(phaseMs), valueBytes, report);
+    }
+}
\ No newline at end of file
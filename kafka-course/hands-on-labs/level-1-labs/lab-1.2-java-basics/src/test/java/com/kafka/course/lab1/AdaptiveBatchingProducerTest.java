@@ -0,0 +1,124 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Adaptive Batching Producer Test
+ * 
+ * Client rotation of {@link AdaptiveBatchingProducer} over {@link BatchingMockProducer}
+ * clients, whose callbacks run on their own sender thread like those of the real producer.
+ * Each test closes the producer itself: after a deadlock, closing it in an @After method
+ * would hang the whole run instead of failing the timed-out test.
+ */
+public class AdaptiveBatchingProducerTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final long EVALUATE_INTERVAL_MS = 60000; // Moves are only made by the test
+    private static final long REQUEST_MICROS = 100000; // Slow enough that records are still in flight at a move
+    private static final long RECORD_REQUEST_MICROS = 20000; // One record per request in the ordering test
+    private static final int PARTITIONS = 2;
+    private static final int RECORDS = 5; // Per partition and phase
+    
+    private AdaptiveBatchingProducer producer;
+    
+    @Before
+    public void setUp() {
+        producer = new AdaptiveBatchingProducer(new Properties(),
+            props -> BatchingMockProducer.fromConfig(props, REQUEST_MICROS, 0), EVALUATE_INTERVAL_MS);
+    }
+    
+    @Test(timeout = 10000)
+    public void callbackThatSendsDoesNotBlockMove() throws Exception {
+        CompletableFuture<Future<RecordMetadata>> forwarded = new CompletableFuture<>();
+        producer.send(new ProducerRecord<>(TOPIC_NAME, "key", "value"), (metadata, exception) ->
+            forwarded.complete(producer.send(new ProducerRecord<>(TOPIC_NAME, "key", "forwarded"))));
+        
+        producer.move(1);
+        
+        assertEquals(1, producer.getLevel());
+        assertNotNull(forwarded.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+        producer.close();
+    }
+    
+    @Test(timeout = 10000)
+    public void flushWaitsForEveryClient() throws Exception {
+        Future<RecordMetadata> first = producer.send(new ProducerRecord<>(TOPIC_NAME, "key", "first"));
+        producer.move(1);
+        Future<RecordMetadata> second = producer.send(new ProducerRecord<>(TOPIC_NAME, "key", "second"));
+        
+        producer.flush();
+        
+        assertEquals(1, producer.moves());
+        first.get(0, TimeUnit.MILLISECONDS);
+        second.get(0, TimeUnit.MILLISECONDS);
+        producer.close();
+    }
+    
+    /**
+     * Send a record that notes its acknowledgement; records sent before a move are forwarded
+     * again from their callback
+     */
+    private void send(int partition, String value, Map<Integer, List<String>> acked) {
+        producer.send(new ProducerRecord<>(TOPIC_NAME, partition, "key", value), (metadata, exception) -> {
+            acked.computeIfAbsent(partition, p -> new CopyOnWriteArrayList<>()).add(value);
+            if (value.startsWith("before-")) {
+                send(partition, value.replace("before-", "forwarded-"), acked);
+            }
+        });
+    }
+    
+    @Test(timeout = 10000)
+    public void recordsKeepTheirPartitionOrderAcrossMove() throws Exception {
+        producer.close();
+        // One record per request: the old client still has a queue when the new one takes over
+        producer = new AdaptiveBatchingProducer(new Properties(),
+            props -> new BatchingMockProducer(1, 0, RECORD_REQUEST_MICROS, 0), EVALUATE_INTERVAL_MS);
+        Map<Integer, List<String>> acked = new ConcurrentHashMap<>();
+        for (int i = 0; i < RECORDS; i++) {
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                send(partition, "before-" + i, acked);
+            }
+        }
+        
+        Thread mover = new Thread(() -> producer.move(1));
+        mover.start();
+        while (producer.getLevel() != 1) {
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < RECORDS; i++) {
+            for (int partition = 0; partition < PARTITIONS; partition++) {
+                send(partition, "after-" + i, acked);
+            }
+        }
+        mover.join();
+        producer.flush();
+        
+        // Nothing sent after the swap overtook a record of the old client, forwarded ones included
+        List<String> expected = new ArrayList<>();
+        for (String phase : new String[] {"before-", "forwarded-", "after-"}) {
+            for (int i = 0; i < RECORDS; i++) {
+                expected.add(phase + i);
+            }
+        }
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            assertEquals("Partition " + partition, expected, acked.get(partition));
+        }
+        producer.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Backpressure Soak Test
+ * 
+ * Runs {@link BasicConsumer#consumeMessagesInParallel(int)} against a {@link MockConsumer}
+ * that can always deliver another poll worth of records, while processing is much slower
+ * than fetching. On every poll the feeder samples:
+ * - Records fetched but not processed yet, per partition
+ * - Which partitions are paused, and whether paused partitions are resumed
+ * - The gap since the previous poll() call
+ * 
+ * With backpressure each partition buffers at most the high-water mark plus one poll
+ * (see {@link BackpressureController}); without it the buffer grows with every fetch.
+ */
+public class BackpressureSoakTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITION_COUNT = 4;
+    private static final int WORKERS = 4;
+    private static final int MAX_POLL_RECORDS = 100; // Records one poll hands out over the fetchable partitions
+    private static final long FETCH_INTERVAL_MS = 10; // Broker can hand out a full poll every 10ms
+    private static final long PROCESSING_TIME_MS = 1; // 1000 records/s per partition, fetching is 10x faster
+    private static final int HIGH_WATERMARK = 200;
+    private static final int LOW_WATERMARK = 50;
+    private static final long SOAK_MS = 2000;
+    private static final long MAX_POLL_INTERVAL_MS = 300000; // Same as createConsumer()
+    
+    /**
+     * Feeds the mock like a broker would: every poll may fetch up to max.poll.records
+     * from the partitions that are not paused. Runs on the poll thread.
+     */
+    private static class Feeder implements Runnable {
+        
+        private final MockConsumer<String, String> mockConsumer;
+        private final List<TopicPartition> partitions = new ArrayList<>();
+        private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        private final AtomicLongArray processed = new AtomicLongArray(PARTITION_COUNT);
+        private final boolean[] wasPaused = new boolean[PARTITION_COUNT];
+        private final int[] resumes = new int[PARTITION_COUNT];
+        private long lastPollNanos;
+        private long lastFetchNanos;
+        private long maxBuffered;
+        private long maxPollGapMs;
+        
+        Feeder(MockConsumer<String, String> mockConsumer) {
+            this.mockConsumer = mockConsumer;
+            for (int p = 0; p < PARTITION_COUNT; p++) {
+                TopicPartition partition = new TopicPartition(TOPIC_NAME, p);
+                partitions.add(partition);
+                nextOffsets.put(partition, 0L);
+            }
+        }
+        
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            if (lastPollNanos == 0) {
+                mockConsumer.rebalance(partitions);
+                mockConsumer.updateBeginningOffsets(new HashMap<>(nextOffsets));
+            } else {
+                maxPollGapMs = Math.max(maxPollGapMs, (now - lastPollNanos) / 1_000_000);
+            }
+            lastPollNanos = now;
+            
+            Set<TopicPartition> paused = mockConsumer.paused();
+            for (TopicPartition partition : partitions) {
+                int p = partition.partition();
+                maxBuffered = Math.max(maxBuffered, nextOffsets.get(partition) - processed.get(p));
+                boolean isPaused = paused.contains(partition);
+                if (wasPaused[p] && !isPaused) {
+                    resumes[p]++;
+                }
+                wasPaused[p] = isPaused;
+            }
+            
+            if (now - lastFetchNanos >= FETCH_INTERVAL_MS * 1_000_000) {
+                lastFetchNanos = now;
+                List<TopicPartition> fetchable = new ArrayList<>(partitions);
+                fetchable.removeAll(paused);
+                for (int i = 0; !fetchable.isEmpty() && i < MAX_POLL_RECORDS; i++) {
+                    TopicPartition partition = fetchable.get(i % fetchable.size());
+                    long offset = nextOffsets.get(partition);
+                    mockConsumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, partition.partition(), offset,
+                        "key-" + offset, "value-" + offset));
+                    nextOffsets.put(partition, offset + 1);
+                }
+            }
+            
+            // Keep feeding on every poll
+            mockConsumer.schedulePollTask(this);
+        }
+    }
+    
+    private static Feeder soak(boolean backpressure, long durationMs) throws InterruptedException {
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        Feeder feeder = new Feeder(mockConsumer);
+        mockConsumer.schedulePollTask(feeder);
+        
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, PROCESSING_TIME_MS);
+        consumer.setRecordProcessor(record -> feeder.processed.incrementAndGet(record.partition()));
+        consumer.setCommitCadence(100, Integer.MAX_VALUE);
+        if (backpressure) {
+            consumer.setBackpressure(HIGH_WATERMARK, LOW_WATERMARK);
+        } else {
+            consumer.setBackpressure(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        Thread pollThread = new Thread(() -> consumer.consumeMessagesInParallel(WORKERS), "soak-poll");
+        pollThread.start();
+        
+        Thread.sleep(durationMs);
+        consumer.stop();
+        pollThread.join(); // Also publishes the feeder's samples to this thread
+        return feeder;
+    }
+    
+    @Test(timeout = 60000)
+    public void backpressureBoundsBufferAndKeepsPolling() throws InterruptedException {
+        Feeder feeder = soak(true, SOAK_MS);
+        
+        assertTrue("Buffered " + feeder.maxBuffered + " records in a partition",
+                   feeder.maxBuffered <= HIGH_WATERMARK + MAX_POLL_RECORDS);
+        for (int p = 0; p < PARTITION_COUNT; p++) {
+            assertTrue("Partition " + p + " was never resumed", feeder.resumes[p] > 0);
+            assertTrue("Partition " + p + " stopped processing after a pause",
+                       feeder.processed.get(p) > HIGH_WATERMARK);
+        }
+        assertTrue("Poll gap of " + feeder.maxPollGapMs + " ms", feeder.maxPollGapMs < MAX_POLL_INTERVAL_MS);
+    }
+    
+    @Test(timeout = 60000)
+    public void withoutBackpressureBufferGrowsPastBound() throws InterruptedException {
+        // Guards the test above: the same load overruns the bound when nothing pauses
+        Feeder feeder = soak(false, SOAK_MS / 4);
+        
+        assertTrue("Buffered only " + feeder.maxBuffered + " records in a partition",
+                   feeder.maxBuffered > HIGH_WATERMARK + MAX_POLL_RECORDS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Mock Producer With Simulated Batching
+ * 
+ * A MockProducer that batches and sends like a producer on a single connection, so
+ * batch.size and linger.ms can be compared and tuned without a broker:
+ * - Records are appended to an open batch, which is closed when the next record would
+ *   not fit into batch.size bytes or when it is linger.ms old
+ * - One request is in flight at a time: a closed batch is acknowledged after a fixed
+ *   request time plus a cost per byte. Small batches therefore cap the throughput
+ *   (records pile up behind the request in flight) and a long linger adds latency
+ * - batch-size-avg (bytes) and record-queue-time-avg (ms, from send until the batch
+ *   is sent) are reported by metrics() under the real producer's names, averaged over
+ *   the last second
+ * 
+ * Acknowledgements complete in send order on the sender thread, on which the callbacks
+ * run. flush() and close() wait for every record sent before them, as with a real
+ * producer. Like {@link DelayedMockProducer} this keeps every sent record in the
+ * MockProducer history, so it is meant for runs of a few million records at most.
+ */
+public class BatchingMockProducer extends MockProducer<String, String> {
+    
+    private static final String METRICS_GROUP = "producer-metrics";
+    private static final long METRICS_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long requestNanos;
+    private final double nanosPerByte;
+    private final ArrayDeque<Batch> closedBatches = new ArrayDeque<>();
+    private Batch openBatch;
+    private long unacknowledged;
+    private boolean running = true;
+    private long windowStartNanos = System.nanoTime(); // Metrics window, sender thread only
+    private long windowBatches;
+    private long windowBytes;
+    private long windowRecords;
+    private long windowQueueNanos;
+    private volatile double batchSizeAvg = Double.NaN;
+    private volatile double recordQueueTimeAvg = Double.NaN;
+    
+    /**
+     * Records sent as one request
+     */
+    private static class Batch {
+        
+        private final long createdNanos;
+        private int records;
+        private long bytes;
+        private long enqueueNanosSum; // For the queue time of all records at once
+        
+        Batch(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+    }
+    
+    /**
+     * Reports a value computed by the producer
+     */
+    private static class SuppliedMetric implements Metric {
+        
+        private final MetricName name;
+        private final DoubleSupplier value;
+        
+        SuppliedMetric(String name, DoubleSupplier value) {
+            this.name = new MetricName(name, METRICS_GROUP, "", Collections.emptyMap());
+            this.value = value;
+        }
+        
+        @Override
+        public MetricName metricName() {
+            return name;
+        }
+        
+        @Override
+        public Object metricValue() {
+            return value.getAsDouble();
+        }
+    }
+    
+    /**
+     * @param requestMicros time a request takes regardless of its size (round trip, replication)
+     * @param nanosPerByte additional time per byte of the request
+     */
+    public BatchingMockProducer(int batchSize, long lingerMs, long requestMicros, double nanosPerByte) {
+        super(false, new StringSerializer(), new StringSerializer());
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.requestNanos = TimeUnit.MICROSECONDS.toNanos(requestMicros);
+        this.nanosPerByte = nanosPerByte;
+        addMetric(new SuppliedMetric("batch-size-avg", () -> batchSizeAvg));
+        addMetric(new SuppliedMetric("record-queue-time-avg", () -> recordQueueTimeAvg));
+        Thread sender = new Thread(this::sendBatches, "mock-producer-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+    
+    /**
+     * Create a mock producer with the batch.size and linger.ms of the given producer settings
+     * (16KB and 0ms if not set, the client defaults)
+     */
+    public static BatchingMockProducer fromConfig(Properties props, long requestMicros, double nanosPerByte) {
+        int batchSize = Integer.parseInt(String.valueOf(props.getOrDefault(ProducerConfig.BATCH_SIZE_CONFIG, 16384)));
+        long lingerMs = Long.parseLong(String.valueOf(props.getOrDefault(ProducerConfig.LINGER_MS_CONFIG, 0)));
+        return new BatchingMockProducer(batchSize, lingerMs, requestMicros, nanosPerByte);
+    }
+    
+    private void addMetric(Metric metric) {
+        setMockMetrics(metric.metricName(), metric);
+    }
+    
+    @Override
+    public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        Future<RecordMetadata> future = super.send(record, callback);
+        long now = System.nanoTime();
+        int size = (record.key() == null ? 0 : record.key().length()) + record.value().length();
+        if (openBatch != null && openBatch.bytes + size > batchSize) {
+            closeOpenBatch();
+        }
+        if (openBatch == null) {
+            openBatch = new Batch(now);
+        }
+        openBatch.records++;
+        openBatch.bytes += size;
+        openBatch.enqueueNanosSum += now;
+        unacknowledged++;
+        notifyAll();
+        return future;
+    }
+    
+    private void closeOpenBatch() {
+        closedBatches.add(openBatch);
+        openBatch = null;
+    }
+    
+    /**
+     * Wait for the next batch to send: a closed one, or the open one once its linger has passed
+     */
+    private synchronized Batch nextBatch() throws InterruptedException {
+        while (running) {
+            if (!closedBatches.isEmpty()) {
+                return closedBatches.poll();
+            }
+            if (openBatch == null) {
+                wait();
+                continue;
+            }
+            long remaining = openBatch.createdNanos + lingerNanos - System.nanoTime();
+            if (remaining <= 0) {
+                closeOpenBatch();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return null;
+    }
+    
+    private void sendBatches() {
+        try {
+            Batch batch;
+            while ((batch = nextBatch()) != null) {
+                long sentNanos = System.nanoTime();
+                long doneNanos = sentNanos + requestNanos + (long) (batch.bytes * nanosPerByte);
+                while (System.nanoTime() < doneNanos) {
+                    LockSupport.parkNanos(doneNanos - System.nanoTime());
+                }
+                synchronized (this) {
+                    for (int i = 0; i < batch.records; i++) {
+                        completeNext();
+                    }
+                    unacknowledged -= batch.records;
+                    notifyAll();
+                }
+                updateMetrics(batch, sentNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void updateMetrics(Batch batch, long sentNanos) {
+        windowBatches++;
+        windowBytes += batch.bytes;
+        windowRecords += batch.records;
+        windowQueueNanos += batch.records * sentNanos - batch.enqueueNanosSum;
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= METRICS_WINDOW_NANOS) {
+            batchSizeAvg = (double) windowBytes / windowBatches;
+            recordQueueTimeAvg = windowQueueNanos / 1_000_000.0 / windowRecords;
+            windowStartNanos = now;
+            windowBatches = 0;
+            windowBytes = 0;
+            windowRecords = 0;
+            windowQueueNanos = 0;
+        }
+    }
+    
+    /**
+     * Send the open batch without waiting for its linger and wait until every record sent
+     * so far has been acknowledged
+     */
+    @Override
+    public synchronized void flush() {
+        if (openBatch != null) {
+            closeOpenBatch();
+            notifyAll();
+        }
+        try {
+            while (unacknowledged > 0 && running) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public void close(Duration timeout) {
+        flush();
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        super.close(timeout);
+    }
+}
\ No newline at end of file
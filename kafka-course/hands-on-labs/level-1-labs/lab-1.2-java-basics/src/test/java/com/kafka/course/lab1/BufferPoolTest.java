@@ -0,0 +1,56 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Buffer Pool Test
+ * 
+ * Pooled payload buffers sent by {@link BasicProducer#sendPayloads} to a MockProducer,
+ * which keeps every sent buffer as it is: a buffer reused before its record was
+ * acknowledged would show up in the history with another record's payload.
+ */
+public class BufferPoolTest {
+    
+    private static final String TOPIC_NAME = "java-basics-payloads";
+    private static final int BUFFER_SIZE = 256;
+    private static final int PAYLOADS = 20;
+    
+    private static MockProducer<byte[], ByteBuffer> payloadProducer(boolean autoComplete) {
+        return new MockProducer<>(autoComplete, new ByteArraySerializer(), new ByteBufferSerializer());
+    }
+    
+    @Test
+    public void buffersAreNotReusedBeforeTheirRecordIsAcknowledged() {
+        MockProducer<byte[], ByteBuffer> producer = payloadProducer(false);
+        BufferPool pool = new BufferPool(BUFFER_SIZE, PAYLOADS);
+        
+        BasicProducer.sendPayloads(producer, TOPIC_NAME, PAYLOADS, pool);
+        
+        // Nothing was acknowledged before the final flush, so every record got a buffer of its own
+        List<ProducerRecord<byte[], ByteBuffer>> sent = producer.history();
+        assertEquals(PAYLOADS, sent.size());
+        for (int i = 0; i < PAYLOADS; i++) {
+            assertEquals(i, sent.get(i).value().getLong(PayloadView.SEQUENCE_OFFSET));
+        }
+        assertEquals(PAYLOADS, pool.allocated());
+    }
+    
+    @Test
+    public void acknowledgedBuffersAreReused() {
+        BufferPool pool = new BufferPool(BUFFER_SIZE, PAYLOADS);
+        
+        // Acknowledged inside send(): the buffer is back before the next payload is written
+        BasicProducer.sendPayloads(payloadProducer(true), TOPIC_NAME, PAYLOADS, pool);
+        
+        assertEquals(1, pool.allocated());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Checkpoint Store Test
+ * 
+ * Reopens {@link CheckpointStore} files after a torn last entry, after an entry damaged in
+ * the middle of the file, and after compactions, and checks the entry size limit.
+ */
+public class CheckpointStoreTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC_NAME, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC_NAME, 1);
+    private static final int CAPACITY = 100 * 1024; // Room for one maximum entry after compacting a few partitions
+    private static final int RESULT_SIZE = 100;
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES + Short.BYTES + TOPIC_NAME.length() + Integer.BYTES
+        + Long.BYTES + RESULT_SIZE;
+    private static final int NO_PERIODIC_SYNC = Integer.MAX_VALUE;
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private static byte[] result(long nextOffset) {
+        byte[] result = new byte[RESULT_SIZE];
+        Arrays.fill(result, (byte) nextOffset);
+        return result;
+    }
+    
+    private CheckpointStore open(Path path) throws IOException {
+        return new CheckpointStore(path, CAPACITY, NO_PERIODIC_SYNC, NO_PERIODIC_SYNC);
+    }
+    
+    /**
+     * Append entries 1..count, alternating between two partitions
+     */
+    private void appendEntries(Path path, int count) throws IOException {
+        try (CheckpointStore store = open(path)) {
+            for (int offset = 1; offset <= count; offset++) {
+                store.append(offset % 2 == 0 ? PARTITION_0 : PARTITION_1, offset, result(offset));
+            }
+        }
+    }
+    
+    private static void assertCheckpoint(CheckpointStore store, TopicPartition partition, long nextOffset) {
+        assertEquals(nextOffset, store.get(partition).getNextOffset());
+        assertArrayEquals(result(nextOffset), store.get(partition).getResult());
+    }
+    
+    @Test
+    public void reopenIgnoresTruncatedLastEntry() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("checkpoints");
+        appendEntries(path, 4);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(4L * ENTRY_SIZE - 10); // The last write was cut short
+        }
+        
+        try (CheckpointStore store = open(path)) {
+            assertCheckpoint(store, PARTITION_0, 2);
+            assertCheckpoint(store, PARTITION_1, 3);
+            store.append(PARTITION_0, 5, result(5)); // Overwrites the torn entry
+        }
+        try (CheckpointStore store = open(path)) {
+            assertCheckpoint(store, PARTITION_0, 5);
+            assertCheckpoint(store, PARTITION_1, 3);
+        }
+    }
+    
+    @Test
+    public void reopenStopsAtCorruptEntryAndNeverReadsWhatFollowed() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("checkpoints");
+        appendEntries(path, 6);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // Flip a byte in the result of the third entry
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), 3L * ENTRY_SIZE - 1);
+        }
+        
+        try (CheckpointStore store = open(path)) {
+            assertCheckpoint(store, PARTITION_0, 2);
+            assertCheckpoint(store, PARTITION_1, 1);
+            // An entry of the same size where the damaged one was: the intact entries 4..6 that
+            // followed it must not come back
+            store.append(PARTITION_0, 7, result(7));
+        }
+        try (CheckpointStore store = open(path)) {
+            assertCheckpoint(store, PARTITION_0, 7);
+            assertCheckpoint(store, PARTITION_1, 1);
+            assertEquals(2, store.getAll().size());
+        }
+    }
+    
+    @Test
+    public void compactionKeepsLatestCheckpointOfEveryPartition() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("checkpoints");
+        int entries = 3 * CAPACITY / ENTRY_SIZE; // Compacts at least twice
+        appendEntries(path, entries);
+        
+        try (CheckpointStore store = open(path)) {
+            assertEquals(2, store.getAll().size());
+            assertCheckpoint(store, PARTITION_0, entries - entries % 2);
+            assertCheckpoint(store, PARTITION_1, entries - 1 + entries % 2);
+        }
+        assertFalse(Files.exists(path.resolveSibling("checkpoints.compact")));
+    }
+    
+    @Test
+    public void oversizedResultIsRejected() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("checkpoints");
+        try (CheckpointStore store = open(path)) {
+            assertThrows(IllegalArgumentException.class,
+                () -> store.append(PARTITION_0, 1, new byte[64 * 1024]));
+            
+            // Nothing was written, the store is still usable
+            assertNull(store.get(PARTITION_0));
+            store.append(PARTITION_0, 1, "result".getBytes(StandardCharsets.UTF_8));
+        }
+        try (CheckpointStore store = open(path)) {
+            assertEquals(1, store.getAll().size());
+            assertEquals("result", new String(store.get(PARTITION_0).getResult(), StandardCharsets.UTF_8));
+        }
+    }
+}
\ No newline at end of file
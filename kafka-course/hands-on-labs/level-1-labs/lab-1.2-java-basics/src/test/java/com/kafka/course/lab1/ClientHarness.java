@@ -0,0 +1,113 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Client Harness
+ * 
+ * Builds {@link BasicProducer}s and {@link BasicConsumer}s from injected properties,
+ * connected either to a broker or, offline, to a shared {@link InMemoryLog}:
+ * - "mock": producers and consumers share an in-memory log (no broker, no network), so
+ *   end-to-end runs are repeatable and measure the client code rather than the broker.
+ *   The lab topic is created with {@link #MOCK_PARTITIONS} partitions
+ * - any other target is used as bootstrap.servers, e.g. a single-node KRaft broker
+ *   started locally for the run
+ * 
+ * Producers get the durable profile overridden by the injected properties; consumers get
+ * the default consumer settings overridden by them, and a group id of their own, so every
+ * harness starts from the beginning of the topic. In mock mode only max.poll.records is
+ * taken from the properties.
+ */
+public class ClientHarness {
+    
+    static final String MOCK = "mock";
+    static final String TOPIC_NAME = "java-basics-topic";
+    static final int MOCK_PARTITIONS = 3;
+    private static final int DEFAULT_MAX_POLL_RECORDS = 500;
+    
+    private final String target;
+    private final Properties overrides;
+    private final InMemoryLog log;
+    private final String groupId = "java-basics-harness-" + UUID.randomUUID();
+    
+    /**
+     * @param target "mock" or bootstrap servers
+     * @param overrides producer and consumer properties; each client ignores the other's
+     */
+    public ClientHarness(String target, Properties overrides) {
+        this.target = target;
+        this.overrides = overrides;
+        if (MOCK.equals(target)) {
+            log = new InMemoryLog();
+            log.createTopic(TOPIC_NAME, MOCK_PARTITIONS);
+        } else {
+            log = null;
+        }
+    }
+    
+    public boolean isMock() {
+        return log != null;
+    }
+    
+    /**
+     * The shared log in mock mode (e.g. to create more topics), or null
+     */
+    public InMemoryLog getLog() {
+        return log;
+    }
+    
+    public BasicProducer newProducer() {
+        if (isMock()) {
+            return new BasicProducer(log.producer());
+        }
+        Properties props = ProducerProfile.DURABLE.toProperties();
+        props.putAll(clientProperties(ProducerConfig.configNames()));
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+        return new BasicProducer(props);
+    }
+    
+    /**
+     * @param processingTimeMs simulated processing time per record (0 to measure the client alone)
+     */
+    public BasicConsumer newConsumer(long processingTimeMs) {
+        return new BasicConsumer(consumerFactory().apply(new Properties()), processingTimeMs);
+    }
+    
+    /**
+     * Creates consumer clients of this harness, with the given properties on top of the
+     * injected ones (ignored in mock mode). All clients of a harness share one group.
+     */
+    public Function<Properties, Consumer<String, String>> consumerFactory() {
+        return extra -> {
+            if (isMock()) {
+                String maxPollRecords = overrides.getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG);
+                return log.consumer(maxPollRecords == null ? DEFAULT_MAX_POLL_RECORDS
+                    : Integer.parseInt(maxPollRecords));
+            }
+            Properties props = clientProperties(ConsumerConfig.configNames());
+            props.putAll(extra);
+            props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+            props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            return BasicConsumer.createConsumer(props);
+        };
+    }
+    
+    private Properties clientProperties(Set<String> configNames) {
+        // Keep a consumer from warning about producer settings and the other way round
+        Properties props = new Properties();
+        for (String name : overrides.stringPropertyNames()) {
+            if (configNames.contains(name)) {
+                props.put(name, overrides.getProperty(name));
+            }
+        }
+        return props;
+    }
+}
\ No newline at end of file
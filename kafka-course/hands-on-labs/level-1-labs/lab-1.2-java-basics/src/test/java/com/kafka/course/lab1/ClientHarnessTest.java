@@ -0,0 +1,153 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Client Harness Test
+ * 
+ * The offline ("mock") target of {@link ClientHarness} that the performance regression
+ * test measures against: what its producers send, its consumers receive exactly once and
+ * in key order, the injected max.poll.records bounds every poll, and consumers of one
+ * harness share their committed offsets like one group.
+ */
+public class ClientHarnessTest {
+    
+    private static final int RECORDS = 600;
+    private static final int KEYS = 10;
+    private static final long POLL_TIMEOUT_MS = 100;
+    
+    private static void send(ClientHarness harness, int from, int to) {
+        AtomicInteger failed = new AtomicInteger();
+        BasicProducer producer = harness.newProducer();
+        producer.setRecordLogger(RecordLogger.sampled("Sent", 0, TimeUnit.HOURS.toMillis(1)));
+        for (int i = from; i < to; i++) {
+            producer.send(new ProducerRecord<>(ClientHarness.TOPIC_NAME, "key-" + (i % KEYS), Integer.toString(i)),
+                (metadata, exception) -> {
+                    if (exception != null) {
+                        failed.incrementAndGet();
+                    }
+                });
+        }
+        producer.close();
+        assertEquals(0, failed.get());
+    }
+    
+    @Test(timeout = 10000)
+    public void everyRecordIsReceivedOnceInKeyOrder() throws InterruptedException {
+        ClientHarness harness = new ClientHarness(ClientHarness.MOCK, new Properties());
+        send(harness, 0, RECORDS);
+        
+        Map<String, List<Integer>> receivedByKey = new ConcurrentHashMap<>();
+        Map<String, Integer> partitionByKey = new ConcurrentHashMap<>();
+        AtomicInteger received = new AtomicInteger();
+        BasicConsumer consumer = harness.newConsumer(0);
+        consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+        consumer.setRecordProcessor(record -> {
+            receivedByKey.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>())
+                .add(Integer.parseInt(record.value()));
+            partitionByKey.merge(record.key(), record.partition(), (previous, partition) -> {
+                assertEquals("Partition of " + record.key(), previous, partition);
+                return partition;
+            });
+            received.incrementAndGet();
+        });
+        Thread consumerThread = new Thread(consumer::consumeMessages, "harness-consumer");
+        consumerThread.start();
+        while (received.get() < RECORDS) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(POLL_TIMEOUT_MS); // Long enough for a duplicate to show up
+        consumer.stop();
+        consumerThread.join();
+        
+        assertEquals(RECORDS, received.get());
+        assertEquals(KEYS, receivedByKey.size());
+        for (Map.Entry<String, List<Integer>> entry : receivedByKey.entrySet()) {
+            List<Integer> values = entry.getValue();
+            assertEquals(RECORDS / KEYS, values.size());
+            for (int i = 1; i < values.size(); i++) {
+                assertEquals("Values of " + entry.getKey() + ": " + values, values.get(i - 1) + KEYS,
+                             (int) values.get(i));
+            }
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void injectedMaxPollRecordsBoundsEveryPoll() {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "7");
+        ClientHarness harness = new ClientHarness(ClientHarness.MOCK, overrides);
+        send(harness, 0, RECORDS);
+        
+        try (Consumer<String, String> consumer = harness.consumerFactory().apply(new Properties())) {
+            consumer.subscribe(Collections.singletonList(ClientHarness.TOPIC_NAME));
+            int received = 0;
+            while (received < RECORDS) {
+                int polled = consumer.poll(Duration.ofMillis(POLL_TIMEOUT_MS)).count();
+                assertTrue(polled + " records in one poll", polled <= 7);
+                received += polled;
+            }
+            assertEquals(RECORDS, received);
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void consumersOfOneHarnessShareCommittedOffsets() {
+        ClientHarness harness = new ClientHarness(ClientHarness.MOCK, new Properties());
+        send(harness, 0, RECORDS);
+        
+        List<Integer> first = new ArrayList<>();
+        try (Consumer<String, String> consumer = harness.consumerFactory().apply(new Properties())) {
+            consumer.subscribe(Collections.singletonList(ClientHarness.TOPIC_NAME));
+            while (first.size() < RECORDS) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(POLL_TIMEOUT_MS));
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, String> record : records) {
+                    first.add(Integer.parseInt(record.value()));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                                new OffsetAndMetadata(record.offset() + 1));
+                }
+                consumer.commitSync(offsets);
+            }
+        }
+        send(harness, RECORDS, RECORDS + KEYS);
+        
+        // The replacement continues after the commits of the first consumer: only the new records
+        List<Integer> second = new ArrayList<>();
+        try (Consumer<String, String> consumer = harness.consumerFactory().apply(new Properties())) {
+            consumer.subscribe(Collections.singletonList(ClientHarness.TOPIC_NAME));
+            while (second.size() < KEYS) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(POLL_TIMEOUT_MS))) {
+                    second.add(Integer.parseInt(record.value()));
+                }
+            }
+            assertEquals(0, consumer.poll(Duration.ofMillis(POLL_TIMEOUT_MS)).count());
+        }
+        Collections.sort(second);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(RECORDS + i, (int) second.get(i));
+        }
+    }
+}
\ No newline at end of file
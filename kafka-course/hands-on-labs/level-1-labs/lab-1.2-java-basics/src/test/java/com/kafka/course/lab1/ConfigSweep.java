@@ -0,0 +1,125 @@
+package com.kafka.course.lab1;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Config Sweep
+ * 
+ * Runs one end-to-end measurement ({@link PerformanceRegressionTest#run}) per combination
+ * of client settings, each with its own producer and consumer instance in this JVM, and
+ * prints a comparison table:
+ * - Settings are layered with {@link ClientConfig} (defaults, file, environment, arguments)
+ * - A key=value argument with comma-separated values is swept; the runs cover every
+ *   combination of the swept values
+ * - Without swept arguments batch.size, linger.ms, fetch.min.bytes and max.poll.records
+ *   are swept
+ * 
+ * Against "mock" only max.poll.records changes anything (the in-memory log has no batching
+ * or fetching); sweep the producer and fetch settings against a broker.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.ConfigSweep" \
+ *   -Dexec.args="localhost:9092 20000 5 - batch.size=16384,131072 linger.ms=0,5,20"
+ */
+public class ConfigSweep {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConfigSweep.class);
+    private static final String[] DEFAULT_SWEEP = {
+        "batch.size=16384,131072", "linger.ms=1,10", "fetch.min.bytes=1,65536", "max.poll.records=100,500"
+    };
+    
+    /**
+     * One swept setting and its values
+     */
+    private static class Dimension {
+        
+        private final String key;
+        private final String[] values;
+        
+        Dimension(String key, String[] values) {
+            this.key = key;
+            this.values = values;
+        }
+    }
+    
+    /**
+     * Every combination of the dimensions' values applied to the base config
+     */
+    static List<ClientConfig> combinations(ClientConfig base, List<Dimension> dimensions) {
+        List<ClientConfig> configs = new ArrayList<>();
+        configs.add(base);
+        for (Dimension dimension : dimensions) {
+            List<ClientConfig> expanded = new ArrayList<>();
+            for (ClientConfig config : configs) {
+                for (String value : dimension.values) {
+                    expanded.add(config.with(dimension.key, value));
+                }
+            }
+            configs = expanded;
+        }
+        return configs;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : ClientHarness.MOCK;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        String file = args.length > 3 && !"-".equals(args[3]) ? args[3] : null;
+        String[] settings = args.length > 4 ? Arrays.copyOfRange(args, 4, args.length) : new String[0];
+        
+        // Single values are fixed overrides; comma-separated values are swept
+        List<String> fixed = new ArrayList<>();
+        List<Dimension> dimensions = new ArrayList<>();
+        for (String setting : settings) {
+            int separator = setting.indexOf('=');
+            if (separator > 0 && setting.indexOf(',', separator) > 0) {
+                dimensions.add(new Dimension(setting.substring(0, separator),
+                                             setting.substring(separator + 1).split(",")));
+            } else {
+                fixed.add(setting);
+            }
+        }
+        if (dimensions.isEmpty()) {
+            for (String setting : DEFAULT_SWEEP) {
+                int separator = setting.indexOf('=');
+                dimensions.add(new Dimension(setting.substring(0, separator),
+                                             setting.substring(separator + 1).split(",")));
+            }
+        }
+        
+        Map<String, String> env = System.getenv();
+        ClientConfig base = ClientConfig.load(file, env, fixed.toArray(new String[0]));
+        List<ClientConfig> configs = combinations(base, dimensions);
+        logger.info("Sweeping {} configurations against {} at {} records/s, {}s each", configs.size(), target, rate,
+                   seconds);
+        
+        // Warm up (class loading, JIT) with the base settings so the first configuration is not penalised
+        PerformanceRegressionTest.run(new ClientHarness(target, base.toProperties()), rate, seconds);
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n"));
+        for (Dimension dimension : dimensions) {
+            report.append(String.format("%18s ", dimension.key));
+        }
+        report.append(String.format("%12s %10s %10s %10s%n", "records/s", "p50 ms", "p99 ms", "max ms"));
+        for (ClientConfig config : configs) {
+            PerformanceRegressionTest.Result result =
+                PerformanceRegressionTest.run(new ClientHarness(target, config.toProperties()), rate, seconds);
+            for (Dimension dimension : dimensions) {
+                report.append(String.format("%18s ", config.get(dimension.key)));
+            }
+            report.append(String.format("%12.0f %10.2f %10.2f %10.2f%n", result.recordsPerSecond,
+                    result.latencyMicros.getValueAtPercentile(50) / 1000.0,
+                    result.latencyMicros.getValueAtPercentile(99) / 1000.0,
+                    result.latencyMicros.getMaxValue() / 1000.0));
+        }
+        
+        logger.info("Config sweep against {} at {} records/s ({}s per configuration):{}", target, rate, seconds, report);
+    }
+}
\ No newline at end of file
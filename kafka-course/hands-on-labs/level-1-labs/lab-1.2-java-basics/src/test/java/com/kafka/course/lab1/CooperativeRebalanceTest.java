@@ -0,0 +1,211 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cooperative Rebalance Test
+ * 
+ * A second member joins a {@link SimulatedGroup} whose only member runs
+ * {@link BasicConsumer#handleRebalancing()}, and the records both consumers process are
+ * checked:
+ * - Partitions the first member keeps are processed throughout the cooperative rebalance,
+ *   and their running totals survive it
+ * - A partition that moves is committed with its totals when it is revoked: the new owner
+ *   continues right after the last record processed by the old one and carries the totals on
+ * - Lost partitions are dropped without a commit: the next owner resumes from the last
+ *   committed offset, not from where the member that lost them stopped
+ */
+public class CooperativeRebalanceTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITIONS = 4;
+    private static final long PROCESSING_TIME_MS = 1;
+    private static final long ROUND_MS = 300; // One join/sync round trip with the coordinator
+    private static final long SETTLE_MS = 300;
+    private static final long NO_PERIODIC_COMMITS_MS = TimeUnit.HOURS.toMillis(1); // Only rebalances commit
+    
+    private final List<RunningMember> running = new ArrayList<>();
+    
+    /**
+     * A member with the consumer driving it and the records it processed
+     */
+    private static class RunningMember {
+        
+        private final SimulatedGroup.Member member;
+        private final BasicConsumer consumer;
+        private final Thread thread;
+        private final Map<TopicPartition, List<Long>> processedNanos = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Long> firstOffsets = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Long> lastOffsets = new ConcurrentHashMap<>();
+        
+        RunningMember(SimulatedGroup group, String name) {
+            member = group.newMember();
+            consumer = new BasicConsumer(member, PROCESSING_TIME_MS);
+            consumer.setCommitCadence(NO_PERIODIC_COMMITS_MS, Integer.MAX_VALUE);
+            consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+            consumer.setRecordProcessor(record -> {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                processedNanos.computeIfAbsent(partition, p -> new CopyOnWriteArrayList<>()).add(System.nanoTime());
+                firstOffsets.putIfAbsent(partition, record.offset());
+                lastOffsets.put(partition, record.offset());
+            });
+            thread = new Thread(consumer::handleRebalancing, name);
+            thread.start();
+        }
+        
+        /**
+         * Longest time in ms the partition was not processed between the two instants
+         */
+        long maxGapMillis(TopicPartition partition, long fromNanos, long toNanos) {
+            long previous = fromNanos;
+            long maxGap = 0;
+            for (long nanos : processedNanos.getOrDefault(partition, new ArrayList<>())) {
+                if (nanos > fromNanos && nanos < toNanos) {
+                    maxGap = Math.max(maxGap, nanos - previous);
+                    previous = nanos;
+                }
+            }
+            return TimeUnit.NANOSECONDS.toMillis(Math.max(maxGap, toNanos - previous));
+        }
+        
+        void stop() throws InterruptedException {
+            consumer.stop();
+            thread.join();
+        }
+    }
+    
+    @After
+    public void tearDown() throws InterruptedException {
+        for (RunningMember member : running) {
+            member.stop();
+        }
+    }
+    
+    private RunningMember start(SimulatedGroup group, String name) throws InterruptedException {
+        RunningMember member = new RunningMember(group, name);
+        group.join(member.member);
+        running.add(member);
+        return member;
+    }
+    
+    /**
+     * Records processed in the partition by all owners so far, from the committed metadata
+     */
+    private static long committedRecords(OffsetAndMetadata committed) {
+        return Long.parseLong(committed.metadata().split(",")[0]);
+    }
+    
+    /**
+     * Longest pause of the partitions the first member keeps while a second one joins
+     */
+    private long maxKeptPartitionPauseMillis(SimulatedGroup.Protocol protocol) throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, 1, protocol, ROUND_MS);
+        RunningMember first = start(group, "member-1");
+        Thread.sleep(SETTLE_MS);
+        
+        long joinStart = System.nanoTime();
+        start(group, "member-2");
+        long joinEnd = System.nanoTime();
+        
+        Set<TopicPartition> kept = first.member.assignment();
+        assertFalse(kept.isEmpty());
+        long maxPause = 0;
+        for (TopicPartition partition : kept) {
+            maxPause = Math.max(maxPause, first.maxGapMillis(partition, joinStart, joinEnd));
+        }
+        return maxPause;
+    }
+    
+    @Test(timeout = 30000)
+    public void keptPartitionsAreProcessedThroughoutRebalance() throws InterruptedException {
+        assertTrue(maxKeptPartitionPauseMillis(SimulatedGroup.Protocol.COOPERATIVE) < ROUND_MS);
+        
+        RunningMember first = running.get(0);
+        Set<TopicPartition> kept = first.member.assignment();
+        for (RunningMember member : running) {
+            member.stop();
+        }
+        running.clear();
+        Map<TopicPartition, OffsetAndMetadata> committed = first.member.committed(kept);
+        for (TopicPartition partition : kept) {
+            // The totals were not reset by the rebalance: they count every record since offset 0
+            assertEquals(first.lastOffsets.get(partition) + 1, committedRecords(committed.get(partition)));
+        }
+    }
+    
+    @Test(timeout = 30000)
+    public void eagerRebalanceStopsKeptPartitionsToo() throws InterruptedException {
+        // Guards the test above: the same measurement sees the stop-the-world pause
+        assertTrue(maxKeptPartitionPauseMillis(SimulatedGroup.Protocol.EAGER) >= ROUND_MS);
+    }
+    
+    @Test(timeout = 30000)
+    public void revokedPartitionsAreCommittedBeforeTheyMove() throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, 1,
+            SimulatedGroup.Protocol.COOPERATIVE, ROUND_MS);
+        RunningMember first = start(group, "member-1");
+        Thread.sleep(SETTLE_MS);
+        RunningMember second = start(group, "member-2");
+        Thread.sleep(SETTLE_MS);
+        
+        Set<TopicPartition> moved = second.member.assignment();
+        assertFalse(moved.isEmpty());
+        for (TopicPartition partition : moved) {
+            // Neither reprocessed nor skipped, although no periodic commit ran
+            assertEquals("First offset of " + partition + " after the move", first.lastOffsets.get(partition) + 1,
+                         (long) second.firstOffsets.get(partition));
+        }
+        
+        for (RunningMember member : running) {
+            member.stop();
+        }
+        running.clear();
+        Map<TopicPartition, OffsetAndMetadata> committed = second.member.committed(moved);
+        for (TopicPartition partition : moved) {
+            // The new owner carried on the totals handed off in the revocation commit
+            assertEquals(second.lastOffsets.get(partition) + 1, committedRecords(committed.get(partition)));
+        }
+    }
+    
+    @Test(timeout = 30000)
+    public void lostPartitionsAreNotCommitted() throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, 1,
+            SimulatedGroup.Protocol.COOPERATIVE, ROUND_MS);
+        RunningMember first = start(group, "member-1");
+        Thread.sleep(SETTLE_MS);
+        RunningMember second = start(group, "member-2");
+        Thread.sleep(SETTLE_MS);
+        
+        // The first member has owned these since offset 0 and never committed them
+        Set<TopicPartition> lost = new HashSet<>(first.member.assignment());
+        assertFalse(lost.isEmpty());
+        group.lose(first.member);
+        Thread.sleep(SETTLE_MS);
+        
+        assertTrue(second.member.assignment().containsAll(lost));
+        for (TopicPartition partition : lost) {
+            assertTrue(first.lastOffsets.get(partition) > 0);
+            assertNull(second.member.committed(lost).get(partition));
+            // Reprocessed from the start rather than skipped: the loss committed nothing
+            assertEquals("First offset of " + partition + " after the loss", 0L,
+                         (long) second.firstOffsets.get(partition));
+        }
+    }
+}
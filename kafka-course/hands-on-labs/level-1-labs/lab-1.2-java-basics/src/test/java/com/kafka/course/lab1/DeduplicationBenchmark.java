@@ -0,0 +1,103 @@
+package com.kafka.course.lab1;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Deduplication Benchmark
+ * 
+ * Feeds 1M distinct (key, message id) pairs through a {@link DeduplicationCache} for
+ * several memory caps, then redelivers some of them, and reports:
+ * - ns per record for fingerprinting and checking a new record (fastest of 3 runs)
+ * - false positives: distinct records wrongly reported as duplicates
+ * - recent duplicates caught: redelivery of the last 100k records (a rebalance or a
+ *   retried batch shortly after the original)
+ * - old duplicates caught: redelivery of all records, which only fits when the memory cap
+ *   holds every fingerprint
+ * 
+ * Record timestamps advance 10 ms per 1000 records, so within the default 10 minute
+ * window only the memory cap rotates generations.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.DeduplicationBenchmark" -Dexec.args="1000000 4,16,64"
+ */
+public class DeduplicationBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeduplicationBenchmark.class);
+    private static final int RECENT_REDELIVERIES = 100000;
+    private static final long WINDOW_MS = 600000;
+    private static final int REPETITIONS = 3; // The fastest of these is reported
+    
+    static void run(String[] keys, byte[][] ids, long maxBytes, StringBuilder report) {
+        int records = keys.length;
+        DeduplicationCache cache = null;
+        long falsePositives = 0;
+        double nanosPerRecord = Double.MAX_VALUE;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            // Free the previous cache now, so collecting it does not compete with the measured loop
+            cache = null;
+            System.gc();
+            cache = new DeduplicationCache(maxBytes, WINDOW_MS);
+            falsePositives = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                if (cache.isDuplicate(DeduplicationCache.fingerprint(keys[i], ids[i]), timestamp(i))) {
+                    falsePositives++;
+                }
+            }
+            nanosPerRecord = Math.min(nanosPerRecord, (double) (System.nanoTime() - start) / records);
+        }
+        
+        int recent = Math.min(RECENT_REDELIVERIES, records);
+        long recentCaught = 0;
+        for (int i = records - recent; i < records; i++) {
+            if (cache.isDuplicate(DeduplicationCache.fingerprint(keys[i], ids[i]), timestamp(records))) {
+                recentCaught++;
+            }
+        }
+        long oldCaught = 0;
+        for (int i = 0; i < records; i++) {
+            if (cache.isDuplicate(DeduplicationCache.fingerprint(keys[i], ids[i]), timestamp(records))) {
+                oldCaught++;
+            }
+        }
+        
+        report.append(String.format("%10.1f %14d %10.1f %10d %12.2e %14.1f%% %12.1f%%%n",
+                cache.sizeInBytes() / (1024.0 * 1024.0), cache.maxEntriesPerGeneration(), nanosPerRecord,
+                falsePositives, (double) falsePositives / records,
+                100.0 * recentCaught / recent, 100.0 * oldCaught / records));
+    }
+    
+    private static long timestamp(int record) {
+        return record / 100;
+    }
+    
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] capsMb = (args.length > 1 ? args[1] : "4,16,64").split(",");
+        
+        // Build the keys and message ids up front so only the cache is measured
+        String[] keys = new String[records];
+        byte[][] ids = new byte[records][];
+        String producerId = "3f9c2a1e-7b4d-4e0a-9c58-1d2e3f4a5b6c-";
+        for (int i = 0; i < records; i++) {
+            keys[i] = "user-" + i;
+            ids[i] = (producerId + i).getBytes(StandardCharsets.UTF_8);
+        }
+        
+        // Warm up the JIT so the first cap is not penalised
+        run(keys, ids, Long.parseLong(capsMb[0].trim()) * 1024 * 1024, new StringBuilder());
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%10s %14s %10s %10s %12s %15s %13s%n",
+                "MB", "per generation", "ns/record", "false pos", "fp rate", "recent caught", "old caught"));
+        for (String capMb : capsMb) {
+            run(keys, ids, Long.parseLong(capMb.trim()) * 1024 * 1024, report);
+        }
+        
+        logger.info("Deduplication of {} distinct records ({} recent redeliveries):{}",
+                   records, Math.min(RECENT_REDELIVERIES, records), report);
+    }
+}
\ No newline at end of file
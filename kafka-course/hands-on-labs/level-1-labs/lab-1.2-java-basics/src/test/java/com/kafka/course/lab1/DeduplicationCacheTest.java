@@ -0,0 +1,150 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Deduplication Cache Test
+ * 
+ * Checking and remembering records in {@link DeduplicationCache}, rotation of its two
+ * generations by the window and by the memory cap, and probing past colliding slots; and
+ * that {@link BasicConsumer} only remembers records it has processed.
+ */
+public class DeduplicationCacheTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final long WINDOW_MS = 1000;
+    private static final long SMALL_CACHE_BYTES = 2 * 16 * Long.BYTES; // 16 slots per generation
+    private static final int SMALL_CACHE_ENTRIES = 8; // Half of the slots
+    
+    private static ConsumerRecord<String, String> record(long offset, String messageId) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC_NAME, 0, offset, "key", "value-" + offset);
+        record.headers().add(BasicProducer.MESSAGE_ID_HEADER, messageId.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+    
+    /**
+     * Fingerprints that all start probing at the same slot of a 16-slot table
+     */
+    private static long colliding(int slot, int n) {
+        return ((long) n << 32) | slot;
+    }
+    
+    @Test
+    public void containsDoesNotRemember() {
+        DeduplicationCache cache = new DeduplicationCache(SMALL_CACHE_BYTES, WINDOW_MS);
+        ConsumerRecord<String, String> record = record(0, "id-1");
+        
+        assertFalse(cache.contains(record));
+        assertFalse(cache.contains(record));
+        cache.remember(record);
+        
+        // The same message id redelivered at another offset
+        assertTrue(cache.contains(record(7, "id-1")));
+        assertFalse(cache.contains(record(1, "id-2")));
+        assertEquals(1, cache.duplicates());
+    }
+    
+    @Test
+    public void generationsRotateWithTheWindow() {
+        DeduplicationCache cache = new DeduplicationCache(SMALL_CACHE_BYTES, WINDOW_MS);
+        cache.remember(1, 0);
+        cache.remember(2, WINDOW_MS); // Starts a new generation: 1 is kept in the previous one
+        assertTrue(cache.contains(1));
+        assertTrue(cache.contains(2));
+        
+        cache.remember(3, 2 * WINDOW_MS); // The generation holding 1 is dropped
+        assertFalse(cache.contains(1));
+        assertTrue(cache.contains(2));
+        assertTrue(cache.contains(3));
+        assertEquals(2, cache.rotations());
+    }
+    
+    @Test
+    public void memoryCapRotatesBeforeTheWindowEnds() {
+        DeduplicationCache cache = new DeduplicationCache(SMALL_CACHE_BYTES, WINDOW_MS);
+        assertEquals(SMALL_CACHE_BYTES, cache.sizeInBytes());
+        assertEquals(SMALL_CACHE_ENTRIES, cache.maxEntriesPerGeneration());
+        
+        List<Long> fingerprints = new ArrayList<>();
+        for (long fingerprint = 1; fingerprint <= 2 * SMALL_CACHE_ENTRIES + 1; fingerprint++) {
+            cache.remember(fingerprint, 0); // All within one window
+            fingerprints.add(fingerprint);
+        }
+        
+        // Two rotations: the first generation is gone, the second and third are remembered
+        assertEquals(2, cache.rotations());
+        for (long fingerprint : fingerprints) {
+            assertEquals("Fingerprint " + fingerprint, fingerprint > SMALL_CACHE_ENTRIES, cache.contains(fingerprint));
+        }
+    }
+    
+    @Test
+    public void probingFindsCollidingFingerprintsInBothGenerations() {
+        DeduplicationCache cache = new DeduplicationCache(SMALL_CACHE_BYTES, WINDOW_MS);
+        int lastSlot = 15; // Probe sequences wrap around to slot 0
+        for (int n = 1; n <= 4; n++) {
+            cache.remember(colliding(lastSlot, n), 0);
+        }
+        for (int n = 5; n <= 7; n++) {
+            cache.remember(colliding(lastSlot, n), WINDOW_MS); // Rotates once, before the first of these
+        }
+        
+        assertEquals(1, cache.rotations());
+        for (int n = 1; n <= 7; n++) {
+            assertTrue("Colliding fingerprint " + n, cache.contains(colliding(lastSlot, n)));
+        }
+        assertFalse(cache.contains(colliding(lastSlot, 8)));
+        assertFalse(cache.contains(colliding(0, 1)));
+        
+        cache.remember(colliding(lastSlot, 1), WINDOW_MS); // Already remembered: not added again
+        assertEquals(1, cache.rotations());
+    }
+    
+    @Test(timeout = 10000)
+    public void consumerOnlyRemembersProcessedRecords() throws InterruptedException {
+        TopicPartition partition = new TopicPartition(TOPIC_NAME, 0);
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(partition));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+            mockConsumer.addRecord(record(0, "id-1"));
+            mockConsumer.addRecord(record(1, "id-1")); // Redelivered after its first attempt failed
+            mockConsumer.addRecord(record(2, "id-1")); // Redelivered after it was processed
+        });
+        DeduplicationCache cache = new DeduplicationCache(SMALL_CACHE_BYTES, WINDOW_MS);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, 0);
+        consumer.setDeduplicationCache(cache);
+        consumer.setRecordProcessor(record -> {
+            processed.add(record.offset());
+            if (record.offset() == 0) {
+                throw new IllegalStateException("Cannot process record " + record.offset());
+            }
+        });
+        
+        Thread consumerThread = new Thread(consumer::consumeWithErrorHandling, "dedup-consumer");
+        consumerThread.start();
+        while (cache.duplicates() == 0) {
+            Thread.sleep(10);
+        }
+        consumer.stop();
+        consumerThread.join();
+        
+        assertEquals(Arrays.asList(0L, 1L), processed);
+        assertEquals(1, cache.duplicates());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Mock Producer With Injected Acknowledgement Delays
+ * 
+ * A MockProducer that acknowledges every send after a delay instead of immediately,
+ * so load tools can be exercised without a broker:
+ * - The delay of each send is computed from its send time (System.nanoTime()) by an
+ *   injectable function, see {@link #withStalls} for a broker with periodic pauses
+ * - Acknowledgements are completed in send order by a single scheduler thread, on
+ *   which the callbacks run (like the I/O thread of a real producer)
+ * 
+ * MockProducer keeps every sent record in its history, so this is meant for runs of
+ * a few million records at most.
+ */
+public class DelayedMockProducer extends MockProducer<String, String> {
+    
+    private final LongUnaryOperator ackDelayNanos; // Send time in nanos -> delay until the ack in nanos
+    private final ScheduledExecutorService acker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mock-producer-acks");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public DelayedMockProducer(LongUnaryOperator ackDelayNanos) {
+        super(false, new StringSerializer(), new StringSerializer());
+        this.ackDelayNanos = ackDelayNanos;
+    }
+    
+    /**
+     * Acknowledge after ackDelayMicros, except that every stallEveryMs the "broker" stops
+     * for stallMs and acknowledges nothing sent during the stall before it ends
+     */
+    public static DelayedMockProducer withStalls(long ackDelayMicros, long stallEveryMs, long stallMs) {
+        long baseNanos = System.nanoTime();
+        long ackNanos = TimeUnit.MICROSECONDS.toNanos(ackDelayMicros);
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(stallEveryMs);
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMs);
+        return new DelayedMockProducer(sendNanos -> {
+            if (periodNanos <= 0 || stallNanos <= 0) {
+                return ackNanos;
+            }
+            // The stall occupies the last stallNanos of every period
+            long intoPeriod = (sendNanos - baseNanos) % periodNanos;
+            long stallStart = periodNanos - stallNanos;
+            return intoPeriod < stallStart ? ackNanos : periodNanos - intoPeriod + ackNanos;
+        });
+    }
+    
+    @Override
+    public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+        Future<RecordMetadata> future = super.send(record, callback);
+        acker.schedule(this::completeNext, ackDelayNanos.applyAsLong(System.nanoTime()), TimeUnit.NANOSECONDS);
+        return future;
+    }
+    
+    @Override
+    public void close() {
+        acker.shutdownNow();
+        super.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Event Codec Comparison
+ * 
+ * Compares three encodings of the same events (UserEventCodecTest checks that the
+ * binary codec round-trips them exactly):
+ * - string: JSON text through StringSerializer/StringDeserializer, parsed with Jackson
+ * - jackson: {@link JsonSerializer}/{@link JsonDeserializer}
+ * - binary: {@link BinaryEventSerializer}/{@link BinaryEventDeserializer}, all fields
+ *   and user_id + amount only
+ * 
+ * and reports the encoded size and a rough round-trip rate. The JMH module has the
+ * rigorous throughput and allocation numbers (SerializationBenchmark).
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.EventCodecComparison"
+ */
+public class EventCodecComparison {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventCodecComparison.class);
+    private static final String TOPIC_NAME = "java-basics-events";
+    private static final int EVENT_COUNT = 10000;
+    private static final int ROUNDS = 20; // Rounds over all events; the first half is warm-up
+    
+    private static volatile long blackhole; // Keeps the decoded results alive
+    
+    private interface Codec {
+        byte[] encode(UserEvent event);
+        
+        UserEvent decode(byte[] data);
+    }
+    
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer();
+    private static final StringDeserializer STRING_DESERIALIZER = new StringDeserializer();
+    private static final JsonSerializer<UserEvent> JSON_SERIALIZER = new JsonSerializer<>();
+    private static final JsonDeserializer<UserEvent> JSON_DESERIALIZER = new JsonDeserializer<>(UserEvent.class);
+    private static final BinaryEventSerializer BINARY_SERIALIZER = new BinaryEventSerializer();
+    private static final BinaryEventDeserializer BINARY_DESERIALIZER = new BinaryEventDeserializer();
+    private static final BinaryEventDeserializer BINARY_PARTIAL_DESERIALIZER = new BinaryEventDeserializer(
+            EnumSet.of(UserEventCodec.Field.USER_ID, UserEventCodec.Field.AMOUNT));
+    
+    private static final Codec STRING_CODEC = new Codec() {
+        @Override
+        public byte[] encode(UserEvent event) {
+            try {
+                return STRING_SERIALIZER.serialize(TOPIC_NAME, JsonSerializer.MAPPER.writeValueAsString(event));
+            } catch (Exception e) {
+                throw new SerializationException(e);
+            }
+        }
+        
+        @Override
+        public UserEvent decode(byte[] data) {
+            try {
+                return JsonSerializer.MAPPER.readValue(STRING_DESERIALIZER.deserialize(TOPIC_NAME, data), UserEvent.class);
+            } catch (Exception e) {
+                throw new SerializationException(e);
+            }
+        }
+    };
+    
+    private static final Codec JACKSON_CODEC = new Codec() {
+        @Override
+        public byte[] encode(UserEvent event) {
+            return JSON_SERIALIZER.serialize(TOPIC_NAME, event);
+        }
+        
+        @Override
+        public UserEvent decode(byte[] data) {
+            return JSON_DESERIALIZER.deserialize(TOPIC_NAME, data);
+        }
+    };
+    
+    private static final Codec BINARY_CODEC = new Codec() {
+        @Override
+        public byte[] encode(UserEvent event) {
+            return BINARY_SERIALIZER.serialize(TOPIC_NAME, event);
+        }
+        
+        @Override
+        public UserEvent decode(byte[] data) {
+            return BINARY_DESERIALIZER.deserialize(TOPIC_NAME, data);
+        }
+    };
+    
+    private static final Codec BINARY_PARTIAL_CODEC = new Codec() {
+        @Override
+        public byte[] encode(UserEvent event) {
+            return BINARY_SERIALIZER.serialize(TOPIC_NAME, event);
+        }
+        
+        @Override
+        public UserEvent decode(byte[] data) {
+            return BINARY_PARTIAL_DESERIALIZER.deserialize(TOPIC_NAME, data);
+        }
+    };
+    
+    private static String compare(String name, Codec codec, List<UserEvent> events) {
+        long totalBytes = 0;
+        for (UserEvent event : events) {
+            totalBytes += codec.encode(event).length;
+        }
+        
+        long sink = 0;
+        long measuredNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (UserEvent event : events) {
+                sink += codec.decode(codec.encode(event)).getQuantity();
+            }
+            if (round >= ROUNDS / 2) {
+                measuredNanos += System.nanoTime() - start;
+            }
+        }
+        double roundTripsPerSecond = (ROUNDS - ROUNDS / 2) * (double) events.size() * 1_000_000_000.0 / measuredNanos;
+        blackhole = sink;
+        return String.format("%-16s %12.1f %16.0f%n", name, (double) totalBytes / events.size(), roundTripsPerSecond);
+    }
+    
+    public static void main(String[] args) {
+        List<UserEvent> events = new ArrayList<>(EVENT_COUNT);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events.add(new UserEvent("user" + (i % 100), i % 3 == 0 ? "refund" : "purchase",
+                    1700000000000L + i, i % 5 + 1, 9.99 * (i % 5 + 1), "Event " + i));
+        }
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-16s %12s %16s%n", "codec", "bytes/record", "round trips/s"));
+        report.append(compare("string", STRING_CODEC, events));
+        report.append(compare("jackson", JACKSON_CODEC, events));
+        report.append(compare("binary", BINARY_CODEC, events));
+        report.append(compare("binary-partial", BINARY_PARTIAL_CODEC, events));
+        logger.info("Encoding comparison over {} events:{}", EVENT_COUNT, report);
+    }
+}
\ No newline at end of file
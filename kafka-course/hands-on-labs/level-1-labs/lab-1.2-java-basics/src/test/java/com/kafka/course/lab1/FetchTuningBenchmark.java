@@ -0,0 +1,100 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * Fetch Tuning Benchmark
+ * 
+ * Compares fixed fetch settings with a {@link FetchTuner} at several message rates, each
+ * run end-to-end through {@link PerformanceRegressionTest#run} with its own producer and
+ * consumer:
+ * - fixed-1: fetch.min.bytes=1, the broker answers as soon as any record is there
+ *   (lowest latency, most fetch requests at high rates)
+ * - fixed-64k: fetch.min.bytes=65536, large fetches but low rates wait for the wait bound
+ * - adaptive: starts at 1 and retunes from the observed byte rate every few seconds
+ * 
+ * All modes use the same fetch.max.wait.ms. The table shows records and bytes per
+ * non-empty poll, the consumer's fetch-size-avg and fetch-rate, end-to-end p50/p99 and
+ * the final fetch.min.bytes. Against "mock" the in-memory log ignores fetch settings, so
+ * only the retune path itself is exercised; compare the modes against a broker.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.FetchTuningBenchmark" \
+ *   -Dexec.args="localhost:9092 1000,10000,50000 20 100"
+ */
+public class FetchTuningBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FetchTuningBenchmark.class);
+    private static final int FETCH_MIN_BYTES_CAP = 1024 * 1024;
+    private static final int LARGE_FETCH_MIN_BYTES = 64 * 1024;
+    private static final long RETUNE_INTERVAL_MS = 3000; // Short, so the adaptive mode settles within a run
+    
+    private static FetchTuner tuner(String mode, int maxWaitMs) {
+        switch (mode) {
+            case "fixed-1":
+                return new FetchTuner(maxWaitMs, FETCH_MIN_BYTES_CAP, Long.MAX_VALUE);
+            case "fixed-64k":
+                return new FetchTuner(maxWaitMs, FETCH_MIN_BYTES_CAP, Long.MAX_VALUE, LARGE_FETCH_MIN_BYTES);
+            default:
+                return new FetchTuner(maxWaitMs, FETCH_MIN_BYTES_CAP, RETUNE_INTERVAL_MS);
+        }
+    }
+    
+    /**
+     * One end-to-end run with a fetch-tuned consumer created by the harness
+     */
+    private static PerformanceRegressionTest.Result run(String target, FetchTuner tuner, int rate, int seconds)
+            throws InterruptedException {
+        ClientHarness harness = new ClientHarness(target, new Properties());
+        Function<Properties, Consumer<String, String>> factory = fetchProperties -> {
+            Properties props = new Properties();
+            props.putAll(fetchProperties);
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+            return harness.consumerFactory().apply(props);
+        };
+        BasicConsumer consumer = new BasicConsumer(factory.apply(tuner.fetchProperties()), 0);
+        return PerformanceRegressionTest.run(harness, consumer,
+            c -> c.consumeWithFetchTuning(tuner, factory), rate, seconds);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "localhost:9092";
+        String[] rates = (args.length > 1 ? args[1] : "1000,10000,50000").split(",");
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int maxWaitMs = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        String[] modes = {"fixed-1", "fixed-64k", "adaptive"};
+        
+        // Warm up (class loading, JIT) at the highest rate
+        run(target, tuner("adaptive", maxWaitMs), Integer.parseInt(rates[rates.length - 1]), seconds);
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%8s %10s %10s %10s %12s %12s %10s %10s %10s %8s%n",
+                "rate", "mode", "rec/poll", "bytes/poll", "fetch-size", "fetch-rate",
+                "p50 ms", "p99 ms", "min.bytes", "retunes"));
+        for (String rate : rates) {
+            for (String mode : modes) {
+                FetchTuner tuner = tuner(mode, maxWaitMs);
+                PerformanceRegressionTest.Result result = run(target, tuner, Integer.parseInt(rate), seconds);
+                report.append(String.format("%8s %10s %10.1f %10.0f %12.0f %12.1f %10.2f %10.2f %10d %8d%n",
+                        rate, mode, tuner.recordsPerNonEmptyPoll(), tuner.bytesPerNonEmptyPoll(),
+                        tuner.fetchSizeAvg(), tuner.fetchRate(),
+                        result.latencyMicros.getValueAtPercentile(50) / 1000.0,
+                        result.latencyMicros.getValueAtPercentile(99) / 1000.0,
+                        tuner.getFetchMinBytes(), tuner.retunes()));
+                if (result.received < result.sent) {
+                    logger.warn("{} at {} records/s: only {} of {} records arrived",
+                               mode, rate, result.received, result.sent);
+                }
+            }
+        }
+        
+        logger.info("Fetch tuning against {} ({}s per run, fetch.max.wait.ms={}):{}",
+                   target, seconds, maxWaitMs, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * In-Memory Topic Log
+ * 
+ * Connects {@link MockProducer}s and {@link MockConsumer}s through a shared in-memory log,
+ * so code that produces and consumes (retry topics, pipelines) can be run end-to-end
+ * without a broker:
+ * - {@link #producer()} appends every send to the log and acknowledges it immediately
+ *   (records without a partition are partitioned by key hash, like the default partitioner)
+ * - {@link #consumer(int)} returns the records at its position on each poll, so seek(),
+ *   pause() and resume() behave as with a real consumer. subscribe() assigns every
+ *   partition of the topics to this consumer (a group of one) and invokes the listener
+ *   on the next poll
+ * - Committed offsets are kept in the log, shared by all its consumers as if they were
+ *   one group, so a consumer that replaces a closed one continues where it committed
+ * 
+ * Topics must be created up front with {@link #createTopic}. Records are kept in memory
+ * until the log is discarded.
+ */
+public class InMemoryLog {
+    
+    private final Map<String, List<List<ConsumerRecord<String, String>>>> topics = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, OffsetAndMetadata> committed = new ConcurrentHashMap<>();
+    
+    public void createTopic(String topic, int partitions) {
+        List<List<ConsumerRecord<String, String>>> log = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            log.add(new ArrayList<>()); // Guarded by itself
+        }
+        topics.put(topic, log);
+    }
+    
+    private List<List<ConsumerRecord<String, String>>> topic(String topic) {
+        List<List<ConsumerRecord<String, String>>> log = topics.get(topic);
+        if (log == null) {
+            throw new IllegalArgumentException("Unknown topic " + topic);
+        }
+        return log;
+    }
+    
+    /**
+     * Append a record and return it as it will be consumed (with partition and offset)
+     */
+    public ConsumerRecord<String, String> append(ProducerRecord<String, String> record) {
+        List<List<ConsumerRecord<String, String>>> log = topic(record.topic());
+        int partition = record.partition() != null ? record.partition()
+            : record.key() == null ? 0
+            : Utils.toPositive(Utils.murmur2(record.key().getBytes(StandardCharsets.UTF_8))) % log.size();
+        List<ConsumerRecord<String, String>> partitionLog = log.get(partition);
+        synchronized (partitionLog) {
+            ConsumerRecord<String, String> appended = new ConsumerRecord<>(record.topic(), partition,
+                    partitionLog.size(), System.currentTimeMillis(), TimestampType.CREATE_TIME, sizeOf(record.key()),
+                    sizeOf(record.value()), record.key(), record.value(),
+                    new RecordHeaders(record.headers().toArray()), Optional.empty());
+            partitionLog.add(appended);
+            return appended;
+        }
+    }
+    
+    private static int sizeOf(String value) {
+        return value == null ? -1 : value.length();
+    }
+    
+    /**
+     * Number of records in the partition (its end offset)
+     */
+    public long endOffset(TopicPartition partition) {
+        List<ConsumerRecord<String, String>> partitionLog = topic(partition.topic()).get(partition.partition());
+        synchronized (partitionLog) {
+            return partitionLog.size();
+        }
+    }
+    
+    /**
+     * A producer that appends to this log
+     */
+    public MockProducer<String, String> producer() {
+        return new MockProducer<String, String>(true, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+                ConsumerRecord<String, String> appended = append(record);
+                RecordMetadata metadata = new RecordMetadata(
+                    new TopicPartition(appended.topic(), appended.partition()), appended.offset(), 0,
+                    appended.timestamp(), appended.serializedKeySize(), appended.serializedValueSize());
+                if (callback != null) {
+                    callback.onCompletion(metadata, null);
+                }
+                return CompletableFuture.completedFuture(metadata);
+            }
+        };
+    }
+    
+    /**
+     * A consumer that reads this log, returning at most maxPollRecords records per poll
+     */
+    public MockConsumer<String, String> consumer(int maxPollRecords) {
+        return new LogConsumer(maxPollRecords);
+    }
+    
+    private class LogConsumer extends MockConsumer<String, String> {
+        
+        private final int maxPollRecords;
+        
+        LogConsumer(int maxPollRecords) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.maxPollRecords = maxPollRecords;
+        }
+        
+        @Override
+        public synchronized void subscribe(Collection<String> subscribed, ConsumerRebalanceListener listener) {
+            super.subscribe(subscribed, listener);
+            List<TopicPartition> partitions = new ArrayList<>();
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            for (String subscribedTopic : subscribed) {
+                for (int p = 0; p < topic(subscribedTopic).size(); p++) {
+                    partitions.add(new TopicPartition(subscribedTopic, p));
+                    beginningOffsets.put(new TopicPartition(subscribedTopic, p), 0L);
+                }
+            }
+            updateBeginningOffsets(beginningOffsets);
+            schedulePollTask(() -> {
+                rebalance(partitions);
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata offset = committed.get(partition);
+                    if (offset != null) {
+                        seek(partition, offset);
+                    }
+                }
+                listener.onPartitionsAssigned(partitions);
+            });
+        }
+        
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                             OffsetCommitCallback callback) {
+            // Every other commit method ends up here
+            super.commitAsync(offsets, callback);
+            committed.putAll(offsets);
+        }
+        
+        @Override
+        public ConsumerRecords<String, String> poll(Duration timeout) {
+            synchronized (this) {
+                int budget = maxPollRecords;
+                for (TopicPartition partition : assignment()) {
+                    if (budget == 0 || paused().contains(partition)) {
+                        continue;
+                    }
+                    List<ConsumerRecord<String, String>> partitionLog =
+                        topic(partition.topic()).get(partition.partition());
+                    long position = position(partition);
+                    synchronized (partitionLog) {
+                        int end = (int) Math.min(partitionLog.size(), position + budget);
+                        for (int offset = (int) position; offset < end; offset++) {
+                            addRecord(partitionLog.get(offset));
+                            budget--;
+                        }
+                    }
+                }
+            }
+            ConsumerRecords<String, String> records = super.poll(timeout);
+            if (records.isEmpty()) {
+                // A real poll blocks while there is nothing to return
+                try {
+                    Thread.sleep(Math.min(timeout.toMillis(), 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return records;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Key-Ordered Consumer Benchmark
+ * 
+ * Compares the sequential {@link BasicConsumer#consumeMessages()} loop with
+ * {@link BasicConsumer#consumeMessagesByKey(int)} on a single hot partition
+ * that carries many keys (like the user1/user2 keys of the producer demo).
+ * Runs against a {@link MockConsumer}, so no broker is required.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.KeyOrderedConsumerBenchmark"
+ */
+public class KeyOrderedConsumerBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedConsumerBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition HOT_PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final int RECORD_COUNT = 400;
+    private static final int KEY_COUNT = 32;
+    private static final int[] WORKER_COUNTS = {2, 4, 8, 16};
+    private static final long PROCESSING_TIME_MS = 5;
+    private static final long COMMIT_INTERVAL_MS = 10; // Commit often so completion is detected promptly
+    
+    private static MockConsumer<String, String> loadedConsumer() {
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(HOT_PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(HOT_PARTITION, 0L));
+            for (int offset = 0; offset < RECORD_COUNT; offset++) {
+                mockConsumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, HOT_PARTITION.partition(), offset,
+                        "user" + (offset % KEY_COUNT), "Message " + offset));
+            }
+        });
+        return mockConsumer;
+    }
+    
+    /**
+     * Sequential loop: the MockConsumer hands out every record in the first poll, so the
+     * second poll only happens once all of them have been processed
+     */
+    static double runSequential() throws InterruptedException {
+        MockConsumer<String, String> mockConsumer = loadedConsumer();
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, PROCESSING_TIME_MS);
+        long[] end = new long[1];
+        mockConsumer.schedulePollTask(() -> {
+            end[0] = System.nanoTime();
+            consumer.stop();
+        });
+        
+        long start = System.nanoTime();
+        Thread pollThread = new Thread(consumer::consumeMessages, "benchmark-poll");
+        pollThread.start();
+        pollThread.join();
+        return RECORD_COUNT * 1_000_000_000.0 / (end[0] - start);
+    }
+    
+    /**
+     * Key-ordered loop: done once the committed offset reaches the end of the partition
+     */
+    static double runKeyOrdered(int workers) throws InterruptedException {
+        MockConsumer<String, String> mockConsumer = loadedConsumer();
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, PROCESSING_TIME_MS);
+        consumer.setCommitCadence(COMMIT_INTERVAL_MS, Integer.MAX_VALUE);
+        
+        long start = System.nanoTime();
+        Thread pollThread = new Thread(() -> consumer.consumeMessagesByKey(workers), "benchmark-poll");
+        pollThread.start();
+        
+        Set<TopicPartition> partitions = Collections.singleton(HOT_PARTITION);
+        while (true) {
+            OffsetAndMetadata committed = mockConsumer.committed(partitions).get(HOT_PARTITION);
+            if (committed != null && committed.offset() >= RECORD_COUNT) {
+                break;
+            }
+            Thread.sleep(5);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        
+        consumer.stop();
+        pollThread.join();
+        return RECORD_COUNT * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        // Warm up both paths before measuring
+        runSequential();
+        runKeyOrdered(WORKER_COUNTS[0]);
+        
+        double sequential = runSequential();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-22s %-14s %-14s%n", "mode", "records/s", "speedup"));
+        report.append(String.format("%-22s %-14.1f %-14.2f%n", "sequential", sequential, 1.0));
+        for (int workers : WORKER_COUNTS) {
+            double throughput = runKeyOrdered(workers);
+            report.append(String.format("%-22s %-14.1f %-14.2f%n", "key-ordered x" + workers, throughput,
+                    throughput / sequential));
+        }
+        
+        logger.info("Single partition, {} keys, {} records, {} ms per record:{}",
+                   KEY_COUNT, RECORD_COUNT, PROCESSING_TIME_MS, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Key-Ordered Worker Pool Test
+ * 
+ * Interleaved keys of one partition spread over the key lanes of {@link KeyOrderedWorkerPool}:
+ * per-key processing order, and the offset reported for commit while an earlier record
+ * is still pending or has failed.
+ */
+public class KeyOrderedWorkerPoolTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final int WORKERS = 4;
+    private static final int KEYS = 8;
+    private static final int RECORDS = 200;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    
+    private final Map<String, List<Long>> processedByKey = new ConcurrentHashMap<>();
+    private KeyOrderedWorkerPool<String, String> pool;
+    
+    @After
+    public void tearDown() {
+        pool.shutdown(SHUTDOWN_TIMEOUT_MS);
+    }
+    
+    /**
+     * Records whose keys cycle through k0..k7, so every key lane gets records of several keys
+     */
+    private static List<ConsumerRecord<String, String>> interleavedRecords() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < RECORDS; offset++) {
+            records.add(new ConsumerRecord<>(TOPIC_NAME, PARTITION.partition(), offset, "k" + offset % KEYS,
+                "value-" + offset));
+        }
+        return records;
+    }
+    
+    private void recordProcessed(ConsumerRecord<String, String> record) {
+        processedByKey.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>()).add(record.offset());
+    }
+    
+    /**
+     * Wait until every record outside the given lane has been processed
+     */
+    private void awaitOtherLanes(List<ConsumerRecord<String, String>> records, int lane) throws InterruptedException {
+        long expected = records.stream().filter(record -> pool.laneFor(record) != lane).count();
+        assertTrue("All keys share one lane", expected > 0);
+        while (processedByKey.entrySet().stream()
+                   .filter(entry -> pool.laneFor(records.get(entry.getValue().get(0).intValue())) != lane)
+                   .mapToLong(entry -> entry.getValue().size()).sum() < expected) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private static void assertPerKeyOrder(Map<String, List<Long>> processedByKey) {
+        for (Map.Entry<String, List<Long>> entry : processedByKey.entrySet()) {
+            List<Long> offsets = entry.getValue();
+            for (int i = 1; i < offsets.size(); i++) {
+                assertEquals("Offsets of key " + entry.getKey() + ": " + offsets, offsets.get(i - 1) + KEYS,
+                             (long) offsets.get(i));
+            }
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void keysKeepTheirOrderAndCommitsStopAtLowestPendingOffset() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        pool = new KeyOrderedWorkerPool<>(WORKERS, record -> {
+            if (record.offset() == 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            recordProcessed(record);
+        });
+        List<ConsumerRecord<String, String>> records = interleavedRecords();
+        
+        pool.submit(PARTITION, records);
+        awaitOtherLanes(records, pool.laneFor(records.get(0)));
+        
+        // Later offsets of the other lanes are done, but offset 0 is still in progress
+        assertEquals(0, pool.completedOffsets().get(PARTITION).offset());
+        assertTrue(pool.inFlight(PARTITION) > 0);
+        
+        release.countDown();
+        while (pool.inFlight(PARTITION) > 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(RECORDS, pool.completedOffsets().get(PARTITION).offset());
+        assertEquals(KEYS, processedByKey.size());
+        for (List<Long> offsets : processedByKey.values()) {
+            assertEquals(RECORDS / KEYS, offsets.size());
+        }
+        assertPerKeyOrder(processedByKey);
+    }
+    
+    @Test(timeout = 10000)
+    public void failedRecordHoldsBackCommitsOfLaterKeys() throws InterruptedException {
+        long failingOffset = 5;
+        pool = new KeyOrderedWorkerPool<>(WORKERS, record -> {
+            if (record.offset() == failingOffset) {
+                throw new IllegalStateException("Cannot process record " + record.offset());
+            }
+            recordProcessed(record);
+        });
+        List<ConsumerRecord<String, String>> records = interleavedRecords();
+        
+        pool.submit(PARTITION, records);
+        RuntimeException failure = PartitionWorkerPoolTest.awaitFailure(pool);
+        awaitOtherLanes(records, pool.laneFor(records.get((int) failingOffset)));
+        
+        // The other lanes went on past the failed record, the committable offset did not
+        assertEquals(failingOffset, pool.completedOffsets().get(PARTITION).offset());
+        assertEquals("Cannot process record " + failingOffset, failure.getMessage());
+        assertFalse(pool.shutdown(SHUTDOWN_TIMEOUT_MS).containsKey(PARTITION)); // Nothing past it on shutdown either
+        assertPerKeyOrder(processedByKey);
+    }
+}
\ No newline at end of file
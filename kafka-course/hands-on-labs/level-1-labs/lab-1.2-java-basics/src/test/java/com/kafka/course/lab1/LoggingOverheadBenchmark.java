@@ -0,0 +1,153 @@
+package com.kafka.course.lab1;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logging Overhead Benchmark
+ * 
+ * Consumes the same records with {@link BasicConsumer#consumeMessages()} (no simulated
+ * processing time) under different record logging setups and reports records/s:
+ * - per-record, sync: one INFO line per record written on the calling thread
+ * - per-record, async: one INFO line per record through an AsyncAppender
+ * - sampled, async: per-partition summaries plus 1% of the records in full
+ * - off: record logging disabled (upper bound)
+ * 
+ * Record lines are written to target/logging-benchmark.log so the console stays readable.
+ * Runs against a {@link MockConsumer}, so no broker is required.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.LoggingOverheadBenchmark"
+ */
+public class LoggingOverheadBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoggingOverheadBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final String LOG_FILE = "target/logging-benchmark.log";
+    private static final int PARTITION_COUNT = 4;
+    private static final int RECORD_COUNT = 100000;
+    private static final int ASYNC_QUEUE_SIZE = 8192; // Same as logback.xml
+    
+    private static MockConsumer<String, String> loadedConsumer() {
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        mockConsumer.schedulePollTask(() -> {
+            List<TopicPartition> partitions = new ArrayList<>();
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            for (int p = 0; p < PARTITION_COUNT; p++) {
+                TopicPartition partition = new TopicPartition(TOPIC_NAME, p);
+                partitions.add(partition);
+                beginningOffsets.put(partition, 0L);
+            }
+            mockConsumer.rebalance(partitions);
+            mockConsumer.updateBeginningOffsets(beginningOffsets);
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                mockConsumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, i % PARTITION_COUNT, i / PARTITION_COUNT,
+                        "user" + (i % 100), "Message " + i));
+            }
+        });
+        return mockConsumer;
+    }
+    
+    /**
+     * Send the record lines of {@link RecordLogger} to the benchmark log file only,
+     * optionally through an AsyncAppender; returns the appender to detach afterwards
+     */
+    private static Appender<ILoggingEvent> attachRecordAppender(boolean async) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+        
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(LOG_FILE);
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+        
+        Appender<ILoggingEvent> appender = file;
+        if (async) {
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setQueueSize(ASYNC_QUEUE_SIZE);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.addAppender(file);
+            asyncAppender.start();
+            appender = asyncAppender;
+        }
+        
+        ch.qos.logback.classic.Logger recordLog = context.getLogger(RecordLogger.class);
+        recordLog.setAdditive(false);
+        recordLog.detachAndStopAllAppenders();
+        recordLog.addAppender(appender);
+        return appender;
+    }
+    
+    /**
+     * Consume all records; the second poll only runs once the first poll's records are processed
+     */
+    static double run(RecordLogger recordLogger, boolean async) throws InterruptedException {
+        Appender<ILoggingEvent> appender = attachRecordAppender(async);
+        MockConsumer<String, String> mockConsumer = loadedConsumer();
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, 0);
+        if (recordLogger != null) {
+            consumer.setRecordLogger(recordLogger);
+        } else {
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RecordLogger.class))
+                .setLevel(ch.qos.logback.classic.Level.OFF);
+        }
+        long[] end = new long[1];
+        mockConsumer.schedulePollTask(() -> {
+            end[0] = System.nanoTime();
+            consumer.stop();
+        });
+        
+        long start = System.nanoTime();
+        Thread pollThread = new Thread(consumer::consumeMessages, "benchmark-poll");
+        pollThread.start();
+        pollThread.join();
+        
+        // Stopping the async appender drains its queue before the next run
+        appender.stop();
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RecordLogger.class)).setLevel(null);
+        return RECORD_COUNT * 1_000_000_000.0 / (end[0] - start);
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        String[] names = {"per-record, sync", "per-record, async", "sampled 1%, async", "off"};
+        double[] recordsPerSecond = new double[names.length];
+        // The first round warms up the consume path and the appenders, the second is reported
+        for (int round = 0; round < 2; round++) {
+            recordsPerSecond[0] = run(RecordLogger.perRecord("Received"), false);
+            recordsPerSecond[1] = run(RecordLogger.perRecord("Received"), true);
+            recordsPerSecond[2] = run(RecordLogger.sampled("Received"), true);
+            recordsPerSecond[3] = run(null, true);
+        }
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-22s %-14s %-14s%n", "logging", "records/s", "speedup"));
+        for (int i = 0; i < names.length; i++) {
+            report.append(String.format("%-22s %-14.0f %-14.2f%n", names[i], recordsPerSecond[i],
+                    recordsPerSecond[i] / recordsPerSecond[0]));
+        }
+        
+        logger.info("{} records over {} partitions, no processing time:{}", RECORD_COUNT, PARTITION_COUNT, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Offset Commit Manager Test
+ * 
+ * Commits {@link OffsetCommitManager} starts against a MockConsumer whose async commit
+ * callbacks are completed by the test, in any order and with or without an exception.
+ */
+public class OffsetCommitManagerTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final long NEVER_MS = 3600000;
+    
+    private DeferredCommitConsumer consumer;
+    
+    /**
+     * MockConsumer that keeps async commits pending until the test completes them
+     */
+    private static class DeferredCommitConsumer extends MockConsumer<String, String> {
+        
+        private final List<Map<TopicPartition, OffsetAndMetadata>> asyncCommits = new ArrayList<>();
+        private final List<OffsetCommitCallback> callbacks = new ArrayList<>();
+        private final List<Map<TopicPartition, OffsetAndMetadata>> syncCommits = new ArrayList<>();
+        
+        DeferredCommitConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+        
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                             OffsetCommitCallback callback) {
+            asyncCommits.add(new HashMap<>(offsets));
+            callbacks.add(callback);
+        }
+        
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            syncCommits.add(new HashMap<>(offsets));
+            super.commitAsync(offsets, null); // Applies the offsets right away
+        }
+        
+        /**
+         * Invoke the callback of the n-th async commit
+         */
+        void complete(int commit, Exception exception) {
+            callbacks.get(commit).onComplete(asyncCommits.get(commit), exception);
+        }
+        
+        long asyncOffset(int commit) {
+            return asyncCommits.get(commit).get(PARTITION).offset();
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        consumer = new DeferredCommitConsumer();
+        consumer.assign(Collections.singletonList(PARTITION));
+    }
+    
+    private static ConsumerRecords<String, String> polled(long fromOffset, int count) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (long offset = fromOffset; offset < fromOffset + count; offset++) {
+            records.add(new ConsumerRecord<>(TOPIC_NAME, PARTITION.partition(), offset, "key", "value"));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(PARTITION, records));
+    }
+    
+    private static Map<TopicPartition, OffsetAndMetadata> processedUpTo(long nextOffset) {
+        return Collections.singletonMap(PARTITION, new OffsetAndMetadata(nextOffset));
+    }
+    
+    private long committedOffset() {
+        return consumer.committed(Collections.singleton(PARTITION)).get(PARTITION).offset();
+    }
+    
+    @Test
+    public void firstPoolReportOfNewPartitionCountsItsRecords() {
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, NEVER_MS, 100);
+        
+        // A partition newly assigned at offset 1000: its first report already covers 150 records
+        commits.markPolled(polled(1000, 150));
+        commits.markProcessed(processedUpTo(1150));
+        commits.maybeCommitAsync();
+        
+        assertEquals(1, consumer.asyncCommits.size());
+        assertEquals(1150, consumer.asyncOffset(0));
+    }
+    
+    @Test
+    public void firstReportWithoutPollCountsFromCommittedOffset() {
+        consumer.commitSync(processedUpTo(1000));
+        consumer.syncCommits.clear();
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, NEVER_MS, 100);
+        
+        commits.markProcessed(processedUpTo(1099));
+        commits.maybeCommitAsync();
+        assertTrue(consumer.asyncCommits.isEmpty()); // 99 records
+        
+        commits.markProcessed(processedUpTo(1100));
+        commits.maybeCommitAsync();
+        assertEquals(1100, consumer.asyncOffset(0));
+    }
+    
+    @Test
+    public void outOfOrderCallbacksNeverMoveCommittedOffsetBack() {
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, 0, 1);
+        commits.markPolled(polled(0, 20));
+        commits.markProcessed(processedUpTo(10));
+        commits.maybeCommitAsync();
+        commits.markProcessed(processedUpTo(20));
+        commits.maybeCommitAsync();
+        
+        // The newer commit is acknowledged first, the older one arrives late
+        consumer.complete(1, null);
+        consumer.complete(0, null);
+        commits.commitSync();
+        
+        // The late callback did not lower what the manager considers committed: nothing to resend
+        assertEquals(2, consumer.asyncCommits.size());
+        assertTrue(consumer.syncCommits.isEmpty());
+    }
+    
+    @Test
+    public void failedCommitIsCarriedByTheNextOne() {
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, 0, 1);
+        commits.markPolled(polled(0, 10));
+        commits.markProcessed(processedUpTo(10));
+        commits.maybeCommitAsync();
+        
+        consumer.complete(0, new RetriableCommitFailedException("Coordinator not available"));
+        commits.maybeCommitAsync();
+        
+        // Nothing new was processed, but the failed offset is sent again
+        assertEquals(1, commits.failedCommits());
+        assertEquals(2, consumer.asyncCommits.size());
+        assertEquals(10, consumer.asyncOffset(1));
+    }
+    
+    @Test
+    public void failedCommitOvertakenByNewerOneIsNotResent() {
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, 0, 1);
+        commits.markPolled(polled(0, 20));
+        commits.markProcessed(processedUpTo(10));
+        commits.maybeCommitAsync();
+        commits.markProcessed(processedUpTo(20));
+        commits.maybeCommitAsync();
+        
+        consumer.complete(0, new RetriableCommitFailedException("Coordinator not available"));
+        commits.maybeCommitAsync();
+        consumer.complete(1, null);
+        commits.commitSync();
+        
+        // The failure of offset 10 is covered by the commit of offset 20 already in flight
+        assertEquals(2, consumer.asyncCommits.size());
+        assertTrue(consumer.syncCommits.isEmpty());
+    }
+    
+    @Test
+    public void failedCommitIsCommittedOnShutdown() {
+        OffsetCommitManager commits = new OffsetCommitManager(consumer, NEVER_MS, 1);
+        commits.markPolled(polled(0, 10));
+        commits.markProcessed(processedUpTo(10));
+        commits.maybeCommitAsync();
+        
+        consumer.complete(0, new RetriableCommitFailedException("Coordinator not available"));
+        commits.commitSync();
+        
+        assertEquals(Collections.singletonList(processedUpTo(10)), consumer.syncCommits);
+        assertEquals(10, committedOffset());
+    }
+}
\ No newline at end of file
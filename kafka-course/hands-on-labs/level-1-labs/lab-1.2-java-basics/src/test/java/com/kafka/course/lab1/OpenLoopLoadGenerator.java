@@ -0,0 +1,241 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-Loop Load Generator
+ * 
+ * Sends records through {@link BasicProducer} on a fixed schedule (one record every
+ * 1/rate seconds), independent of how fast earlier records were acknowledged. Two
+ * latencies are recorded for every record:
+ * - response: from the time the record was scheduled to be sent until its ack. This
+ *   includes the time the generator was held up (e.g. by a full producer buffer) and
+ *   therefore does not suffer from coordinated omission
+ * - service: from the actual send() call until its ack, which is what a closed-loop
+ *   measurement sees; once a stall fills the in-flight limit, the records held back
+ *   behind it only show up in response latency
+ * 
+ * Both are written once per second as tagged interval histograms to an HdrHistogram
+ * log, which can be compared across runs with the "compare" mode or plotted with
+ * HistogramLogAnalyzer.
+ * 
+ * Arguments: [target] [rate] [seconds] [value-bytes] [log-file]
+ * - target: bootstrap servers, or mock[:ack-us[:stall-every-ms:stall-ms]] for a
+ *   {@link DelayedMockProducer} (default mock:2000:5000:500, a 2ms ack with a 500ms stall every 5s)
+ * - rate: records per second (default 10000)
+ * 
+ * Or: compare <log-file>... to print the percentiles of previously written logs
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.OpenLoopLoadGenerator" -Dexec.args="localhost:9092 20000 60 512 target/broker.hlog"
+ */
+public class OpenLoopLoadGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OpenLoopLoadGenerator.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int KEY_COUNT = 1000;
+    private static final int MAX_IN_FLIGHT = 10000; // Unacknowledged sends before the generator is held up
+    private static final long LOG_INTERVAL_MS = 1000;
+    private static final String RESPONSE_TAG = "response";
+    private static final String SERVICE_TAG = "service";
+    
+    private final BasicProducer producer;
+    private final Recorder responseMicros = new Recorder(3);
+    private final Recorder serviceMicros = new Recorder(3);
+    private final Histogram totalResponseMicros = new Histogram(3);
+    private final Histogram totalServiceMicros = new Histogram(3);
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final LongAdder failed = new LongAdder();
+    private Histogram responseInterval;
+    private Histogram serviceInterval;
+    
+    public OpenLoopLoadGenerator(BasicProducer producer) {
+        this.producer = producer;
+    }
+    
+    /**
+     * Send at the given rate for the given time, writing interval histograms to the log
+     * 
+     * The generator runs on the calling thread. If it falls behind schedule it sends the
+     * overdue records back to back; their response latency includes the delay.
+     */
+    public void run(double ratePerSecond, long durationMs, int valueBytes, HistogramLogWriter log)
+            throws InterruptedException {
+        char[] payload = new char[valueBytes];
+        Arrays.fill(payload, 'x');
+        String value = new String(payload);
+        long intervalNanos = (long) (1_000_000_000.0 / ratePerSecond);
+        
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        long nextLogNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(LOG_INTERVAL_MS);
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + i * intervalNanos;
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            while (System.nanoTime() < intendedNanos) {
+                LockSupport.parkNanos(intendedNanos - System.nanoTime());
+            }
+            if (intendedNanos >= nextLogNanos) {
+                writeInterval(log);
+                nextLogNanos += TimeUnit.MILLISECONDS.toNanos(LOG_INTERVAL_MS);
+            }
+            
+            inFlight.acquire();
+            long sendNanos = System.nanoTime();
+            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, "key-" + (i % KEY_COUNT), value);
+            try {
+                producer.send(record, (metadata, exception) -> {
+                    long ackNanos = System.nanoTime();
+                    responseMicros.recordValue((ackNanos - intendedNanos) / 1000);
+                    serviceMicros.recordValue((ackNanos - sendNanos) / 1000);
+                    if (exception != null) {
+                        failed.increment();
+                    }
+                    inFlight.release();
+                });
+            } catch (Exception e) {
+                // send() itself can fail, e.g. when metadata is unavailable
+                failed.increment();
+                inFlight.release();
+            }
+        }
+        
+        // Wait for the outstanding acknowledgements before writing the last interval
+        inFlight.acquire(MAX_IN_FLIGHT);
+        inFlight.release(MAX_IN_FLIGHT);
+        writeInterval(log);
+    }
+    
+    private void writeInterval(HistogramLogWriter log) {
+        responseInterval = responseMicros.getIntervalHistogram(responseInterval);
+        serviceInterval = serviceMicros.getIntervalHistogram(serviceInterval);
+        responseInterval.setTag(RESPONSE_TAG);
+        serviceInterval.setTag(SERVICE_TAG);
+        log.outputIntervalHistogram(responseInterval);
+        log.outputIntervalHistogram(serviceInterval);
+        totalResponseMicros.add(responseInterval);
+        totalServiceMicros.add(serviceInterval);
+    }
+    
+    public Histogram getResponseMicros() {
+        return totalResponseMicros;
+    }
+    
+    public Histogram getServiceMicros() {
+        return totalServiceMicros;
+    }
+    
+    public long getFailed() {
+        return failed.sum();
+    }
+    
+    private static BasicProducer createProducer(String target) {
+        if (target.startsWith("mock")) {
+            String[] parts = target.split(":");
+            long ackMicros = parts.length > 1 ? Long.parseLong(parts[1]) : 2000;
+            long stallEveryMs = parts.length > 3 ? Long.parseLong(parts[2]) : 5000;
+            long stallMs = parts.length > 3 ? Long.parseLong(parts[3]) : 500;
+            return new BasicProducer(DelayedMockProducer.withStalls(ackMicros, stallEveryMs, stallMs));
+        }
+        Properties tuning = ProducerProfile.DURABLE.toProperties();
+        tuning.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+        return new BasicProducer(tuning);
+    }
+    
+    private static void appendPercentiles(StringBuilder report, String label, String tag, Histogram histogram) {
+        report.append(String.format("%-32s %-9s %10d %10d %10d %10d %10d %10d%n",
+                label, tag, histogram.getTotalCount(), histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue()));
+    }
+    
+    private static StringBuilder reportHeader() {
+        return new StringBuilder(String.format("%n%-32s %-9s %10s %10s %10s %10s %10s %10s%n",
+                "run", "latency", "count", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+    }
+    
+    /**
+     * Sum the interval histograms of each log by tag and print their percentiles side by side
+     */
+    static void compare(String[] logFiles) throws FileNotFoundException {
+        StringBuilder report = reportHeader();
+        for (String logFile : logFiles) {
+            Map<String, Histogram> byTag = new LinkedHashMap<>();
+            HistogramLogReader reader = new HistogramLogReader(new File(logFile));
+            try {
+                EncodableHistogram interval;
+                while ((interval = reader.nextIntervalHistogram()) != null) {
+                    String tag = interval.getTag() == null ? "untagged" : interval.getTag();
+                    byTag.computeIfAbsent(tag, t -> new Histogram(3)).add((Histogram) interval);
+                }
+            } finally {
+                reader.close();
+            }
+            for (Map.Entry<String, Histogram> entry : byTag.entrySet()) {
+                appendPercentiles(report, logFile, entry.getKey(), entry.getValue());
+            }
+        }
+        logger.info("Latency logs compared (microseconds):{}", report);
+    }
+    
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length > 0 && "compare".equals(args[0])) {
+            compare(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        String target = args.length > 0 ? args[0] : "mock";
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 10000;
+        long durationMs = TimeUnit.SECONDS.toMillis(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        int valueBytes = args.length > 3 ? Integer.parseInt(args[3]) : 512;
+        String logFile = args.length > 4 ? args[4] : "target/open-loop-load.hlog";
+        
+        File file = new File(logFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        HistogramLogWriter log = new HistogramLogWriter(file);
+        log.outputComment("target=" + target + " rate=" + rate + " valueBytes=" + valueBytes);
+        log.outputLogFormatVersion();
+        long startMs = System.currentTimeMillis();
+        log.outputStartTime(startMs);
+        log.setBaseTime(startMs);
+        log.outputLegend();
+        
+        BasicProducer producer = createProducer(target);
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(producer);
+        logger.info("Sending {} records/s for {} ms against {}, logging to {}", rate, durationMs, target, logFile);
+        try {
+            generator.run(rate, durationMs, valueBytes, log);
+        } finally {
+            producer.close();
+            log.close();
+        }
+        
+        StringBuilder report = reportHeader();
+        appendPercentiles(report, target, RESPONSE_TAG, generator.getResponseMicros());
+        appendPercentiles(report, target, SERVICE_TAG, generator.getServiceMicros());
+        logger.info("Open-loop run finished ({} failed sends), latencies in microseconds:{}", generator.getFailed(), report);
+    }
+}
\ No newline at end of file
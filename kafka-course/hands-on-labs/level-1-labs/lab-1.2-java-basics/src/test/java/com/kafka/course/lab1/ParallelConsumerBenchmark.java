@@ -0,0 +1,114 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parallel Consumer Benchmark
+ * 
+ * Standalone benchmark for {@link BasicConsumer#consumeMessagesInParallel(int)} that
+ * runs against a {@link MockConsumer}, so no broker is required:
+ * - Pre-loads a fixed number of records into every partition
+ * - Processes them with one worker per partition
+ * - Reports throughput once every partition has committed its last offset
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.ParallelConsumerBenchmark"
+ */
+public class ParallelConsumerBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ParallelConsumerBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int[] PARTITION_COUNTS = {1, 2, 4, 8, 16};
+    private static final int RECORDS_PER_PARTITION = 200;
+    private static final long PROCESSING_TIME_MS = 5;
+    private static final long COMMIT_INTERVAL_MS = 10; // Commit often so completion is detected promptly
+    
+    /**
+     * Consume all records from the given number of partitions and return records/s
+     */
+    static double run(int partitionCount) throws InterruptedException {
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        List<TopicPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        for (int p = 0; p < partitionCount; p++) {
+            TopicPartition partition = new TopicPartition(TOPIC_NAME, p);
+            partitions.add(partition);
+            beginningOffsets.put(partition, 0L);
+        }
+        
+        // Assignment and records become visible on the first poll after subscribe()
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(partitions);
+            mockConsumer.updateBeginningOffsets(beginningOffsets);
+            for (TopicPartition partition : partitions) {
+                for (int offset = 0; offset < RECORDS_PER_PARTITION; offset++) {
+                    mockConsumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, partition.partition(), offset,
+                            "key-" + offset, "value-" + offset));
+                }
+            }
+        });
+        
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, PROCESSING_TIME_MS);
+        consumer.setCommitCadence(COMMIT_INTERVAL_MS, Integer.MAX_VALUE);
+        Thread pollThread = new Thread(() -> consumer.consumeMessagesInParallel(partitionCount), "benchmark-poll");
+        
+        long start = System.nanoTime();
+        pollThread.start();
+        awaitCommitted(mockConsumer, new HashSet<>(partitions), RECORDS_PER_PARTITION);
+        long elapsedNanos = System.nanoTime() - start;
+        
+        consumer.stop();
+        pollThread.join();
+        
+        long totalRecords = (long) partitionCount * RECORDS_PER_PARTITION;
+        return totalRecords * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    private static void awaitCommitted(MockConsumer<String, String> mockConsumer, Set<TopicPartition> partitions,
+                                       long expectedOffset) throws InterruptedException {
+        while (true) {
+            Map<TopicPartition, OffsetAndMetadata> committed = mockConsumer.committed(partitions);
+            boolean done = committed.size() == partitions.size();
+            for (OffsetAndMetadata offset : committed.values()) {
+                done &= offset != null && offset.offset() >= expectedOffset;
+            }
+            if (done) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        // Warm up the JIT so the single-partition baseline is not penalised
+        run(PARTITION_COUNTS[0]);
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-12s %-14s %-14s%n", "partitions", "records/s", "speedup"));
+        
+        double baseline = 0;
+        for (int partitionCount : PARTITION_COUNTS) {
+            double throughput = run(partitionCount);
+            if (baseline == 0) {
+                baseline = throughput;
+            }
+            report.append(String.format("%-12d %-14.1f %-14.2f%n", partitionCount, throughput, throughput / baseline));
+        }
+        
+        logger.info("Parallel consumer throughput ({} records/partition, {} ms per record):{}",
+                   RECORDS_PER_PARTITION, PROCESSING_TIME_MS, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-Partition Worker Pool Test
+ * 
+ * Offsets {@link PartitionWorkerPool} reports for commit when a record fails and when
+ * queued records are abandoned on shutdown, and what {@link BasicConsumer#consumeMessagesInParallel(int)}
+ * commits after a failure.
+ */
+public class PartitionWorkerPoolTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final long FAILING_OFFSET = 5;
+    
+    private PartitionWorkerPool<String, String> pool;
+    
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+    
+    private static List<ConsumerRecord<String, String>> records(int count) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int offset = 0; offset < count; offset++) {
+            records.add(new ConsumerRecord<>(TOPIC_NAME, PARTITION.partition(), offset, "key-" + offset,
+                "value-" + offset));
+        }
+        return records;
+    }
+    
+    private static void failAt(ConsumerRecord<String, String> record) {
+        if (record.offset() == FAILING_OFFSET) {
+            throw new IllegalStateException("Cannot process record " + record.offset());
+        }
+    }
+    
+    /**
+     * Wait until a record of the pool failed and return its exception
+     */
+    static RuntimeException awaitFailure(RecordWorkerPool<?, ?> pool) throws InterruptedException {
+        while (true) {
+            try {
+                pool.throwIfFailed();
+            } catch (RuntimeException e) {
+                return e;
+            }
+            Thread.sleep(10);
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void failedRecordIsNeverReportedProcessed() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("Cannot process record");
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        pool = new PartitionWorkerPool<>(2, record -> {
+            handled.add(record.offset());
+            if (record.offset() == FAILING_OFFSET) {
+                throw failure;
+            }
+        });
+        
+        pool.submit(PARTITION, records(10));
+        assertSame(failure, awaitFailure(pool));
+        Map<TopicPartition, OffsetAndMetadata> offsets = pool.shutdown(SHUTDOWN_TIMEOUT_MS);
+        
+        // The lane stopped at the failed record: nothing behind it ran, nothing from it on is committable
+        assertEquals(Long.valueOf(FAILING_OFFSET), handled.get(handled.size() - 1));
+        assertEquals(FAILING_OFFSET, offsets.get(PARTITION).offset());
+        pool = null;
+    }
+    
+    @Test(timeout = 10000)
+    public void failedLaneIgnoresLaterRecords() throws InterruptedException {
+        pool = new PartitionWorkerPool<>(2, PartitionWorkerPoolTest::failAt);
+        pool.submit(PARTITION, records(10));
+        awaitFailure(pool);
+        
+        // A later poll must not move the partition past the failed record
+        pool.submit(PARTITION, records(20).subList(10, 20));
+        Thread.sleep(100);
+        
+        assertEquals(FAILING_OFFSET, pool.completedOffsets().get(PARTITION).offset());
+        assertNull(pool.completedOffsets().get(PARTITION));
+        assertNull(pool.shutdown(SHUTDOWN_TIMEOUT_MS).get(PARTITION));
+        pool = null;
+    }
+    
+    @Test(timeout = 10000)
+    public void shutdownAbandonsQueuedRecords() {
+        AtomicInteger processed = new AtomicInteger();
+        pool = new PartitionWorkerPool<>(1, record -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.incrementAndGet();
+        });
+        
+        pool.submit(PARTITION, records(1000));
+        Map<TopicPartition, OffsetAndMetadata> offsets = pool.shutdown(SHUTDOWN_TIMEOUT_MS);
+        
+        // The queued records were neither processed nor committed
+        long committed = offsets.containsKey(PARTITION) ? offsets.get(PARTITION).offset() : 0;
+        assertTrue("Processed " + processed.get() + " of 1000 records", processed.get() < 1000);
+        assertEquals(processed.get(), committed);
+        pool = null;
+    }
+    
+    @Test(timeout = 10000)
+    public void consumerStopsAndCommitsUpToFailedRecord() throws InterruptedException {
+        ClosableMockConsumer mockConsumer = new ClosableMockConsumer();
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            for (ConsumerRecord<String, String> record : records(10)) {
+                mockConsumer.addRecord(record);
+            }
+        });
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, 0);
+        consumer.setRecordProcessor(PartitionWorkerPoolTest::failAt);
+        
+        Thread pollThread = new Thread(() -> consumer.consumeMessagesInParallel(2), "parallel-poll");
+        pollThread.start();
+        pollThread.join(); // Ends by itself: the failure stops the loop
+        
+        assertTrue(mockConsumer.closed);
+        assertEquals(FAILING_OFFSET, mockConsumer.committed(Collections.singleton(PARTITION)).get(PARTITION).offset());
+    }
+    
+    /**
+     * MockConsumer whose committed offsets can still be read after the consumer closed it
+     */
+    private static class ClosableMockConsumer extends MockConsumer<String, String> {
+        
+        private volatile boolean closed;
+        
+        ClosableMockConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+        
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Performance Regression Test
+ * 
+ * Runs {@link BasicProducer} and {@link BasicConsumer} end-to-end through a
+ * {@link ClientHarness} (offline by default) and fails when throughput or latency
+ * regresses past the given limits:
+ * - The producer sends at a fixed rate for a number of seconds while the consumer
+ *   (processing time 0) reads the same records
+ * - End-to-end latency is measured from the scheduled send time to processing, so a
+ *   falling-behind producer or consumer shows up as latency
+ * - The test fails if records/s is below the minimum, p99 latency above the maximum,
+ *   or not every record arrived in time; limits of 0 are not checked
+ * 
+ * The defaults are loose enough for a busy build machine; tighten them with system
+ * properties: perf.target (mock or bootstrap servers), perf.rate, perf.seconds,
+ * perf.min-records-per-second, perf.max-p99-ms and perf.config (a client properties
+ * file, e.g. with batch.size or max.poll.records). Only records of this run (tagged
+ * with a run id) are counted, so it can also run against a broker whose topic holds
+ * older records.
+ * 
+ * Run with:
+ * mvn test -Dtest=PerformanceRegressionTest -Dperf.rate=20000 -Dperf.seconds=5 \
+ *   -Dperf.min-records-per-second=19000 -Dperf.max-p99-ms=50
+ */
+public class PerformanceRegressionTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceRegressionTest.class);
+    private static final int KEY_COUNT = 1000;
+    private static final long DRAIN_TIMEOUT_MS = 30000; // Time allowed for the last records to arrive
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String DEFAULT_RATE = "5000";
+    private static final String DEFAULT_SECONDS = "2";
+    private static final String DEFAULT_MIN_RECORDS_PER_SECOND = "4000"; // 80% of the default rate
+    private static final String DEFAULT_MAX_P99_MS = "1000";
+    
+    /**
+     * Result of one end-to-end run
+     */
+    static class Result {
+        
+        final long sent;
+        final long received;
+        final double recordsPerSecond;
+        final Histogram latencyMicros;
+        
+        Result(long sent, long received, double recordsPerSecond, Histogram latencyMicros) {
+            this.sent = sent;
+            this.received = received;
+            this.recordsPerSecond = recordsPerSecond;
+            this.latencyMicros = latencyMicros;
+        }
+    }
+    
+    /**
+     * Send rate records/s for the given seconds and consume them, measuring end-to-end latency
+     */
+    static Result run(ClientHarness harness, int rate, int seconds) throws InterruptedException {
+        return run(harness, harness.newConsumer(0), BasicConsumer::consumeMessages, rate, seconds);
+    }
+    
+    /**
+     * Like {@link #run(ClientHarness, int, int)}, with the given consumer and consume loop
+     * (e.g. {@link BasicConsumer#consumeWithFetchTuning})
+     */
+    static Result run(ClientHarness harness, BasicConsumer consumer,
+                      java.util.function.Consumer<BasicConsumer> consumeLoop, int rate, int seconds)
+            throws InterruptedException {
+        String runId = UUID.randomUUID().toString();
+        long total = (long) rate * seconds;
+        Histogram latency = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        AtomicLong received = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(1);
+        
+        consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+        consumer.setRecordProcessor(record -> {
+            // Value: run id, scheduled send time (nanoTime), sequence number
+            String[] fields = record.value().split(":", 3);
+            if (!runId.equals(fields[0])) {
+                return;
+            }
+            long latencyMicros = (System.nanoTime() - Long.parseLong(fields[1])) / 1000;
+            latency.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            if (received.incrementAndGet() == total) {
+                done.countDown();
+            }
+        });
+        Thread consumerThread = new Thread(() -> consumeLoop.accept(consumer), "harness-consumer");
+        consumerThread.start();
+        
+        BasicProducer producer = harness.newProducer();
+        producer.setRecordLogger(RecordLogger.sampled("Sent", 0, TimeUnit.HOURS.toMillis(1)));
+        AtomicLong failed = new AtomicLong();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String value = runId + ":" + scheduled + ":" + i;
+            producer.send(new ProducerRecord<>(ClientHarness.TOPIC_NAME, "key-" + (i % KEY_COUNT), value),
+                (metadata, exception) -> {
+                    if (exception != null) {
+                        failed.incrementAndGet();
+                    }
+                });
+        }
+        producer.flush();
+        
+        done.await(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        consumer.stop();
+        consumerThread.join();
+        producer.close();
+        if (failed.get() > 0) {
+            logger.warn("{} sends failed", failed.get());
+        }
+        return new Result(total - failed.get(), received.get(), received.get() / elapsedSeconds, latency);
+    }
+    
+    private static Properties loadProperties(String file) throws IOException {
+        Properties props = new Properties();
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                props.load(in);
+            }
+        }
+        return props;
+    }
+    
+    @Test
+    public void endToEndThroughputAndLatencyStayWithinLimits() throws Exception {
+        String target = System.getProperty("perf.target", ClientHarness.MOCK);
+        int rate = Integer.parseInt(System.getProperty("perf.rate", DEFAULT_RATE));
+        int seconds = Integer.parseInt(System.getProperty("perf.seconds", DEFAULT_SECONDS));
+        double minRecordsPerSecond = Double.parseDouble(
+            System.getProperty("perf.min-records-per-second", DEFAULT_MIN_RECORDS_PER_SECOND));
+        double maxP99Millis = Double.parseDouble(System.getProperty("perf.max-p99-ms", DEFAULT_MAX_P99_MS));
+        Properties overrides = loadProperties(System.getProperty("perf.config"));
+        
+        // Warm up (class loading, JIT) with a run as long as the measured one
+        run(new ClientHarness(target, overrides), rate, seconds);
+        Result result = run(new ClientHarness(target, overrides), rate, seconds);
+        
+        double p50 = result.latencyMicros.getValueAtPercentile(50) / 1000.0;
+        double p99 = result.latencyMicros.getValueAtPercentile(99) / 1000.0;
+        double max = result.latencyMicros.getMaxValue() / 1000.0;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%10s %10s %12s %10s %10s %10s%n",
+                "sent", "received", "records/s", "p50 ms", "p99 ms", "max ms"));
+        report.append(String.format("%10d %10d %12.0f %10.2f %10.2f %10.2f%n",
+                result.sent, result.received, result.recordsPerSecond, p50, p99, max));
+        logger.info("End-to-end run against {} at {} records/s for {}s:{}", target, rate, seconds, report);
+        
+        assertEquals("Records received", (long) rate * seconds, result.received);
+        assertTrue(String.format("%.0f records/s, expected at least %.0f",
+                                 result.recordsPerSecond, minRecordsPerSecond),
+                   minRecordsPerSecond <= 0 || result.recordsPerSecond >= minRecordsPerSecond);
+        assertTrue(String.format("p99 latency %.2f ms, expected at most %.2f ms", p99, maxP99Millis),
+                   maxP99Millis <= 0 || p99 <= maxP99Millis);
+    }
+}
\ No newline at end of file
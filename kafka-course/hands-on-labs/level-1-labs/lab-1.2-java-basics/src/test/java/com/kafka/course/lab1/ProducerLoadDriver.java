@@ -0,0 +1,229 @@
+package com.kafka.course.lab1;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Concurrent Producer Load Driver
+ * 
+ * Models many logical senders: each sender is a thread that sends records of a fixed
+ * size with random keys out of a fixed key space, optionally paced so all senders
+ * together aim for a target rate. Every sender count is run twice:
+ * - shared: all senders use one producer instance (the recommended setup)
+ * - per-sender: every sender has its own producer
+ * 
+ * For each run it reports achieved records/s, MB/s and send-to-ack latency percentiles,
+ * and per mode the sender count after which more senders stop adding throughput
+ * (less than 10% gain), i.e. where that setup saturates.
+ * 
+ * Senders are platform threads from a fixed pool: the lab targets Java 11, which has no
+ * virtual threads. Senders spend most of their time inside send() or parked for pacing,
+ * so a few hundred platform threads behave the same for this measurement.
+ * 
+ * Arguments: [bootstrap-servers|mock] [sender-counts] [value-bytes] [key-count] [target-rate] [seconds]
+ * - sender-counts: comma-separated list, e.g. 1,2,4,8,16,32
+ * - target-rate: records/s over all senders, 0 for as fast as possible
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.ProducerLoadDriver" -Dexec.args="localhost:9092 1,2,4,8,16,32 512 1000 0 10"
+ */
+public class ProducerLoadDriver {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProducerLoadDriver.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final double SATURATION_GAIN = 1.10; // Less than 10% more throughput counts as saturated
+    private static final long MOCK_CLEAR_INTERVAL_MS = 100; // MockProducer keeps every sent record
+    
+    /**
+     * What to drive and how hard
+     */
+    static class LoadSpec {
+        
+        final String target;
+        final int senders;
+        final int valueBytes;
+        final int keyCount;
+        final double targetRate;
+        final long durationMs;
+        
+        LoadSpec(String target, int senders, int valueBytes, int keyCount, double targetRate, long durationMs) {
+            this.target = target;
+            this.senders = senders;
+            this.valueBytes = valueBytes;
+            this.keyCount = keyCount;
+            this.targetRate = targetRate;
+            this.durationMs = durationMs;
+        }
+    }
+    
+    /**
+     * Outcome of one run
+     */
+    static class LoadResult {
+        
+        final long records;
+        final long failed;
+        final long elapsedNanos;
+        final Histogram latencyMicros;
+        
+        LoadResult(long records, long failed, long elapsedNanos, Histogram latencyMicros) {
+            this.records = records;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.latencyMicros = latencyMicros;
+        }
+        
+        double recordsPerSecond() {
+            return records * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+    
+    private static Producer<String, String> createProducer(String target) {
+        if ("mock".equals(target)) {
+            return new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        }
+        Properties tuning = ProducerProfile.DURABLE.toProperties();
+        tuning.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+        return BasicProducer.createProducer(tuning);
+    }
+    
+    /**
+     * Run all senders for the configured duration and wait for every acknowledgement
+     */
+    static LoadResult run(LoadSpec spec, boolean shared) throws InterruptedException {
+        List<Producer<String, String>> producers = new ArrayList<>();
+        for (int i = 0; i < (shared ? 1 : spec.senders); i++) {
+            producers.add(createProducer(spec.target));
+        }
+        
+        char[] payload = new char[spec.valueBytes];
+        Arrays.fill(payload, 'x');
+        String value = new String(payload);
+        String[] keys = new String[spec.keyCount];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = "key-" + k;
+        }
+        
+        Histogram latencyMicros = new ConcurrentHistogram(3);
+        LongAdder acked = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(spec.senders,
+            runnable -> new Thread(runnable, "load-sender-" + threadNumber.incrementAndGet()));
+        CountDownLatch done = new CountDownLatch(spec.senders);
+        // Nanoseconds between two sends of one sender, 0 for unpaced
+        long intervalNanos = spec.targetRate > 0 ? (long) (spec.senders * 1_000_000_000.0 / spec.targetRate) : 0;
+        
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(spec.durationMs);
+        for (int s = 0; s < spec.senders; s++) {
+            Producer<String, String> producer = producers.get(shared ? 0 : s);
+            senders.execute(() -> {
+                try {
+                    long nextSend = System.nanoTime();
+                    while (System.nanoTime() < deadline) {
+                        if (intervalNanos > 0) {
+                            LockSupport.parkNanos(nextSend - System.nanoTime());
+                            nextSend += intervalNanos;
+                        }
+                        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+                        long sendNanos = System.nanoTime();
+                        producer.send(new ProducerRecord<>(TOPIC_NAME, key, value), (metadata, exception) -> {
+                            latencyMicros.recordValue((System.nanoTime() - sendNanos) / 1000);
+                            if (exception == null) {
+                                acked.increment();
+                            } else {
+                                failed.increment();
+                            }
+                        });
+                    }
+                } catch (Exception e) {
+                    logger.error("Sender failed", e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        
+        // MockProducer keeps a history of every record; drop it regularly to keep the heap flat
+        while (!done.await(MOCK_CLEAR_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            for (Producer<String, String> producer : producers) {
+                if (producer instanceof MockProducer) {
+                    ((MockProducer<String, String>) producer).clear();
+                }
+            }
+        }
+        for (Producer<String, String> producer : producers) {
+            producer.flush();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        
+        senders.shutdown();
+        for (Producer<String, String> producer : producers) {
+            producer.close();
+        }
+        return new LoadResult(acked.sum(), failed.sum(), elapsedNanos, latencyMicros);
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        String target = args.length > 0 ? args[0] : "localhost:9092";
+        int[] senderCounts = Arrays.stream((args.length > 1 ? args[1] : "1,2,4,8,16,32").split(","))
+            .mapToInt(count -> Integer.parseInt(count.trim()))
+            .toArray();
+        int valueBytes = args.length > 2 ? Integer.parseInt(args[2]) : 512;
+        int keyCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        double targetRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        long durationMs = TimeUnit.SECONDS.toMillis(args.length > 5 ? Long.parseLong(args[5]) : 10);
+        
+        // Warm up connections, metadata and the JIT before measuring
+        run(new LoadSpec(target, senderCounts[0], valueBytes, keyCount, targetRate, Math.min(durationMs, 2000)), true);
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-11s %8s %12s %10s %10s %10s %10s %8s%n",
+                "mode", "senders", "records/s", "MB/s", "p50 us", "p99 us", "max us", "failed"));
+        for (boolean shared : new boolean[] {true, false}) {
+            String mode = shared ? "shared" : "per-sender";
+            double best = 0;
+            int saturatedAt = -1;
+            for (int senders : senderCounts) {
+                LoadResult result = run(new LoadSpec(target, senders, valueBytes, keyCount, targetRate, durationMs), shared);
+                double throughput = result.recordsPerSecond();
+                report.append(String.format("%-11s %8d %12.0f %10.1f %10d %10d %10d %8d%n",
+                        mode, senders, throughput, throughput * (valueBytes + 8) / (1024.0 * 1024.0),
+                        result.latencyMicros.getValueAtPercentile(50), result.latencyMicros.getValueAtPercentile(99),
+                        result.latencyMicros.getMaxValue(), result.failed));
+                if (saturatedAt < 0 && best > 0 && throughput < best * SATURATION_GAIN) {
+                    saturatedAt = senders;
+                }
+                best = Math.max(best, throughput);
+            }
+            report.append(saturatedAt < 0
+                ? String.format("%-11s still scaling at %d senders%n", mode, senderCounts[senderCounts.length - 1])
+                : String.format("%-11s saturates at %d senders (less than 10%% gain)%n", mode, saturatedAt));
+        }
+        
+        logger.info("Load driver against {} ({} byte values, {} keys, target rate {}, {} ms per run):{}",
+                   target, valueBytes, keyCount, targetRate > 0 ? targetRate + " records/s" : "unbounded",
+                   durationMs, report);
+    }
+}
\ No newline at end of file
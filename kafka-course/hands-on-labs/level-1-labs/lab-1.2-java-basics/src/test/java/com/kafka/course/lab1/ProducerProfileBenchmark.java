@@ -0,0 +1,89 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Producer Profile Benchmark
+ * 
+ * Sends the same workload with every {@link ProducerProfile} through
+ * {@link BasicProducer#sendBulk} and reports records/s, MB/s and send-to-ack
+ * latency percentiles per profile.
+ * 
+ * Arguments: [bootstrap-servers|mock] [record-count] [value-bytes]
+ * - With bootstrap servers (default localhost:9092) the profiles are measured
+ *   against a real broker, which is the only way to compare batching and acks
+ * - With "mock" a MockProducer is used; this checks the harness and measures
+ *   client-side overhead only, since MockProducer ignores the tuning settings
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.ProducerProfileBenchmark" -Dexec.args="localhost:9092 1000000 512"
+ */
+public class ProducerProfileBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProducerProfileBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int KEY_COUNT = 1000;
+    private static final int MAX_IN_FLIGHT = 10000;
+    
+    private static Stream<ProducerRecord<String, String>> workload(int count, String value) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new ProducerRecord<>(TOPIC_NAME, "key-" + (i % KEY_COUNT), value));
+    }
+    
+    private static BasicProducer createProducer(String target, ProducerProfile profile) {
+        if ("mock".equals(target)) {
+            return new BasicProducer(new MockProducer<>(true, new StringSerializer(), new StringSerializer()));
+        }
+        Properties tuning = profile.toProperties();
+        tuning.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+        return new BasicProducer(tuning);
+    }
+    
+    static BulkSendResult run(String target, ProducerProfile profile, int count, String value)
+            throws InterruptedException, ExecutionException {
+        BasicProducer producer = createProducer(target, profile);
+        try {
+            // Warm up connections, metadata and the JIT before measuring
+            producer.sendBulk(workload(Math.max(1, count / 10), value), MAX_IN_FLIGHT).get();
+            return producer.sendBulk(workload(count, value), MAX_IN_FLIGHT).get();
+        } finally {
+            producer.close();
+        }
+    }
+    
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        String target = args.length > 0 ? args[0] : "localhost:9092";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int valueBytes = args.length > 2 ? Integer.parseInt(args[2]) : 512;
+        
+        char[] payload = new char[valueBytes];
+        Arrays.fill(payload, 'x');
+        String value = new String(payload);
+        long recordBytes = "key-000".length() + valueBytes;
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-12s %12s %10s %10s %10s %10s %8s%n",
+                "profile", "records/s", "MB/s", "p50 us", "p99 us", "max us", "failed"));
+        for (ProducerProfile profile : ProducerProfile.values()) {
+            BulkSendResult result = run(target, profile, count, value);
+            double megabytesPerSecond = result.getRecordsPerSecond() * recordBytes / (1024.0 * 1024.0);
+            report.append(String.format("%-12s %12.0f %10.1f %10d %10d %10d %8d%n",
+                    profile.name().toLowerCase(), result.getRecordsPerSecond(), megabytesPerSecond,
+                    result.getLatencyMicros(50), result.getLatencyMicros(99),
+                    result.getLatencyHistogram().getMaxValue(), result.getFailed()));
+        }
+        
+        logger.info("Producer profiles against {} ({} records of {} bytes):{}", target, count, valueBytes, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.kafka.course.lab1;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebalance Pause Benchmark
+ * 
+ * Scales a {@link SimulatedGroup} of {@link BasicConsumer}s running
+ * {@link BasicConsumer#handleRebalancing()} out from one to several members, once with
+ * eager and once with cooperative rebalancing, and reports for every scale-out step:
+ * - partitions paused: how many partitions stopped longer than the pause threshold
+ * - mean and max pause: the longest processing gap per partition, averaged and overall
+ * - records/s processed by the whole group during the step
+ * 
+ * No broker is needed; one join/sync round with the coordinator is simulated as a
+ * fixed delay.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.RebalancePauseBenchmark"
+ */
+public class RebalancePauseBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RebalancePauseBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITIONS = 12;
+    private static final int MAX_MEMBERS = 4;
+    private static final int RECORDS_PER_POLL = 1; // Per partition
+    private static final long PROCESSING_TIME_MS = 1;
+    private static final long ROUND_MS = 100; // One join/sync round trip with the coordinator
+    private static final long STEP_MS = 1500; // Time measured per scale-out step, including the rebalance
+    private static final long PAUSE_THRESHOLD_MS = 50; // Longer gaps count as a paused partition
+    
+    /**
+     * Scale out step by step and append one report line per step
+     */
+    static void run(SimulatedGroup.Protocol protocol, StringBuilder report) throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, RECORDS_PER_POLL, protocol, ROUND_MS);
+        List<BasicConsumer> consumers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        
+        for (int size = 1; size <= MAX_MEMBERS; size++) {
+            SimulatedGroup.Member member = group.newMember();
+            BasicConsumer consumer = new BasicConsumer(member, PROCESSING_TIME_MS);
+            consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+            Thread thread = new Thread(consumer::handleRebalancing, "member-" + size);
+            consumers.add(consumer);
+            threads.add(thread);
+            thread.start();
+            
+            group.resetStats();
+            long start = System.nanoTime();
+            group.join(member);
+            Thread.sleep(STEP_MS);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            
+            // The first step only starts the group, there is nothing to compare
+            if (size > 1) {
+                appendStep(report, protocol, size, group.maxPauseMillis().values(), group.fetchedRecords() / seconds);
+            }
+        }
+        
+        for (BasicConsumer consumer : consumers) {
+            consumer.stop();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+    
+    private static void appendStep(StringBuilder report, SimulatedGroup.Protocol protocol, int size,
+                                   Collection<Long> pauses, double recordsPerSecond) {
+        long paused = pauses.stream().filter(pause -> pause > PAUSE_THRESHOLD_MS).count();
+        double mean = pauses.stream().mapToLong(Long::longValue).average().orElse(0);
+        long max = pauses.stream().mapToLong(Long::longValue).max().orElse(0);
+        report.append(String.format("%-12s %8s %10d/%-3d %12.1f %10d %12.0f%n",
+                protocol.name().toLowerCase(), (size - 1) + "->" + size, paused, PARTITIONS, mean, max,
+                recordsPerSecond));
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        // Warm up the JIT so the first protocol is not penalised
+        run(SimulatedGroup.Protocol.EAGER, new StringBuilder());
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-12s %8s %14s %12s %10s %12s%n",
+                "protocol", "members", "paused", "mean ms", "max ms", "records/s"));
+        for (SimulatedGroup.Protocol protocol : SimulatedGroup.Protocol.values()) {
+            run(protocol, report);
+        }
+        
+        logger.info("Processing pauses while scaling out ({} partitions, {} ms per round, paused = over {} ms):{}",
+                   PARTITIONS, ROUND_MS, PAUSE_THRESHOLD_MS, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.kafka.course.lab1;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart Pause Benchmark
+ * 
+ * Restarts one member of a {@link SimulatedGroup} of {@link BasicConsumer}s (stop,
+ * final commit, down for a while, start again) and reports how the group's processing
+ * is affected:
+ * - dynamic members: leaving and rejoining each trigger a rebalance (measured with the
+ *   eager and the cooperative protocol)
+ * - static members (group.instance.id set, see {@link BasicConsumer#GROUP_INSTANCE_ID_ENV}):
+ *   the restarted member's partitions wait for it and nothing else moves
+ * 
+ * Per scenario: rebalances, partitions moved to another owner, partitions paused longer than the threshold, mean and max
+ * pause per partition and records/s processed by the group.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.RestartPauseBenchmark"
+ */
+public class RestartPauseBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RestartPauseBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITIONS = 12;
+    private static final int MEMBERS = 3;
+    private static final int RECORDS_PER_POLL = 1; // Per partition
+    private static final long PROCESSING_TIME_MS = 1;
+    private static final long ROUND_MS = 100; // One join/sync round trip with the coordinator
+    private static final long DOWNTIME_MS = 500; // Time the restarted member is gone
+    private static final long SETTLE_MS = 1000; // Measured after the member is back
+    private static final long PAUSE_THRESHOLD_MS = 50; // Longer gaps count as a paused partition
+    
+    /**
+     * A member of the group together with the consumer and thread driving it
+     */
+    private static class RunningMember {
+        
+        private final SimulatedGroup.Member member;
+        private final BasicConsumer consumer;
+        private final Thread thread;
+        
+        RunningMember(SimulatedGroup.Member member, String name) {
+            this.member = member;
+            this.consumer = new BasicConsumer(member, PROCESSING_TIME_MS);
+            this.consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+            this.thread = new Thread(consumer::handleRebalancing, name);
+            this.thread.start();
+        }
+        
+        void stop() throws InterruptedException {
+            consumer.stop();
+            thread.join();
+        }
+    }
+    
+    private static SimulatedGroup.Member newMember(SimulatedGroup group, boolean staticMembers, int index) {
+        return staticMembers ? group.newStaticMember("member-" + index) : group.newMember();
+    }
+    
+    static void run(String scenario, SimulatedGroup.Protocol protocol, boolean staticMembers, StringBuilder report)
+            throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, RECORDS_PER_POLL, protocol, ROUND_MS);
+        List<RunningMember> running = new ArrayList<>();
+        for (int m = 0; m < MEMBERS; m++) {
+            RunningMember member = new RunningMember(newMember(group, staticMembers, m), "member-" + m);
+            group.join(member.member);
+            running.add(member);
+        }
+        Thread.sleep(SETTLE_MS);
+        
+        // Restart the last member: stop (final commit), leave, stay down, start and join again
+        group.resetStats();
+        long start = System.nanoTime();
+        RunningMember restarted = running.remove(running.size() - 1);
+        restarted.stop();
+        group.leave(restarted.member);
+        Thread.sleep(DOWNTIME_MS);
+        RunningMember replacement = new RunningMember(newMember(group, staticMembers, MEMBERS - 1), "member-restarted");
+        group.join(replacement.member);
+        running.add(replacement);
+        Thread.sleep(SETTLE_MS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        appendScenario(report, scenario, group.rebalances(), group.moves(), group.maxPauseMillis().values(),
+                       group.fetchedRecords() / seconds);
+        for (RunningMember member : running) {
+            member.stop();
+        }
+    }
+    
+    private static void appendScenario(StringBuilder report, String scenario, int rebalances, int moves,
+                                       Collection<Long> pauses, double recordsPerSecond) {
+        long paused = pauses.stream().filter(pause -> pause > PAUSE_THRESHOLD_MS).count();
+        double mean = pauses.stream().mapToLong(Long::longValue).average().orElse(0);
+        long max = pauses.stream().mapToLong(Long::longValue).max().orElse(0);
+        report.append(String.format("%-20s %10d %6d %10d/%-3d %10.1f %10d %12.0f%n",
+                scenario, rebalances, moves, paused, PARTITIONS, mean, max, recordsPerSecond));
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        // Warm up the JIT so the first scenario is not penalised
+        run("warm-up", SimulatedGroup.Protocol.COOPERATIVE, false, new StringBuilder());
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-20s %10s %6s %14s %10s %10s %12s%n",
+                "scenario", "rebalances", "moved", "paused", "mean ms", "max ms", "records/s"));
+        run("dynamic eager", SimulatedGroup.Protocol.EAGER, false, report);
+        run("dynamic cooperative", SimulatedGroup.Protocol.COOPERATIVE, false, report);
+        run("static", SimulatedGroup.Protocol.COOPERATIVE, true, report);
+        
+        logger.info("Processing pauses during a restart of 1 of {} members ({} partitions, {} ms down, "
+                   + "{} ms per round, paused = over {} ms):{}",
+                   MEMBERS, PARTITIONS, DOWNTIME_MS, ROUND_MS, PAUSE_THRESHOLD_MS, report);
+    }
+}
\ No newline at end of file
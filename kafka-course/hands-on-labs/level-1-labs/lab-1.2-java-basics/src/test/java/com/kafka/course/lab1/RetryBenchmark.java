@@ -0,0 +1,194 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry Benchmark
+ * 
+ * Runs {@link BasicConsumer#consumeWithErrorHandling()} over an {@link InMemoryLog} with
+ * one poison record in a single main-topic partition and compares two ways to retry it:
+ * - in-place: the record is retried with backoff sleeps on the poll thread, then dropped
+ * - retry topics: the record goes to tiered retry topics through a {@link RetryRouter}
+ *   and is retried by a {@link RetryScheduler} thread, then sent to the dead-letter topic
+ * 
+ * Both use the same delays. Per mode: main-topic records/s in 100 ms windows (min and mean),
+ * the longest gap between two processed main-topic records, and when the poison record
+ * was given up on.
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.RetryBenchmark" -Dexec.args="2000 1"
+ */
+public class RetryBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RetryBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final long[] DELAYS_MS = {100, 200, 400}; // In-place backoffs and retry tier delays
+    private static final int MAX_POLL_RECORDS = 500;
+    private static final long WINDOW_MS = 100;
+    private static final long GIVE_UP_TIMEOUT_MS = 10000;
+    
+    /**
+     * Counts processed main-topic records and tracks the longest gap between them
+     */
+    private static class MainTopicProgress {
+        
+        private final AtomicLong processed = new AtomicLong();
+        private volatile long lastNanos;
+        private volatile long maxGapNanos;
+        private volatile long gaveUpNanos;
+        
+        void onProcessed() {
+            long now = System.nanoTime();
+            if (lastNanos != 0) {
+                maxGapNanos = Math.max(maxGapNanos, now - lastNanos);
+            }
+            lastNanos = now;
+            processed.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Fails poison records; every other record succeeds
+     */
+    private static RecordProcessor processor(MainTopicProgress progress) {
+        return record -> {
+            if (record.value().contains("poison")) {
+                throw new IllegalArgumentException("Cannot process poison record " + record.key());
+            }
+            if (TOPIC_NAME.equals(record.topic())) {
+                progress.onProcessed();
+            }
+        };
+    }
+    
+    /**
+     * Retry a failing record on the calling thread with a backoff sleep before each retry
+     */
+    private static RecordProcessor retryInPlace(RecordProcessor processor, MainTopicProgress progress) {
+        return record -> {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    processor.process(record);
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt == DELAYS_MS.length) {
+                        progress.gaveUpNanos = System.nanoTime();
+                        throw e;
+                    }
+                }
+                try {
+                    Thread.sleep(DELAYS_MS[attempt]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while retrying", e);
+                }
+            }
+        };
+    }
+    
+    static void run(String mode, boolean retryTopics, int records, int poisonRecords, long processingTimeMs,
+                    StringBuilder report) throws InterruptedException {
+        InMemoryLog log = new InMemoryLog();
+        log.createTopic(TOPIC_NAME, 1);
+        BasicProducer producer = new BasicProducer(log.producer());
+        RetryRouter router = new RetryRouter(producer, TOPIC_NAME, DELAYS_MS);
+        for (String topic : router.getRetryTopics()) {
+            log.createTopic(topic, 1);
+        }
+        log.createTopic(router.getDeadLetterTopic(), 1);
+        
+        // Poison records are spread evenly through the main topic
+        int poisonEvery = poisonRecords > 0 ? records / poisonRecords : Integer.MAX_VALUE;
+        for (int i = 0; i < records; i++) {
+            boolean poison = i % poisonEvery == poisonEvery / 2;
+            log.append(new ProducerRecord<>(TOPIC_NAME, "key-" + i, (poison ? "poison-" : "value-") + i));
+        }
+        int expected = records - Math.min(poisonRecords, records);
+        
+        MainTopicProgress progress = new MainTopicProgress();
+        RecordProcessor processor = processor(progress);
+        BasicConsumer consumer = new BasicConsumer(log.consumer(MAX_POLL_RECORDS), processingTimeMs);
+        consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+        RetryScheduler scheduler = null;
+        Thread schedulerThread = null;
+        if (retryTopics) {
+            consumer.setRecordProcessor(processor);
+            consumer.setRetryRouter(router);
+            scheduler = new RetryScheduler(log.consumer(MAX_POLL_RECORDS), router, processor);
+            schedulerThread = new Thread(scheduler, "retry-scheduler");
+            schedulerThread.start();
+        } else {
+            consumer.setRecordProcessor(retryInPlace(processor, progress));
+        }
+        
+        long start = System.nanoTime();
+        Thread consumerThread = new Thread(consumer::consumeWithErrorHandling, "consumer");
+        consumerThread.start();
+        
+        // Sample main-topic progress once per window until every good record has been processed
+        List<Long> windows = new ArrayList<>();
+        long previous = 0;
+        while (progress.processed.get() < expected) {
+            Thread.sleep(WINDOW_MS);
+            long current = progress.processed.get();
+            if (current < expected) { // The last window is cut short
+                windows.add(current - previous);
+            }
+            previous = current;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        // With retry topics the poison records are given up on after the last tier, in the background
+        long deadline = System.currentTimeMillis() + GIVE_UP_TIMEOUT_MS;
+        while (retryTopics && router.deadLettered() < poisonRecords && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        if (retryTopics && router.deadLettered() >= poisonRecords) {
+            progress.gaveUpNanos = System.nanoTime();
+        }
+        consumer.stop();
+        consumerThread.join();
+        consumer.close();
+        if (scheduler != null) {
+            scheduler.stop();
+            schedulerThread.join();
+        }
+        
+        double perSecond = 1000.0 / WINDOW_MS;
+        long minWindow = windows.stream().mapToLong(Long::longValue).min().orElse(0);
+        double meanWindow = windows.stream().mapToLong(Long::longValue).average().orElse(0);
+        String gaveUp = progress.gaveUpNanos == 0 ? "-"
+            : String.valueOf(TimeUnit.NANOSECONDS.toMillis(progress.gaveUpNanos - start));
+        report.append(String.format("%-14s %12.0f %12.0f %12.0f %12d %10d %10d %12s%n",
+                mode, expected / seconds, minWindow * perSecond, meanWindow * perSecond,
+                TimeUnit.NANOSECONDS.toMillis(progress.maxGapNanos), router.retried(), router.deadLettered(),
+                gaveUp));
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int poisonRecords = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long processingTimeMs = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        
+        // Warm up the JIT so the first mode is not penalised
+        run("warm-up", true, records / 4, 0, processingTimeMs, new StringBuilder());
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-14s %12s %12s %12s %12s %10s %10s %12s%n",
+                "mode", "records/s", "min/s", "mean/s", "max gap ms", "retried", "dlq", "gave up ms"));
+        run("in-place", false, records, poisonRecords, processingTimeMs, report);
+        run("retry topics", true, records, poisonRecords, processingTimeMs, report);
+        
+        logger.info("Main-topic throughput with {} poison record(s) in {} ({} ms per record, delays {} ms, "
+                   + "{} ms windows):{}", poisonRecords, records, processingTimeMs,
+                   Arrays.toString(DELAYS_MS), WINDOW_MS, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Retry Router Test
+ * 
+ * Routes failed records through a producer whose sends fail: {@link RetryRouter#flush()}
+ * reports the failure to the thread that routed the records, and neither the main
+ * consumer nor the {@link RetryScheduler} moves its offsets past a record that was not
+ * routed.
+ */
+public class RetryRouterTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final long[] DELAYS_MS = {1000};
+    private static final int RECORDS = 5;
+    private static final long FAILING_OFFSET = 2;
+    
+    /**
+     * MockProducer whose first sends fail with a timeout; the others succeed right away
+     */
+    private static class FailingProducer extends MockProducer<String, String> {
+        
+        private final AtomicInteger failures;
+        
+        FailingProducer(int failures) {
+            super(true, new StringSerializer(), new StringSerializer());
+            this.failures = new AtomicInteger(failures);
+        }
+        
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+            if (failures.getAndDecrement() > 0) {
+                TimeoutException exception = new TimeoutException("Expiring record for " + record.topic());
+                callback.onCompletion(null, exception);
+                CompletableFuture<RecordMetadata> failed = new CompletableFuture<>();
+                failed.completeExceptionally(exception);
+                return failed;
+            }
+            return super.send(record, callback);
+        }
+    }
+    
+    /**
+     * MockConsumer whose committed offsets can still be read after the scheduler closed it
+     */
+    private static class ClosableMockConsumer extends MockConsumer<String, String> {
+        
+        ClosableMockConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+        
+        @Override
+        public synchronized void close() {
+        }
+    }
+    
+    private static ConsumerRecord<String, String> failedRecord(String topic, long offset) {
+        return new ConsumerRecord<>(topic, 0, offset, "key-" + offset, "value-" + offset);
+    }
+    
+    private static void failAt(ConsumerRecord<String, String> record) {
+        if (record.offset() == FAILING_OFFSET) {
+            throw new IllegalStateException("Cannot process record " + record.offset());
+        }
+    }
+    
+    @Test
+    public void flushReportsFailedRouteToTheRoutingThreadOnly() throws InterruptedException {
+        RetryRouter router = new RetryRouter(new BasicProducer(new FailingProducer(1)), TOPIC_NAME, DELAYS_MS);
+        router.route(failedRecord(TOPIC_NAME, 0), new IllegalStateException("Cannot process record"));
+        
+        List<Throwable> otherThread = new CopyOnWriteArrayList<>();
+        Thread flusher = new Thread(() -> {
+            try {
+                router.flush();
+            } catch (RuntimeException e) {
+                otherThread.add(e);
+            }
+        });
+        flusher.start();
+        flusher.join();
+        
+        KafkaException failure = assertThrows(KafkaException.class, router::flush);
+        assertEquals(TimeoutException.class, failure.getCause().getClass());
+        assertEquals(Collections.emptyList(), otherThread);
+        assertEquals(1, router.routeFailures());
+        router.flush(); // Reported once
+    }
+    
+    @Test(timeout = 10000)
+    public void consumerRewindsToRecordWhoseRouteFailed() throws InterruptedException {
+        InMemoryLog log = new InMemoryLog();
+        log.createTopic(TOPIC_NAME, 1);
+        for (int i = 0; i < RECORDS; i++) {
+            log.append(new ProducerRecord<>(TOPIC_NAME, 0, "key-" + i, "value-" + i));
+        }
+        FailingProducer producer = new FailingProducer(1);
+        RetryRouter router = new RetryRouter(new BasicProducer(producer), TOPIC_NAME, DELAYS_MS);
+        
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        BasicConsumer consumer = new BasicConsumer(log.consumer(RECORDS), 0);
+        consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+        consumer.setRetryRouter(router);
+        consumer.setRecordProcessor(record -> {
+            processed.add(record.offset());
+            failAt(record);
+        });
+        Thread consumerThread = new Thread(consumer::consumeWithErrorHandling, "error-handling-consumer");
+        consumerThread.start();
+        while (producer.history().isEmpty()) {
+            Thread.sleep(10);
+        }
+        consumer.stop();
+        consumerThread.join();
+        
+        // The position the next auto-commit would have committed went back to the record
+        // that was not routed: it and the records after it were processed again
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 2L, 3L, 4L), processed);
+        assertEquals(1, producer.history().size());
+        assertEquals(router.getRetryTopics().get(0), producer.history().get(0).topic());
+        assertEquals("value-" + FAILING_OFFSET, producer.history().get(0).value());
+    }
+    
+    @Test(timeout = 10000)
+    public void schedulerCommitsNothingPastRecordWhoseRouteFailed() throws InterruptedException {
+        RetryRouter router = new RetryRouter(new BasicProducer(new FailingProducer(Integer.MAX_VALUE)), TOPIC_NAME,
+            DELAYS_MS);
+        TopicPartition retryPartition = new TopicPartition(router.getRetryTopics().get(0), 0);
+        ClosableMockConsumer retryConsumer = new ClosableMockConsumer();
+        retryConsumer.schedulePollTask(() -> {
+            retryConsumer.rebalance(Collections.singletonList(retryPartition));
+            retryConsumer.updateBeginningOffsets(Collections.singletonMap(retryPartition, 0L));
+            for (int i = 0; i < RECORDS; i++) {
+                ConsumerRecord<String, String> record = failedRecord(retryPartition.topic(), i);
+                record.headers().add(RetryRouter.ATTEMPT_HEADER, "1".getBytes(StandardCharsets.UTF_8));
+                record.headers().add(RetryRouter.DUE_HEADER, "0".getBytes(StandardCharsets.UTF_8));
+                retryConsumer.addRecord(record);
+            }
+        });
+        RetryScheduler scheduler = new RetryScheduler(retryConsumer, router, RetryRouterTest::failAt);
+        Thread schedulerThread = new Thread(scheduler, "retry-scheduler");
+        schedulerThread.start();
+        while (router.routeFailures() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100); // Several more polls, each followed by a commit
+        scheduler.stop();
+        schedulerThread.join();
+        
+        assertEquals(RECORDS - 1, scheduler.succeeded());
+        assertEquals(FAILING_OFFSET,
+                     retryConsumer.committed(Collections.singleton(retryPartition)).get(retryPartition).offset());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,469 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulated Consumer Group
+ * 
+ * A consumer group made of {@link MockConsumer}s, for measuring rebalances without a
+ * broker. MockConsumer never invokes rebalance listeners, so this class plays the
+ * group coordinator:
+ * - Every member reads an endless topic: each poll returns the next records of every
+ *   assigned partition
+ * - Commits go to one store shared by all members, so a new owner of a partition
+ *   resumes from the offset (and metadata) committed by the previous one
+ * - {@link #join} runs a rebalance with the chosen protocol. Listener callbacks run on
+ *   the member's own poll thread, inside poll(), like with a real consumer
+ * - {@link #leave} removes a stopped member: a dynamic member triggers a rebalance, a
+ *   static member (with a group instance id) keeps its partitions reserved, and when a
+ *   member with the same id joins within the session timeout it gets them back without
+ *   a rebalance. Once the session times out, its partitions are rebalanced to the others
+ * - {@link #lose} expires a member that is still polling: its partitions are lost, not
+ *   revoked, and rebalanced to the others
+ * 
+ * EAGER: every member revokes all its partitions and waits until all members have
+ * rejoined, then one join/sync round later receives its new range assignment.
+ * COOPERATIVE: after one round members revoke only the partitions that move and keep
+ * processing the rest; a second round assigns the moved partitions to their new owner.
+ * 
+ * Partitions moving to a different owner are counted. For every partition the longest
+ * gap between two polls returning its records is tracked, which is how long processing
+ * of that partition was paused.
+ */
+public class SimulatedGroup {
+    
+    /**
+     * Rebalance protocol of the group
+     */
+    public enum Protocol {
+        EAGER,
+        COOPERATIVE
+    }
+    
+    private final String topic;
+    private final List<TopicPartition> partitions = new ArrayList<>();
+    private final int recordsPerPoll; // Per partition
+    private final Protocol protocol;
+    private final long roundMs; // Duration of one join/sync round trip with the coordinator
+    private final List<Member> members = new CopyOnWriteArrayList<>();
+    private final Map<TopicPartition, OffsetAndMetadata> committed = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> lastFetchNanos = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> maxGapNanos = new ConcurrentHashMap<>();
+    private final LongAdder fetchedRecords = new LongAdder();
+    private final Map<String, Set<TopicPartition>> staticAssignments = new ConcurrentHashMap<>(); // Of absent static members
+    private final Map<TopicPartition, Object> lastOwners = new ConcurrentHashMap<>(); // Instance id or member
+    private final AtomicInteger moves = new AtomicInteger();
+    private volatile long sessionTimeoutMs = Long.MAX_VALUE; // Absent static members never expire by default
+    private int rebalances;
+    
+    public SimulatedGroup(String topic, int partitionCount, int recordsPerPoll, Protocol protocol, long roundMs) {
+        this.topic = topic;
+        for (int p = 0; p < partitionCount; p++) {
+            partitions.add(new TopicPartition(topic, p));
+        }
+        this.recordsPerPoll = recordsPerPoll;
+        this.protocol = protocol;
+        this.roundMs = roundMs;
+    }
+    
+    /**
+     * Time an absent static member keeps its partitions reserved (session.timeout.ms)
+     */
+    public void setSessionTimeout(long sessionTimeoutMs) {
+        this.sessionTimeoutMs = sessionTimeoutMs;
+    }
+    
+    /**
+     * A group member; hand it to a {@link BasicConsumer} and call {@link #join} once it polls
+     */
+    public class Member extends MockConsumer<String, String> {
+        
+        private final String groupInstanceId; // Null for a dynamic member
+        private volatile ConsumerRebalanceListener listener;
+        
+        Member(String groupInstanceId) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.groupInstanceId = groupInstanceId;
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                beginningOffsets.put(partition, 0L);
+            }
+            updateBeginningOffsets(beginningOffsets);
+        }
+        
+        @Override
+        public synchronized void subscribe(Collection<String> topics, ConsumerRebalanceListener listener) {
+            super.subscribe(topics, listener);
+            this.listener = listener;
+        }
+        
+        @Override
+        public ConsumerRecords<String, String> poll(Duration timeout) {
+            synchronized (this) {
+                for (TopicPartition partition : assignment()) {
+                    long position = position(partition);
+                    for (int i = 0; i < recordsPerPoll; i++) {
+                        addRecord(new ConsumerRecord<>(topic, partition.partition(), position + i,
+                                "key-" + (position + i), "value-" + (position + i)));
+                    }
+                }
+            }
+            // Rebalance tasks scheduled by the group run in here, on the poll thread
+            ConsumerRecords<String, String> records = super.poll(timeout);
+            
+            long now = System.nanoTime();
+            for (TopicPartition partition : records.partitions()) {
+                fetchedRecords.add(records.records(partition).size());
+                Long last = lastFetchNanos.put(partition, now);
+                if (last != null) {
+                    maxGapNanos.merge(partition, now - last, Math::max);
+                }
+            }
+            if (records.isEmpty()) {
+                // A real poll blocks while there is nothing to return
+                sleep(Math.min(timeout.toMillis(), 5));
+            }
+            return records;
+        }
+        
+        @Override
+        public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            committed.putAll(offsets);
+        }
+        
+        @Override
+        public void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+            committed.putAll(offsets);
+            if (callback != null) {
+                callback.onComplete(offsets, null);
+            }
+        }
+        
+        @Override
+        public Map<TopicPartition, OffsetAndMetadata> committed(Set<TopicPartition> requested) {
+            Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+            for (TopicPartition partition : requested) {
+                result.put(partition, committed.get(partition));
+            }
+            return result;
+        }
+        
+        /**
+         * Take over exactly the given partitions, positioned at their committed offsets
+         */
+        private void assignExactly(Set<TopicPartition> target) {
+            Set<TopicPartition> added = new HashSet<>(target);
+            added.removeAll(assignment());
+            rebalance(target);
+            Object owner = groupInstanceId != null ? groupInstanceId : this;
+            for (TopicPartition partition : added) {
+                Object previousOwner = lastOwners.put(partition, owner);
+                if (previousOwner != null && !previousOwner.equals(owner)) {
+                    moves.incrementAndGet();
+                }
+                OffsetAndMetadata offset = committed.get(partition);
+                seek(partition, offset == null ? 0 : offset.offset());
+            }
+        }
+    }
+    
+    /**
+     * Create a dynamic member that is not yet part of the group
+     */
+    public Member newMember() {
+        return new Member(null);
+    }
+    
+    /**
+     * Create a static member with the given group instance id
+     */
+    public Member newStaticMember(String groupInstanceId) {
+        return new Member(groupInstanceId);
+    }
+    
+    /**
+     * Add a member that has subscribed to the group, rebalancing all partitions
+     * 
+     * A static member returning under a known instance id gets its previous partitions
+     * back without a rebalance. Blocks until every member has received its assignment.
+     */
+    public void join(Member member) throws InterruptedException {
+        while (member.listener == null) {
+            Thread.sleep(1);
+        }
+        Set<TopicPartition> reserved = member.groupInstanceId == null ? null
+            : staticAssignments.remove(member.groupInstanceId);
+        if (reserved != null) {
+            CountDownLatch assigned = new CountDownLatch(1);
+            member.schedulePollTask(() -> {
+                member.assignExactly(reserved);
+                member.listener.onPartitionsAssigned(reserved);
+                assigned.countDown();
+            });
+            assigned.await();
+            members.add(member);
+            return;
+        }
+        List<Member> next = new ArrayList<>(members);
+        next.add(member);
+        rebalance(next);
+        members.add(member);
+    }
+    
+    /**
+     * Remove a member whose poll loop has stopped (after its final commit)
+     * 
+     * A dynamic member leaves the group, which rebalances its partitions to the others.
+     * A static member's partitions stay reserved for its instance id and are not processed
+     * until it joins again, or until its session times out and they are rebalanced.
+     */
+    public void leave(Member member) throws InterruptedException {
+        members.remove(member);
+        if (member.groupInstanceId != null) {
+            Set<TopicPartition> reserved = new HashSet<>(member.assignment());
+            staticAssignments.put(member.groupInstanceId, reserved);
+            if (sessionTimeoutMs != Long.MAX_VALUE) {
+                Thread expiry = new Thread(() -> expire(member.groupInstanceId, reserved),
+                                           "session-" + member.groupInstanceId);
+                expiry.setDaemon(true);
+                expiry.start();
+            }
+            return;
+        }
+        rebalance(new ArrayList<>(members));
+    }
+    
+    /**
+     * Expire a member that is still polling, e.g. after a pause longer than the session timeout
+     * 
+     * The member's listener gets onPartitionsLost instead of onPartitionsRevoked, on its poll
+     * thread, and its partitions are rebalanced to the remaining members, which resume from
+     * whatever was committed before.
+     */
+    public void lose(Member member) throws InterruptedException {
+        members.remove(member);
+        CountDownLatch lost = new CountDownLatch(1);
+        member.schedulePollTask(() -> {
+            member.listener.onPartitionsLost(new HashSet<>(member.assignment()));
+            member.assignExactly(Collections.emptySet());
+            lost.countDown();
+        });
+        lost.await();
+        if (!members.isEmpty()) {
+            rebalance(new ArrayList<>(members));
+        }
+    }
+    
+    private void expire(String groupInstanceId, Set<TopicPartition> reserved) {
+        try {
+            Thread.sleep(sessionTimeoutMs);
+            // Unless the member has joined again in time
+            if (staticAssignments.remove(groupInstanceId, reserved)) {
+                rebalance(new ArrayList<>(members));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private synchronized void rebalance(List<Member> next) throws InterruptedException {
+        rebalances++;
+        if (protocol == Protocol.EAGER) {
+            rebalanceEager(next, rangeAssignment(next));
+        } else {
+            rebalanceCooperative(next, stickyAssignment(next));
+        }
+    }
+    
+    private void rebalanceEager(List<Member> group, Map<Member, Set<TopicPartition>> targets)
+            throws InterruptedException {
+        CountDownLatch rejoined = new CountDownLatch(group.size());
+        CountDownLatch synced = new CountDownLatch(1);
+        CountDownLatch assigned = new CountDownLatch(group.size());
+        for (Member member : group) {
+            member.schedulePollTask(() -> {
+                // Stop the world: everything is revoked before rejoining
+                member.listener.onPartitionsRevoked(new HashSet<>(member.assignment()));
+                member.rebalance(Collections.emptySet());
+                rejoined.countDown();
+                awaitUninterruptibly(synced);
+                member.assignExactly(targets.get(member));
+                member.listener.onPartitionsAssigned(targets.get(member));
+                assigned.countDown();
+            });
+        }
+        rejoined.await();
+        Thread.sleep(roundMs);
+        synced.countDown();
+        assigned.await();
+    }
+    
+    private void rebalanceCooperative(List<Member> group, Map<Member, Set<TopicPartition>> targets)
+            throws InterruptedException {
+        // First round: members learn which of their partitions move and revoke only those
+        Thread.sleep(roundMs);
+        CountDownLatch revoked = new CountDownLatch(group.size());
+        for (Member member : group) {
+            member.schedulePollTask(() -> {
+                Set<TopicPartition> moving = new HashSet<>(member.assignment());
+                moving.removeAll(targets.get(member));
+                if (!moving.isEmpty()) {
+                    member.listener.onPartitionsRevoked(moving);
+                    Set<TopicPartition> kept = new HashSet<>(member.assignment());
+                    kept.removeAll(moving);
+                    member.assignExactly(kept);
+                }
+                revoked.countDown();
+            });
+        }
+        revoked.await();
+        
+        // Second round: the revoked partitions are handed to their new owners
+        Thread.sleep(roundMs);
+        CountDownLatch assigned = new CountDownLatch(group.size());
+        for (Member member : group) {
+            member.schedulePollTask(() -> {
+                Set<TopicPartition> added = new HashSet<>(targets.get(member));
+                added.removeAll(member.assignment());
+                member.assignExactly(targets.get(member));
+                member.listener.onPartitionsAssigned(added);
+                assigned.countDown();
+            });
+        }
+        assigned.await();
+    }
+    
+    /**
+     * Contiguous ranges of partitions per member, like the RangeAssignor
+     */
+    private Map<Member, Set<TopicPartition>> rangeAssignment(List<Member> group) {
+        Map<Member, Set<TopicPartition>> targets = new HashMap<>();
+        int next = 0;
+        for (int m = 0; m < group.size(); m++) {
+            int count = partitions.size() / group.size() + (m < partitions.size() % group.size() ? 1 : 0);
+            targets.put(group.get(m), new HashSet<>(partitions.subList(next, next + count)));
+            next += count;
+        }
+        return targets;
+    }
+    
+    /**
+     * Balanced assignment that keeps as many current partitions as possible with their owner
+     */
+    private Map<Member, Set<TopicPartition>> stickyAssignment(List<Member> group) {
+        List<Member> bySize = new ArrayList<>(group);
+        bySize.sort(Comparator.comparingInt((Member member) -> member.assignment().size()).reversed());
+        
+        Map<Member, Set<TopicPartition>> targets = new HashMap<>();
+        List<TopicPartition> unassigned = new ArrayList<>(partitions);
+        for (int m = 0; m < bySize.size(); m++) {
+            int quota = partitions.size() / group.size() + (m < partitions.size() % group.size() ? 1 : 0);
+            Set<TopicPartition> kept = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                if (kept.size() < quota && bySize.get(m).assignment().contains(partition)) {
+                    kept.add(partition);
+                    unassigned.remove(partition);
+                }
+            }
+            targets.put(bySize.get(m), kept);
+        }
+        for (int m = 0; m < bySize.size(); m++) {
+            int quota = partitions.size() / group.size() + (m < partitions.size() % group.size() ? 1 : 0);
+            Set<TopicPartition> target = targets.get(bySize.get(m));
+            while (target.size() < quota) {
+                target.add(unassigned.remove(0));
+            }
+        }
+        return targets;
+    }
+    
+    /**
+     * Forget the pauses, record counts and rebalances seen so far
+     */
+    public synchronized void resetStats() {
+        maxGapNanos.clear();
+        fetchedRecords.reset();
+        rebalances = 0;
+        moves.set(0);
+    }
+    
+    /**
+     * Partitions that were assigned to a different owner than before since the last reset;
+     * the new owner starts with cold caches and has to rebuild any local state
+     */
+    public int moves() {
+        return moves.get();
+    }
+    
+    /**
+     * Rebalances run since the last reset
+     */
+    public synchronized int rebalances() {
+        return rebalances;
+    }
+    
+    /**
+     * Longest time in ms between two polls returning records of each partition since the last reset
+     */
+    public Map<TopicPartition, Long> maxPauseMillis() {
+        Map<TopicPartition, Long> pauses = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            pauses.put(partition, TimeUnit.NANOSECONDS.toMillis(maxGapNanos.getOrDefault(partition, 0L)));
+        }
+        return pauses;
+    }
+    
+    /**
+     * Records returned to all members since the last reset
+     */
+    public long fetchedRecords() {
+        return fetchedRecords.sum();
+    }
+    
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
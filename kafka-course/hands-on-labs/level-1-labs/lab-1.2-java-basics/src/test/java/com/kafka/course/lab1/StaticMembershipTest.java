@@ -0,0 +1,176 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Static Membership Test
+ * 
+ * Restarts one of three static members of a {@link SimulatedGroup} of {@link BasicConsumer}s
+ * running {@link BasicConsumer#handleRebalancing()} and checks what the consumers process:
+ * - Within the session timeout the other members keep their partitions and never see the
+ *   restarted member's ones, and the restarted member resumes each of its partitions right
+ *   after the last record it processed before it stopped
+ * - Past the session timeout the partitions are reassigned (so the check above can fail)
+ */
+public class StaticMembershipTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITIONS = 6;
+    private static final int MEMBERS = 3;
+    private static final long PROCESSING_TIME_MS = 1;
+    private static final long ROUND_MS = 20; // One join/sync round trip with the coordinator
+    private static final long SESSION_TIMEOUT_MS = 500; // Scaled down from the 60s of a static member
+    private static final long SETTLE_MS = 300;
+    
+    private final List<RunningMember> running = new ArrayList<>();
+    
+    /**
+     * A static member with the consumer driving it and the records it processed
+     */
+    private static class RunningMember {
+        
+        private final SimulatedGroup.Member member;
+        private final BasicConsumer consumer;
+        private final Thread thread;
+        private final Map<TopicPartition, Long> firstOffsets = new ConcurrentHashMap<>();
+        private final Map<TopicPartition, Long> lastOffsets = new ConcurrentHashMap<>();
+        
+        RunningMember(SimulatedGroup group, int index) {
+            member = group.newStaticMember("member-" + index);
+            consumer = new BasicConsumer(member, PROCESSING_TIME_MS);
+            consumer.setRecordLogger(RecordLogger.sampled("Received", 0, TimeUnit.HOURS.toMillis(1)));
+            consumer.setRecordProcessor(record -> {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                firstOffsets.putIfAbsent(partition, record.offset());
+                lastOffsets.put(partition, record.offset());
+            });
+            thread = new Thread(consumer::handleRebalancing, "member-" + index);
+            thread.start();
+        }
+        
+        /**
+         * Partitions processed since the last {@link #forget()}
+         */
+        Set<TopicPartition> processedPartitions() {
+            return new HashSet<>(firstOffsets.keySet());
+        }
+        
+        void forget() {
+            firstOffsets.clear(); // The last offsets stay, they are where the partitions resume
+        }
+        
+        void stop() throws InterruptedException {
+            consumer.stop();
+            thread.join();
+        }
+    }
+    
+    @After
+    public void tearDown() throws InterruptedException {
+        for (RunningMember member : running) {
+            member.stop();
+        }
+    }
+    
+    /**
+     * Start the group, then stop the last member and start it again after the downtime
+     * 
+     * @return the restarted member
+     */
+    private RunningMember restartLastMember(SimulatedGroup group, long downtimeMs) throws InterruptedException {
+        for (int m = 0; m < MEMBERS; m++) {
+            RunningMember member = new RunningMember(group, m);
+            group.join(member.member);
+            running.add(member);
+        }
+        Thread.sleep(SETTLE_MS);
+        for (RunningMember member : running) {
+            member.forget(); // Only what happens from the restart on counts
+        }
+        
+        RunningMember stopped = running.remove(MEMBERS - 1);
+        stopped.stop();
+        group.leave(stopped.member);
+        group.resetStats();
+        Thread.sleep(downtimeMs);
+        
+        RunningMember restarted = new RunningMember(group, MEMBERS - 1);
+        group.join(restarted.member);
+        running.add(restarted);
+        Thread.sleep(SETTLE_MS);
+        return stopped;
+    }
+    
+    @Test
+    public void staticMemberSessionOutlastsRestart() {
+        Properties dynamic = BasicConsumer.consumerConfig(false, StringDeserializer.class, Collections.emptyMap());
+        Properties staticMember = BasicConsumer.consumerConfig(false, StringDeserializer.class,
+            Collections.singletonMap(BasicConsumer.GROUP_INSTANCE_ID_ENV, "member-0"));
+        
+        assertNull(dynamic.get(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG));
+        assertEquals("member-0", staticMember.get(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG));
+        assertTrue((Integer) staticMember.get(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG)
+                   > (Integer) dynamic.get(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG));
+    }
+    
+    @Test(timeout = 30000)
+    public void restartWithinSessionTimeoutKeepsAssignment() throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, 1,
+            SimulatedGroup.Protocol.COOPERATIVE, ROUND_MS);
+        group.setSessionTimeout(SESSION_TIMEOUT_MS);
+        
+        RunningMember stopped = restartLastMember(group, SESSION_TIMEOUT_MS / 5);
+        RunningMember restarted = running.get(MEMBERS - 1);
+        Set<TopicPartition> reserved = stopped.member.assignment();
+        
+        assertEquals(0, group.rebalances());
+        assertEquals(reserved, restarted.member.assignment());
+        for (RunningMember other : running.subList(0, MEMBERS - 1)) {
+            Set<TopicPartition> seen = other.processedPartitions();
+            seen.retainAll(reserved);
+            assertTrue("Member processed partitions of the restarted member: " + seen, seen.isEmpty());
+        }
+        for (TopicPartition partition : reserved) {
+            // Neither reprocessed nor skipped: the final commit covered everything processed
+            assertEquals("Resume offset of " + partition, stopped.lastOffsets.get(partition) + 1,
+                         (long) restarted.firstOffsets.get(partition));
+        }
+    }
+    
+    @Test(timeout = 30000)
+    public void restartPastSessionTimeoutReassignsPartitions() throws InterruptedException {
+        SimulatedGroup group = new SimulatedGroup(TOPIC_NAME, PARTITIONS, 1,
+            SimulatedGroup.Protocol.COOPERATIVE, ROUND_MS);
+        group.setSessionTimeout(SESSION_TIMEOUT_MS);
+        
+        RunningMember stopped = restartLastMember(group, SESSION_TIMEOUT_MS + SETTLE_MS);
+        Set<TopicPartition> reserved = stopped.member.assignment();
+        
+        assertTrue(group.rebalances() > 0);
+        Set<TopicPartition> takenOver = new HashSet<>();
+        for (RunningMember other : running.subList(0, MEMBERS - 1)) {
+            takenOver.addAll(other.processedPartitions());
+        }
+        takenOver.retainAll(reserved);
+        assertFalse("No partition of the expired member was processed by the others", takenOver.isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+/**
+ * Transform Pipeline Benchmark
+ * 
+ * Runs {@link TransformPipeline} over the same input with at-least-once and exactly-once
+ * delivery and several batch sizes (records per transaction or offset commit), and
+ * reports records/s and the number of commits for each combination.
+ * 
+ * Arguments: [bootstrap-servers|mock] [record-count] [batch-sizes]
+ * - With bootstrap servers the records are first written to java-basics-topic and every
+ *   run reads them back with a fresh consumer group; this shows the real transaction cost
+ * - With "mock" a MockConsumer and MockProducer are used; this checks the harness and
+ *   measures client-side overhead only, since mock transactions and commits are free
+ * 
+ * Run with:
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass="com.kafka.course.lab1.TransformPipelineBenchmark" -Dexec.args="localhost:9092 100000 10,100,1000,10000"
+ */
+public class TransformPipelineBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransformPipelineBenchmark.class);
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final int PARTITIONS = 4; // Partitions of the mock input topic
+    private static final int RECORDS_PER_POLL = 500; // Same as max.poll.records
+    private static final long TRANSACTION_INTERVAL_MS = 1000; // Long enough that batch size decides
+    
+    private static Consumer<String, String> createMockConsumer(int count) {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        List<TopicPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            TopicPartition partition = new TopicPartition(TOPIC_NAME, p);
+            partitions.add(partition);
+            beginningOffsets.put(partition, 0L);
+        }
+        consumer.assign(partitions);
+        consumer.updateBeginningOffsets(beginningOffsets);
+        
+        // MockConsumer returns everything added so far on each poll, so add one poll's worth per task
+        for (int first = 0; first < count; first += RECORDS_PER_POLL) {
+            int from = first;
+            consumer.schedulePollTask(() -> {
+                for (int i = from; i < Math.min(count, from + RECORDS_PER_POLL); i++) {
+                    consumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, i % PARTITIONS, i / PARTITIONS,
+                            "key-" + (i % 1000), "value-" + i));
+                }
+            });
+        }
+        return consumer;
+    }
+    
+    private static TransformPipeline createPipeline(String target, TransformPipeline.Delivery delivery,
+                                                    int batchRecords, int count) {
+        Consumer<String, String> consumer;
+        Producer<String, String> producer;
+        if ("mock".equals(target)) {
+            consumer = createMockConsumer(count);
+            producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        } else {
+            Properties tuning = ProducerProfile.DURABLE.toProperties();
+            tuning.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+            String runId = "java-basics-pipeline-bench-" + System.currentTimeMillis();
+            consumer = BasicConsumer.createPipelineConsumer(runId);
+            producer = delivery == TransformPipeline.Delivery.EXACTLY_ONCE
+                ? BasicProducer.createTransactionalProducer(tuning, runId)
+                : BasicProducer.createProducer(tuning);
+        }
+        TransformPipeline pipeline = new TransformPipeline(consumer, producer, delivery,
+            TransformPipeline.OUTPUT_TOPIC_NAME, value -> value.toUpperCase(Locale.ROOT),
+            batchRecords, TRANSACTION_INTERVAL_MS);
+        if (!"mock".equals(target)) {
+            pipeline.subscribe(TOPIC_NAME);
+        }
+        return pipeline;
+    }
+    
+    /**
+     * Process count records and return records/s; fills in the number of committed batches
+     */
+    static double run(String target, TransformPipeline.Delivery delivery, int batchRecords, int count, long[] batches) {
+        TransformPipeline pipeline = createPipeline(target, delivery, batchRecords, count);
+        try {
+            long start = System.nanoTime();
+            long processed = 0;
+            while (processed < count) {
+                processed += pipeline.pollOnce();
+            }
+            pipeline.commitBatch();
+            long elapsedNanos = System.nanoTime() - start;
+            batches[0] = pipeline.committedBatches();
+            return processed * 1_000_000_000.0 / elapsedNanos;
+        } finally {
+            pipeline.close();
+        }
+    }
+    
+    private static void seedInput(String target, int count) throws InterruptedException, ExecutionException {
+        Properties tuning = ProducerProfile.THROUGHPUT.toProperties();
+        tuning.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, target);
+        BasicProducer producer = new BasicProducer(tuning);
+        try {
+            BulkSendResult result = producer.sendBulk(IntStream.range(0, count)
+                .mapToObj(i -> new ProducerRecord<>(TOPIC_NAME, "key-" + (i % 1000), "value-" + i)), 10000).get();
+            logger.info("Seeded input topic: {}", result);
+        } finally {
+            producer.close();
+        }
+    }
+    
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        String target = args.length > 0 ? args[0] : "mock";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int[] batchSizes = Arrays.stream((args.length > 2 ? args[2] : "10,100,1000,10000").split(","))
+            .mapToInt(size -> Integer.parseInt(size.trim()))
+            .toArray();
+        
+        if (!"mock".equals(target)) {
+            seedInput(target, count);
+        }
+        
+        long[] batches = new long[1];
+        // Warm up the JIT before measuring
+        run(target, TransformPipeline.Delivery.EXACTLY_ONCE, batchSizes[batchSizes.length - 1],
+            Math.min(count, 20000), batches);
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%-15s %10s %12s %10s %10s%n", "delivery", "batch", "records/s", "commits", "vs ALO"));
+        for (int batchRecords : batchSizes) {
+            double atLeastOnce = 0;
+            for (TransformPipeline.Delivery delivery : TransformPipeline.Delivery.values()) {
+                double throughput = run(target, delivery, batchRecords, count, batches);
+                if (delivery == TransformPipeline.Delivery.AT_LEAST_ONCE) {
+                    atLeastOnce = throughput;
+                }
+                report.append(String.format("%-15s %10d %12.0f %10d %9.2fx%n",
+                        delivery.name().toLowerCase(Locale.ROOT).replace('_', '-'), batchRecords, throughput,
+                        batches[0], throughput / atLeastOnce));
+            }
+        }
+        
+        logger.info("Consume-transform-produce throughput against {} ({} records):{}", target, count, report);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Transform Pipeline Test
+ * 
+ * Exactly-once batches of {@link TransformPipeline} against a MockConsumer and a
+ * MockProducer: commit timeouts, tombstones and a failing transform.
+ */
+public class TransformPipelineTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    
+    private MockConsumer<String, String> consumer;
+    private FlakyProducer producer;
+    
+    /**
+     * MockProducer whose first commitTransaction() times out, and which (like the real
+     * producer) rejects an abort after a commit timed out
+     */
+    private static class FlakyProducer extends MockProducer<String, String> {
+        
+        private int commitTimeouts;
+        private boolean commitTimedOut;
+        
+        FlakyProducer(int commitTimeouts) {
+            super(true, new StringSerializer(), new StringSerializer());
+            this.commitTimeouts = commitTimeouts;
+        }
+        
+        @Override
+        public void commitTransaction() {
+            if (commitTimeouts > 0) {
+                commitTimeouts--;
+                commitTimedOut = true;
+                throw new TimeoutException("Timeout expired after 60000ms while awaiting EndTxn(true)");
+            }
+            commitTimedOut = false;
+            super.commitTransaction();
+        }
+        
+        @Override
+        public void abortTransaction() {
+            if (commitTimedOut) {
+                throw new IllegalStateException("The previous call to commitTransaction timed out and must be retried");
+            }
+            super.abortTransaction();
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Collections.singletonList(PARTITION));
+        consumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+    }
+    
+    private TransformPipeline createPipeline(int commitTimeouts) {
+        producer = new FlakyProducer(commitTimeouts);
+        return new TransformPipeline(consumer, producer, TransformPipeline.Delivery.EXACTLY_ONCE,
+            TransformPipeline.OUTPUT_TOPIC_NAME, value -> value.toUpperCase(Locale.ROOT), 1000, 1000);
+    }
+    
+    private void addRecords(String... values) {
+        for (int i = 0; i < values.length; i++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC_NAME, 0, i, "key-" + i, values[i]));
+        }
+    }
+    
+    @Test
+    public void commitTimeoutIsRetried() {
+        TransformPipeline pipeline = createPipeline(1);
+        addRecords("a", "b", "c");
+        
+        assertEquals(3, pipeline.pollOnce());
+        pipeline.commitBatch();
+        
+        assertEquals(1, pipeline.committedBatches());
+        assertEquals(0, pipeline.abortedBatches());
+        assertTrue(producer.transactionCommitted());
+        assertFalse(producer.transactionInFlight());
+        assertEquals(3, producer.history().size());
+    }
+    
+    @Test
+    public void commitThatKeepsTimingOutIsFatal() {
+        TransformPipeline pipeline = createPipeline(Integer.MAX_VALUE);
+        addRecords("a");
+        
+        pipeline.pollOnce();
+        
+        assertThrows(TimeoutException.class, pipeline::commitBatch);
+        assertEquals(0, pipeline.abortedBatches());
+    }
+    
+    @Test
+    public void tombstonesPassThrough() {
+        TransformPipeline pipeline = createPipeline(0);
+        addRecords("a", null, "c");
+        
+        assertEquals(3, pipeline.pollOnce());
+        pipeline.commitBatch();
+        
+        assertEquals(1, pipeline.committedBatches());
+        assertEquals("A", producer.history().get(0).value());
+        assertNull(producer.history().get(1).value());
+        assertEquals("key-1", producer.history().get(1).key());
+        assertEquals("C", producer.history().get(2).value());
+    }
+    
+    @Test
+    public void failingTransformAbortsBatch() {
+        producer = new FlakyProducer(0);
+        TransformPipeline pipeline = new TransformPipeline(consumer, producer, TransformPipeline.Delivery.EXACTLY_ONCE,
+            TransformPipeline.OUTPUT_TOPIC_NAME, value -> {
+                if (value.equals("poison")) {
+                    throw new IllegalArgumentException("Cannot transform " + value);
+                }
+                return value;
+            }, 1000, 1000);
+        addRecords("a", "poison", "c");
+        
+        assertThrows(IllegalArgumentException.class, pipeline::pollOnce);
+        
+        assertEquals(1, pipeline.abortedBatches());
+        assertTrue(producer.transactionAborted());
+        assertFalse(producer.transactionInFlight());
+        assertTrue(producer.history().isEmpty());
+        assertEquals(0, consumer.position(PARTITION));
+    }
+}
\ No newline at end of file
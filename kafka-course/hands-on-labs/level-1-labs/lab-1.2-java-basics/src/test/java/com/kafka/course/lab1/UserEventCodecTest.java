@@ -0,0 +1,138 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User Event Codec Test
+ * 
+ * Round trips of {@link UserEventCodec} through {@link BinaryEventSerializer} and
+ * {@link BinaryEventDeserializer}, partial decoding, and rejection of foreign, truncated
+ * and malformed records.
+ */
+public class UserEventCodecTest {
+    
+    private static final String TOPIC_NAME = "java-basics-events";
+    private static final List<UserEvent> SAMPLES = Arrays.asList(
+        new UserEvent("user1", "purchase", 1700000000000L, 3, 49.95, "Event 1"),
+        new UserEvent(null, "", 0L, 0, 0.0, null),
+        new UserEvent("usér-ß-😀", "refund", -1L, -42, -0.5, "Ünïcödé description ✓"),
+        new UserEvent("u", "x", Long.MAX_VALUE, Integer.MIN_VALUE, Double.MAX_VALUE, "d"),
+        new UserEvent("u", "x", Long.MIN_VALUE, Integer.MAX_VALUE, Double.NaN, repeat('y', 100000)));
+    
+    private final BinaryEventSerializer serializer = new BinaryEventSerializer();
+    private final BinaryEventDeserializer deserializer = new BinaryEventDeserializer();
+    private final BinaryEventDeserializer partialDeserializer = new BinaryEventDeserializer(
+        EnumSet.of(UserEventCodec.Field.USER_ID, UserEventCodec.Field.AMOUNT));
+    
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+    
+    private static void assertSameEvent(UserEvent expected, UserEvent actual) {
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getEventType(), actual.getEventType());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+        assertEquals(expected.getAmount(), actual.getAmount(), 0.0); // Also NaN and -0.5 exactly
+        assertEquals(expected.getDescription(), actual.getDescription());
+    }
+    
+    @Test
+    public void roundTripsEveryField() {
+        for (UserEvent sample : SAMPLES) {
+            assertSameEvent(sample, deserializer.deserialize(TOPIC_NAME, serializer.serialize(TOPIC_NAME, sample)));
+        }
+    }
+    
+    @Test
+    public void partialDecodeLeavesSkippedFieldsUnset() {
+        for (UserEvent sample : SAMPLES) {
+            UserEvent partial = partialDeserializer.deserialize(TOPIC_NAME, serializer.serialize(TOPIC_NAME, sample));
+            
+            assertEquals(sample.getUserId(), partial.getUserId());
+            assertEquals(sample.getAmount(), partial.getAmount(), 0.0);
+            assertNull(partial.getEventType());
+            assertNull(partial.getDescription());
+            assertEquals(0, partial.getTimestamp());
+            assertEquals(0, partial.getQuantity());
+        }
+    }
+    
+    @Test
+    public void configuredFieldsSelectWhatIsDecoded() {
+        // As set through the consumer properties, e.g. value.deserializer plus binary.fields
+        BinaryEventDeserializer configured = new BinaryEventDeserializer();
+        configured.configure(Collections.singletonMap(BinaryEventDeserializer.FIELDS_CONFIG, " user_id, amount"),
+                             false);
+        
+        for (UserEvent sample : SAMPLES) {
+            byte[] data = serializer.serialize(TOPIC_NAME, sample);
+            UserEvent expected = partialDeserializer.deserialize(TOPIC_NAME, data);
+            assertSameEvent(expected, configured.deserialize(TOPIC_NAME, data));
+        }
+    }
+    
+    @Test
+    public void binaryEncodingIsSmallerThanJson() {
+        JsonSerializer<UserEvent> json = new JsonSerializer<>();
+        for (UserEvent sample : SAMPLES) {
+            int binarySize = serializer.serialize(TOPIC_NAME, sample).length;
+            int jsonSize = json.serialize(TOPIC_NAME, sample).length;
+            assertTrue(binarySize + " binary bytes vs " + jsonSize + " JSON bytes", binarySize < jsonSize);
+        }
+    }
+    
+    @Test
+    public void nullValuesStayNull() {
+        assertNull(serializer.serialize(TOPIC_NAME, null));
+        assertNull(deserializer.deserialize(TOPIC_NAME, null));
+    }
+    
+    @Test
+    public void foreignFingerprintIsRejected() {
+        byte[] data = serializer.serialize(TOPIC_NAME, SAMPLES.get(0));
+        data[1] ^= 0x5a;
+        
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC_NAME, data));
+    }
+    
+    @Test
+    public void truncatedRecordsAreRejected() {
+        for (UserEvent sample : SAMPLES) {
+            byte[] data = serializer.serialize(TOPIC_NAME, sample);
+            for (int length = 0; length < data.length; length++) {
+                byte[] truncated = Arrays.copyOf(data, length);
+                assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC_NAME, truncated));
+                assertThrows(SerializationException.class,
+                    () -> partialDeserializer.deserialize(TOPIC_NAME, truncated));
+            }
+        }
+    }
+    
+    @Test
+    public void malformedLengthsAreRejected() {
+        byte[] data = serializer.serialize(TOPIC_NAME, SAMPLES.get(0));
+        
+        byte[] tooLong = data.clone();
+        tooLong[UserEventCodec.HEADER_SIZE] = 0x7f; // user_id length past the end of the record
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC_NAME, tooLong));
+        assertThrows(SerializationException.class, () -> partialDeserializer.deserialize(TOPIC_NAME, tooLong));
+        
+        byte[] endlessVarint = Arrays.copyOf(data, UserEventCodec.HEADER_SIZE + 8);
+        Arrays.fill(endlessVarint, UserEventCodec.HEADER_SIZE, endlessVarint.length, (byte) 0xff);
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC_NAME, endlessVarint));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.kafka.course.lab1;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Windowed Aggregator Test
+ * 
+ * Window results and the offsets that are safe to commit while windows are open.
+ */
+public class WindowedAggregatorTest {
+    
+    private static final String TOPIC_NAME = "java-basics-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC_NAME, 0);
+    private static final long WINDOW_SIZE_MS = 1000;
+    
+    private final List<String> results = new ArrayList<>();
+    private final WindowedAggregator aggregator = new WindowedAggregator(WINDOW_SIZE_MS, WINDOW_SIZE_MS, 0,
+        value -> value.length(),
+        (key, start, end, count, sum) -> results.add(key + "@" + start + ":" + count + "/" + sum));
+    
+    private static ConsumerRecord<String, String> record(long offset, long timestampMs, String key, String value) {
+        return new ConsumerRecord<>(TOPIC_NAME, 0, offset, timestampMs, TimestampType.CREATE_TIME, -1, -1,
+            key, value, new RecordHeaders(), Optional.empty());
+    }
+    
+    @Test
+    public void emitsWindowOnceWatermarkPassesIt() {
+        aggregator.process(record(0, 100, "a", "xx"));
+        aggregator.process(record(1, 200, "a", "xxx"));
+        aggregator.process(record(2, 300, "b", "x"));
+        assertTrue(results.isEmpty());
+        
+        aggregator.process(record(3, 1500, "a", "x"));
+        
+        assertEquals(1, aggregator.emittedWindows());
+        assertEquals(2, results.size());
+        assertTrue(results.contains("a@0:2/5"));
+        assertTrue(results.contains("b@0:1/1"));
+    }
+    
+    @Test
+    public void committableOffsetStopsAtOpenWindows() {
+        aggregator.process(record(0, 100, "a", "x"));
+        aggregator.process(record(1, 200, "a", "x"));
+        assertEquals(0, aggregator.committableOffsets().get(PARTITION).offset());
+        
+        // Closes [0, 1000); offset 2 still counts in the open window [1000, 2000)
+        aggregator.process(record(2, 1500, "a", "x"));
+        assertEquals(2, aggregator.committableOffsets().get(PARTITION).offset());
+        
+        aggregator.flush();
+        assertEquals(3, aggregator.committableOffsets().get(PARTITION).offset());
+    }
+    
+    @Test
+    public void lateRecordsDoNotHoldBackCommits() {
+        aggregator.process(record(0, 1500, "a", "x"));
+        aggregator.process(record(1, 2500, "a", "x"));
+        aggregator.process(record(2, 100, "a", "x")); // All its windows are closed
+        
+        assertEquals(1, aggregator.lateRecords());
+        assertEquals(1, aggregator.committableOffsets().get(PARTITION).offset());
+    }
+    
+    @Test
+    public void consumerCommitsOnlyPastClosedWindows() {
+        MockConsumer<String, String> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        MockProducer<String, String> mockProducer =
+            new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        BasicConsumer consumer = new BasicConsumer(mockConsumer, 0);
+        BasicProducer producer = new BasicProducer(mockProducer);
+        List<Map<TopicPartition, OffsetAndMetadata>> committed = new ArrayList<>();
+        
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            mockConsumer.addRecord(record(0, 100, "a", "x"));
+            mockConsumer.addRecord(record(1, 200, "b", "x"));
+            mockConsumer.addRecord(record(2, 1500, "a", "x"));
+        });
+        mockConsumer.schedulePollTask(() -> {
+            committed.add(mockConsumer.committed(Collections.singleton(PARTITION)));
+            consumer.stop();
+        });
+        consumer.consumeWithWindows(aggregator, producer);
+        
+        // After the first window closed: offset 2 still counts in the open window
+        assertEquals(2, committed.get(0).get(PARTITION).offset());
+        // On shutdown the open window is emitted and everything is committed
+        assertEquals(3, results.size());
+        assertEquals(3, mockConsumer.committed(Collections.singleton(PARTITION)).get(PARTITION).offset());
+        assertTrue(mockProducer.flushed());
+    }
+}
\ No newline at end of file